@@ -0,0 +1,26 @@
+package com.myseotoolbox.crawler;
+
+import com.myseotoolbox.crawler.model.PageSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MetaTagSanitizerBenchmark {
+
+    @Benchmark
+    public PageSnapshot sanitize() {
+        //sanitize works in place: the snapshot has to be rebuilt every time
+        PageSnapshot snapshot = new PageSnapshot();
+        snapshot.setTitle("Running Shoes &amp; Trainers | Free  Delivery\n Example");
+        snapshot.setMetaDescriptions(Collections.singletonList("Shop the latest &quot;running&quot; shoes.\r\nFree&nbsp;returns on <b>all</b> orders over \\u00a350"));
+        snapshot.setH1s(Collections.singletonList("  Running   Shoes  "));
+        snapshot.setH2s(Arrays.asList("Best sellers", "New <em>arrivals</em>", "Caf&eacute; &amp; more", "Size guide", "Reviews"));
+        MetaTagSanitizer.sanitize(snapshot);
+        return snapshot;
+    }
+}
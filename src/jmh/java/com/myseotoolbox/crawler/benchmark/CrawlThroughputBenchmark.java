@@ -0,0 +1,222 @@
+package com.myseotoolbox.crawler.benchmark;
+
+import com.myseotoolbox.crawler.httpclient.AsyncHttpRequestFactory;
+import com.myseotoolbox.crawler.httpclient.HttpRequestFactory;
+import com.myseotoolbox.crawler.httpclient.NoSSLVerificationConnectionFactory;
+import com.myseotoolbox.crawler.httpclient.ObservedHttpRequestFactory;
+import com.myseotoolbox.crawler.httpclient.PooledHttpRequestFactory;
+import com.myseotoolbox.crawler.model.CrawlResult;
+import com.myseotoolbox.crawler.spider.CrawlEventListener;
+import com.myseotoolbox.crawler.spider.CrawlJobBuilder;
+import com.myseotoolbox.crawler.spider.CrawlerThreadPoolExecutorFactory;
+import com.myseotoolbox.crawler.websitecrawl.CrawlStartedEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a whole {@link com.myseotoolbox.crawler.spider.CrawlJob} against a local {@link SyntheticWebsite} and reports
+ * pages/sec, p50/p99 fetch latency, heap high-water mark and GC time.
+ * <p>
+ * {@code ./gradlew crawlBenchmark --args="--pages=100000 --fanout=20 --latency=20 --connections=64 --engine=async"}
+ * <p>
+ * Options (default): pages (100000), fanout (20), redirects (0.05), canonicals (0.05), latency millis (0), pageSize bytes (8192), seed (42),
+ * connections (32), engine: blocking, pooled or async (blocking), virtualThreads (false), output: json file for the results (none)
+ */
+public class CrawlThroughputBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("pages", "100000");
+        DEFAULTS.put("fanout", "20");
+        DEFAULTS.put("redirects", "0.05");
+        DEFAULTS.put("canonicals", "0.05");
+        DEFAULTS.put("latency", "0");
+        DEFAULTS.put("pageSize", "8192");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("connections", "32");
+        DEFAULTS.put("engine", "blocking");
+        DEFAULTS.put("virtualThreads", "false");
+        DEFAULTS.put("output", "");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int pages = Integer.parseInt(options.get("pages"));
+        int connections = Integer.parseInt(options.get("connections"));
+
+        try (SyntheticWebsite website = new SyntheticWebsite(pages,
+                Integer.parseInt(options.get("fanout")),
+                Double.parseDouble(options.get("redirects")),
+                Double.parseDouble(options.get("canonicals")),
+                Long.parseLong(options.get("latency")),
+                Integer.parseInt(options.get("pageSize")),
+                Long.parseLong(options.get("seed")))) {
+
+            URI origin = website.start();
+            Map<String, Object> results = crawl(origin, pages, connections, options);
+            results.put("requests", website.getRequests());
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("options", options);
+            report.put("results", results);
+            System.out.println(toJson(report));
+
+            if (!options.get("output").isEmpty()) {
+                Path output = Paths.get(options.get("output"));
+                if (output.getParent() != null) Files.createDirectories(output.getParent());
+                Files.write(output, toJson(report).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static Map<String, Object> crawl(URI origin, int pages, int connections, Map<String, String> options) throws InterruptedException, IOException {
+        LatencyHistogram latencies = new LatencyHistogram();
+        HttpRequestFactory engine = buildEngine(options.get("engine"), connections);
+        CountingListener listener = new CountingListener();
+
+        resetHeapPeaks();
+        long gcTimeBefore = gcTime();
+        long gcCountBefore = gcCount();
+        long start = System.nanoTime();
+
+        CrawlJobBuilder.newCrawlJobFor(origin, listener)
+                .withSeeds(Collections.singletonList(origin.resolve("/")))
+                .withConcurrentConnections(connections)
+                .withCrawlLimit(pages)
+                .withThreadPoolFactory(new CrawlerThreadPoolExecutorFactory(Boolean.parseBoolean(options.get("virtualThreads"))))
+                .withHttpRequestFactory(new ObservedHttpRequestFactory(engine, latencies))
+                .build()
+                .start();
+
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+        progress.scheduleAtFixedRate(() -> System.err.printf("%d pages crawled, %.0f pages/sec%n",
+                listener.crawled.get(), listener.crawled.get() / seconds(start)), 10, 10, TimeUnit.SECONDS);
+        listener.ended.await();
+        progress.shutdownNow();
+
+        double seconds = seconds(start);
+        if (engine instanceof Closeable) ((Closeable) engine).close();
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("pagesCrawled", listener.crawled.get());
+        results.put("seconds", round(seconds));
+        results.put("pagesPerSecond", round(listener.crawled.get() / seconds));
+        results.put("fetchLatencyP50Millis", latencies.percentile(50));
+        results.put("fetchLatencyP99Millis", latencies.percentile(99));
+        results.put("fetchFailures", latencies.getFailures());
+        results.put("heapHighWaterMarkMB", heapPeak() / (1024 * 1024));
+        results.put("gcTimeMillis", gcTime() - gcTimeBefore);
+        results.put("gcCount", gcCount() - gcCountBefore);
+        return results;
+    }
+
+    private static HttpRequestFactory buildEngine(String engine, int connections) {
+        switch (engine) {
+            case "blocking":
+                return new HttpRequestFactory(new NoSSLVerificationConnectionFactory());
+            case "pooled":
+                return new PooledHttpRequestFactory(connections);
+            case "async":
+                return new AsyncHttpRequestFactory();
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine + ". Use blocking, pooled or async");
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] keyValue = arg.replaceFirst("^--", "").split("=", 2);
+            if (!DEFAULTS.containsKey(keyValue[0]) || keyValue.length != 2) {
+                throw new IllegalArgumentException("Unknown option: '" + arg + "'. Options: " + DEFAULTS.keySet());
+            }
+            options.put(keyValue[0], keyValue[1]);
+        }
+        return options;
+    }
+
+    private static void resetHeapPeaks() {
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    /**
+     * Sum of the peaks of every heap pool: they don't necessarily peak at the same time, so it's an upper bound
+     */
+    private static long heapPeak() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+    }
+
+    private static long gcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static double seconds(long start) {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static String toJson(Map<String, ?> map) {
+        return map.entrySet().stream()
+                .map(e -> "\"" + e.getKey() + "\": " + toJsonValue(e.getValue()))
+                .collect(Collectors.joining(", ", "{", "}"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String toJsonValue(Object value) {
+        if (value instanceof Map) return toJson((Map<String, ?>) value);
+        if (value instanceof Number) return value.toString();
+        return "\"" + value.toString().replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static class CountingListener implements CrawlEventListener {
+        private final AtomicLong crawled = new AtomicLong();
+        private final CountDownLatch ended = new CountDownLatch(1);
+
+        @Override
+        public void pageCrawled(CrawlResult crawlResult) {
+            crawled.incrementAndGet();
+        }
+
+        @Override
+        public void crawlStarted(CrawlStartedEvent event) {
+        }
+
+        @Override
+        public void crawlEnded() {
+            ended.countDown();
+        }
+    }
+}
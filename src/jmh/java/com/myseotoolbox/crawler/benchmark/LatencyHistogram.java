@@ -0,0 +1,55 @@
+package com.myseotoolbox.crawler.benchmark;
+
+import com.myseotoolbox.crawler.httpclient.HttpResponse;
+import com.myseotoolbox.crawler.httpclient.HttpResponseListener;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fetch latencies with millisecond resolution, in a fixed size histogram so recording a million of them costs no memory.
+ */
+class LatencyHistogram implements HttpResponseListener {
+
+    private static final int MAX_TRACKED_MILLIS = 60_000;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(MAX_TRACKED_MILLIS + 1);
+    private final AtomicLong failures = new AtomicLong();
+
+    @Override
+    public void onResponse(URI uri, HttpResponse response, long latency) {
+        buckets.incrementAndGet((int) Math.min(Math.max(latency, 0), MAX_TRACKED_MILLIS));
+    }
+
+    @Override
+    public void onFailure(URI uri, Throwable cause) {
+        failures.incrementAndGet();
+    }
+
+    long getCount() {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); i++) count += buckets.get(i);
+        return count;
+    }
+
+    long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return millis, {@value #MAX_TRACKED_MILLIS} for anything slower
+     */
+    long percentile(double percentile) {
+        long count = getCount();
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(percentile / 100 * count);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) return i;
+        }
+        return MAX_TRACKED_MILLIS;
+    }
+}
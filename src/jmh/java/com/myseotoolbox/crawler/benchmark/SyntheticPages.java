@@ -0,0 +1,125 @@
+package com.myseotoolbox.crawler.benchmark;
+
+import com.myseotoolbox.crawler.pagelinks.PageLink;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic pages shaped like the ones we crawl: scripts and styles in the head, navigation, long body copy with inline markup,
+ * and a realistic mix of links (relative, absolute, external, nofollow, fragments, javascript:, mailto:, encoded and unicode paths).
+ */
+public class SyntheticPages {
+
+    public static final String ORIGIN = "https://www.example.com";
+
+    private static final String[] WORDS = ("lorem ipsum dolor sit amet consectetur adipiscing elit sed do eiusmod tempor incididunt ut labore " +
+            "et dolore magna aliqua enim ad minim veniam quis nostrud exercitation ullamco laboris nisi aliquip ex ea commodo consequat").split(" ");
+
+    private static final String[] SECTIONS = {"/products/", "/blog/", "/category/shoes/", "/help/", "/it/prodotti/", "/de/produkte/"};
+
+    /**
+     * @param paragraphs about 1KB each, with a couple of links every paragraph
+     */
+    public static byte[] page(long seed, int paragraphs) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(paragraphs * 1200 + 4096);
+
+        sb.append("<!DOCTYPE html>\n<html lang=\"en\"><head>\n")
+                .append("<meta charset=\"utf-8\">\n")
+                .append("<title>").append(sentence(random, 8)).append(" &amp; more | Example</title>\n")
+                .append("<meta name=\"description\" content=\"").append(sentence(random, 25)).append(" &quot;free&quot; delivery\">\n")
+                .append("<meta name=\"viewport\" content=\"width=device-width, initial-scale=1\">\n")
+                .append("<link rel=\"canonical\" href=\"").append(ORIGIN).append(path(random)).append("\">\n")
+                .append("<link rel=\"stylesheet\" href=\"/static/main.css\">\n")
+                .append("<style>body{font-family:sans-serif} .nav a{color:#333} .hero > h1{font-size:2em}</style>\n")
+                .append("<script>window.dataLayer=window.dataLayer||[];function gtag(){dataLayer.push(arguments)}")
+                .append("var tpl='<a href=\"/not-a-link\">';</script>\n")
+                .append("<script type=\"application/ld+json\">{\"@context\":\"https://schema.org\",\"@type\":\"Product\"}</script>\n")
+                .append("</head>\n<body class=\"page\">\n<header><nav class=\"nav\"><ul>\n");
+
+        for (String section : SECTIONS) {
+            sb.append("<li><a href=\"").append(section).append("\">").append(sentence(random, 2)).append("</a></li>\n");
+        }
+        sb.append("</ul></nav></header>\n<main>\n<div class=\"hero\"><h1>").append(sentence(random, 6)).append("</h1></div>\n");
+
+        for (int i = 0; i < paragraphs; i++) {
+            if (i % 10 == 0) sb.append("<h2>").append(sentence(random, 5)).append("</h2>\n");
+            sb.append("<p>").append(sentence(random, 40))
+                    .append(" <a href=\"").append(link(random)).append("\"").append(random.nextInt(10) == 0 ? " rel=\"nofollow\"" : "").append(">")
+                    .append(sentence(random, 3)).append("</a> <b>").append(sentence(random, 4)).append("</b> ")
+                    .append(sentence(random, 60))
+                    .append(" <a href=\"").append(link(random)).append("\">").append(sentence(random, 2)).append("</a>.</p>\n");
+            if (i % 25 == 24) sb.append("<!-- <a href=\"/commented-out\">old</a> -->\n<img src=\"/img/").append(i).append(".jpg\" alt=\"\">\n");
+        }
+
+        sb.append("</main>\n<footer><a href=\"mailto:info@example.com\">Contact</a> <a href=\"javascript:void(0)\">Top</a></footer>\n")
+                .append("<script src=\"/static/app.js\" async></script>\n</body></html>\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Links as extracted from a page by the parser
+     */
+    public static List<PageLink> links(long seed, int count) {
+        Random random = new Random(seed);
+        List<PageLink> links = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, String> attributes = random.nextInt(10) == 0 ? Collections.singletonMap("rel", "nofollow") : Collections.emptyMap();
+            links.add(new PageLink(link(random), attributes));
+        }
+        return links;
+    }
+
+    /**
+     * Absolute urls of the origin and of other websites
+     */
+    public static List<String> urls(long seed, int count) {
+        Random random = new Random(seed);
+        List<String> urls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            urls.add(random.nextInt(8) == 0 ? "https://other-site.com" + path(random) : ORIGIN + path(random));
+        }
+        return urls;
+    }
+
+    private static String link(Random random) {
+        switch (random.nextInt(16)) {
+            case 0:
+                return ORIGIN + path(random);
+            case 1:
+                return "https://other-site.com" + path(random);
+            case 2:
+                return "#section-" + random.nextInt(10);
+            case 3:
+                return "javascript:void(0)";
+            case 4:
+                return path(random) + "?utm_source=newsletter&page=" + random.nextInt(50);
+            case 5:
+                return "/search/caf%C3%A9%20" + random.nextInt(1000);
+            case 6:
+                return "/citt\u00e0/" + random.nextInt(1000);
+            case 7:
+                return "../" + WORDS[random.nextInt(WORDS.length)] + "-" + random.nextInt(1000);
+            default:
+                return path(random);
+        }
+    }
+
+    private static String path(Random random) {
+        return SECTIONS[random.nextInt(SECTIONS.length)] + WORDS[random.nextInt(WORDS.length)] + "-" + WORDS[random.nextInt(WORDS.length)] + "-" + random.nextInt(100_000);
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,195 @@
+package com.myseotoolbox.crawler.benchmark;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Website of any size generated on the fly: nothing is held in memory per page.
+ * <p>
+ * Page {@code /p/<id>} links to its children in a tree of branching {@value #TREE_BRANCHING} (so every page is reachable)
+ * plus to pseudo random pages of the site, up to fanout links. The same seed always gives the same website.
+ * A share of the pages redirect to {@code /p/<id>/moved} and a share have a canonical pointing to another page.
+ * Responses are delayed by the configured latency without holding a server thread.
+ */
+@Log4j2
+public class SyntheticWebsite extends AbstractHandler implements AutoCloseable {
+
+    static final int TREE_BRANCHING = 4;
+    private static final String PAGE_PREFIX = "/p/";
+    private static final String MOVED_SUFFIX = "/moved";
+
+    private final int pages;
+    private final int fanout;
+    private final double redirectRatio;
+    private final double canonicalRatio;
+    private final long latencyMillis;
+    private final long seed;
+    private final byte[] filler;
+    private final Server server;
+    private final ScheduledExecutorService delayer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "synthetic-website-latency");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong requests = new AtomicLong();
+    private volatile String origin;
+
+    /**
+     * @param pageSize bytes of text in each page, on top of the links
+     */
+    public SyntheticWebsite(int pages, int fanout, double redirectRatio, double canonicalRatio, long latencyMillis, int pageSize, long seed) {
+        this.pages = pages;
+        this.fanout = Math.max(fanout, TREE_BRANCHING);
+        this.redirectRatio = redirectRatio;
+        this.canonicalRatio = canonicalRatio;
+        this.latencyMillis = latencyMillis;
+        this.seed = seed;
+        this.filler = buildFiller(pageSize);
+        this.server = new Server(new QueuedThreadPool(256));
+        this.server.addConnector(new ServerConnector(server));
+        this.server.setHandler(this);
+    }
+
+    public URI start() throws Exception {
+        server.start();
+        origin = "http://localhost:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+        log.info("Synthetic website of {} pages listening on {}", pages, origin);
+        return URI.create(origin);
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() throws Exception {
+        delayer.shutdownNow();
+        server.stop();
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) {
+        baseRequest.setHandled(true);
+        requests.incrementAndGet();
+
+        if (latencyMillis <= 0) {
+            respond(target, response);
+            return;
+        }
+
+        AsyncContext context = request.startAsync();
+        context.setTimeout(0);
+        delayer.schedule(() -> {
+            try {
+                respond(target, response);
+            } finally {
+                context.complete();
+            }
+        }, latencyMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void respond(String path, HttpServletResponse response) {
+        try {
+            int id = pageId(path);
+            if (id < 0) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            boolean moved = path.endsWith(MOVED_SUFFIX);
+            if (!moved && random(id, -1) < redirectRatio) {
+                response.setStatus(HttpServletResponse.SC_MOVED_PERMANENTLY);
+                response.setHeader("Location", PAGE_PREFIX + id + MOVED_SUFFIX);
+                return;
+            }
+
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType("text/html; charset=utf-8");
+            try (OutputStream out = response.getOutputStream()) {
+                out.write(renderHead(id, moved).getBytes(StandardCharsets.UTF_8));
+                out.write(filler);
+                out.write(renderLinks(id).getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            log.debug("Unable to respond to {}: {}", path, e.getMessage());
+        }
+    }
+
+    private int pageId(String path) {
+        if (path.equals("/")) return 0;
+        if (!path.startsWith(PAGE_PREFIX)) return -1;
+        String id = path.substring(PAGE_PREFIX.length());
+        if (id.endsWith(MOVED_SUFFIX)) id = id.substring(0, id.length() - MOVED_SUFFIX.length());
+        try {
+            int value = Integer.parseInt(id);
+            return value >= 0 && value < pages ? value : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String renderHead(int id, boolean moved) {
+        String self = id == 0 ? "/" : PAGE_PREFIX + id + (moved ? MOVED_SUFFIX : "");
+        String canonical = random(id, -2) < canonicalRatio ? pathOf(randomPage(id, -3)) : self;
+        return "<!DOCTYPE html><html><head><title>Page " + id + "</title>" +
+                "<meta name=\"description\" content=\"Description of page " + id + "\">" +
+                "<link rel=\"canonical\" href=\"" + origin + canonical + "\">" +
+                "</head><body><h1>Page " + id + "</h1><h2>Section</h2>";
+    }
+
+    private String renderLinks(int id) {
+        StringBuilder sb = new StringBuilder(fanout * 32 + 32).append("<ul>");
+        for (int k = 1; k <= fanout; k++) {
+            long child = (long) id * TREE_BRANCHING + k;
+            int target = k <= TREE_BRANCHING && child < pages ? (int) child : randomPage(id, k);
+            sb.append("<li><a href=\"").append(pathOf(target)).append("\">Page ").append(target).append("</a></li>");
+        }
+        return sb.append("</ul></body></html>").toString();
+    }
+
+    private String pathOf(int id) {
+        return id == 0 ? "/" : PAGE_PREFIX + id;
+    }
+
+    private int randomPage(int id, int salt) {
+        return (int) (Math.abs(mix(id, salt) % pages));
+    }
+
+    /**
+     * @return a number in [0, 1) always the same for the same page and salt
+     */
+    private double random(int id, int salt) {
+        return (mix(id, salt) >>> 11) * 0x1.0p-53;
+    }
+
+    //splitmix64 finalizer
+    private long mix(int id, int salt) {
+        long z = seed + id * 0x9E3779B97F4A7C15L + salt * 0xC2B2AE3D27D4EB4FL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static byte[] buildFiller(int size) {
+        String paragraph = "<p>Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua.</p>\n";
+        StringBuilder sb = new StringBuilder(size + paragraph.length());
+        while (sb.length() < size) sb.append(paragraph);
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
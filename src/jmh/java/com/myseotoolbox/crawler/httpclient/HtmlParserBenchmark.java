@@ -0,0 +1,33 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import com.myseotoolbox.crawler.benchmark.SyntheticPages;
+import com.myseotoolbox.crawler.model.PageSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HtmlParserBenchmark {
+
+    //~20KB and ~200KB pages
+    @Param({"15", "180"})
+    public int paragraphs;
+
+    private final HtmlParser parser = new HtmlParser();
+    private byte[] page;
+
+    @Setup
+    public void setUp() {
+        page = SyntheticPages.page(42, paragraphs);
+    }
+
+    @Benchmark
+    public PageSnapshot parse() throws IOException {
+        return parser.parse(SyntheticPages.ORIGIN + "/products/page", Collections.emptyList(), new ByteArrayInputStream(page));
+    }
+}
@@ -0,0 +1,95 @@
+package com.myseotoolbox.crawler.spider;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.myseotoolbox.crawler.benchmark.SyntheticPages;
+import com.myseotoolbox.crawler.metrics.CrawlMetrics;
+import com.myseotoolbox.crawler.model.CrawlResult;
+import com.myseotoolbox.crawler.model.PageSnapshot;
+import com.myseotoolbox.crawler.model.RedirectChainElement;
+import com.myseotoolbox.crawler.pagelinks.PageLink;
+import com.myseotoolbox.crawler.spider.frontier.InMemoryFrontier;
+import com.myseotoolbox.crawler.spider.model.SnapshotTask;
+import com.myseotoolbox.crawler.spider.visited.FingerprintVisitedUrlStore;
+import com.myseotoolbox.crawler.websitecrawl.CrawlStartedEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Link enqueueing: a whole crawl of {@value #MAX_CRAWLS} pages, each linking to {@link #links} others, where the crawlers answer straight away.
+ * What is measured is the link resolution, filtering, deduplication and bookkeeping of the queue (plus building the snapshots).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CrawlerQueueBenchmark {
+
+    private static final int MAX_CRAWLS = 1000;
+    private static final URI ORIGIN = URI.create(SyntheticPages.ORIGIN);
+    private static final UriFilter SAME_HOST = (source, link) -> ORIGIN.getHost().equals(link.getHost());
+
+    @Param({"100"})
+    public int links;
+
+    private List<PageLink> pageLinks;
+
+    @Setup
+    public void setUp() {
+        pageLinks = SyntheticPages.links(42, links);
+    }
+
+    @Benchmark
+    public int crawl() {
+        CountingListener listener = new CountingListener();
+        //Tasks are completed in a loop rather than recursively, or the stack would grow with the crawl
+        Queue<SnapshotTask> tasks = new ArrayDeque<>();
+        CrawlersPool pool = new CrawlersPool(null, MoreExecutors.newDirectExecutorService());
+        List<URI> seeds = Collections.singletonList(ORIGIN.resolve("/"));
+
+        new CrawlerQueue("benchmark", seeds, pool, tasks::add, SAME_HOST, MAX_CRAWLS, listener, FingerprintVisitedUrlStore::onHeap, new InMemoryFrontier(), Integer.MAX_VALUE, new CrawlMetrics()).start();
+
+        int page = 0;
+        SnapshotTask task;
+        while ((task = tasks.poll()) != null) {
+            task.getTaskRequester().accept(CrawlResult.forSnapshot(snapshot(task.getUri(), page++)));
+        }
+        return listener.crawled;
+    }
+
+    private PageSnapshot snapshot(URI uri, int page) {
+        PageSnapshot snapshot = new PageSnapshot();
+        snapshot.setUri(uri.toString());
+        snapshot.setRedirectChainElements(Collections.singletonList(new RedirectChainElement(uri.toString(), 200, uri.toString())));
+        //Every page links to different pages, or they'd be all visited after the first one
+        List<PageLink> links = new ArrayList<>(pageLinks.size());
+        for (PageLink link : pageLinks) {
+            String destination = link.getDestination().startsWith("/") ? "/p" + page + link.getDestination() : link.getDestination();
+            links.add(new PageLink(destination, link.getAttributes()));
+        }
+        snapshot.setLinks(links);
+        return snapshot;
+    }
+
+    private static class CountingListener implements CrawlEventListener {
+        private int crawled = 0;
+
+        @Override
+        public void pageCrawled(CrawlResult crawlResult) {
+            crawled++;
+        }
+
+        @Override
+        public void crawlStarted(CrawlStartedEvent event) {
+        }
+
+        @Override
+        public void crawlEnded() {
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.myseotoolbox.crawler.spider;
+
+import com.myseotoolbox.crawler.benchmark.SyntheticPages;
+import com.myseotoolbox.crawler.spider.filter.robotstxt.DefaultRobotsTxt;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DefaultUriFilterBenchmark {
+
+    private static final String ROBOTS_TXT = "User-agent: *\n" +
+            "Disallow: /search/\n" +
+            "Disallow: /*?utm_source=\n" +
+            "Disallow: /checkout\n" +
+            "Allow: /search/help\n" +
+            "Sitemap: " + SyntheticPages.ORIGIN + "/sitemap.xml\n";
+
+    private static final int LINKS = 100;
+
+    private DefaultUriFilter filter;
+    private URI source;
+    private List<URI> discovered;
+
+    @Setup
+    public void setUp() {
+        URI origin = URI.create(SyntheticPages.ORIGIN);
+        DefaultRobotsTxt robotsTxt = new DefaultRobotsTxt(SyntheticPages.ORIGIN, ROBOTS_TXT.getBytes(StandardCharsets.UTF_8));
+        filter = new DefaultUriFilter(origin, Arrays.asList("/products/", "/category/", "/blog/"), robotsTxt);
+        source = URI.create(SyntheticPages.ORIGIN + "/products/page");
+        discovered = SyntheticPages.urls(42, LINKS).stream().map(URI::create).collect(Collectors.toList());
+    }
+
+    /**
+     * Filters all the links of a page of {@value #LINKS} links
+     */
+    @Benchmark
+    public void shouldCrawl(Blackhole blackhole) {
+        for (URI uri : discovered) {
+            blackhole.consume(filter.shouldCrawl(source, uri));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.myseotoolbox.crawler.spider;
+
+import com.myseotoolbox.crawler.benchmark.SyntheticPages;
+import com.myseotoolbox.crawler.pagelinks.PageLink;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageLinksHelperBenchmark {
+
+    @Param({"50", "500"})
+    public int links;
+
+    private List<PageLink> pageLinks;
+
+    @Setup
+    public void setUp() {
+        pageLinks = SyntheticPages.links(42, links);
+    }
+
+    @Benchmark
+    public List<URI> filterValidPageLinks() {
+        return PageLinksHelper.filterValidPageLinks(pageLinks);
+    }
+}
@@ -0,0 +1,29 @@
+package com.myseotoolbox.crawler.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AntPathMatcherBenchmark {
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    @Benchmark
+    public boolean matchSubPath() {
+        //What PathMatcher does for every discovered link
+        return matcher.match("/category/shoes/**", "/category/shoes/running/men/running-shoes-12345");
+    }
+
+    @Benchmark
+    public boolean noMatch() {
+        return matcher.match("/category/shoes/**", "/blog/2022/05/how-to-choose-running-shoes");
+    }
+
+    @Benchmark
+    public boolean matchWildcards() {
+        return matcher.match("/*/products/**/*.html", "/it/products/shoes/running/model-123.html");
+    }
+}
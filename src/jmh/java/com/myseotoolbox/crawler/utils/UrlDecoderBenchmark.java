@@ -0,0 +1,25 @@
+package com.myseotoolbox.crawler.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UrlDecoderBenchmark {
+
+    @Param({"/category/shoes/running-shoes-12345", "/search/caf%C3%A9%20cr%C3%A8me/citt%C3%A0?q=%E2%82%AC%2010"})
+    public String url;
+
+    @Benchmark
+    public String decode() {
+        return UrlDecoder.decode(url);
+    }
+
+    @Benchmark
+    public String normalize() {
+        //decode and escape again, as done for every discovered link
+        return UrlNormalizer.normalize(url);
+    }
+}
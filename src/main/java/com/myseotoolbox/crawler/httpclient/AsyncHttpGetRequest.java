@@ -0,0 +1,195 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+
+import static com.myseotoolbox.crawler.httpclient.HttpGetRequest.DEFAULT_CONNECTION_TIMEOUT;
+import static com.myseotoolbox.crawler.httpclient.HttpGetRequest.USER_AGENT;
+import static com.myseotoolbox.crawler.utils.IsRedirect.isRedirect;
+
+/**
+ * GET request sent with {@link HttpClient}. No thread is held while waiting for the server.
+ * <p>
+ * The body is only downloaded when it's going to be parsed (not for redirects, errors or unsupported content types)
+ * and it's buffered in memory, up to the max body size, so the parser never blocks on the network.
+ * Compressed bodies are buffered compressed and inflated while they're parsed.
+ */
+@Log4j2
+public class AsyncHttpGetRequest extends HttpGetRequest {
+
+    private final URI uri;
+    private final HttpClient client;
+    private final int maxBodySize;
+
+    public AsyncHttpGetRequest(URI uri, HttpClient client) {
+        this(uri, client, WebPageReader.DEFAULT_MAX_BODY_SIZE);
+    }
+
+    /**
+     * @param maxBodySize the body is buffered up to this size, the response of a bigger one is marked as truncated
+     */
+    public AsyncHttpGetRequest(URI uri, HttpClient client, int maxBodySize) {
+        super(uri, null);
+        this.uri = uri;
+        this.client = client;
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    public HttpResponse execute() throws IOException, URISyntaxException {
+        try {
+            return executeAsync().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + uri, e);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> executeAsync() {
+        HttpRequest request;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(new URI(uri.toASCIIString()))
+                    .GET()
+                    .timeout(Duration.ofMillis(DEFAULT_CONNECTION_TIMEOUT))
+                    .header("User-Agent", USER_AGENT)
+                    .header("Accept-Encoding", ContentEncoding.ACCEPT_ENCODING);
+            if (getIfNoneMatch() != null) builder.header("If-None-Match", getIfNoneMatch());
+            if (getIfModifiedSince() != null) builder.header("If-Modified-Since", getIfModifiedSince());
+            request = builder.build();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return client.sendAsync(request, bodyHandler()).thenApply(this::toHttpResponse);
+    }
+
+    private HttpResponse toHttpResponse(java.net.http.HttpResponse<Body> response) {
+        int status = response.statusCode();
+        URI dstURI = uri;
+
+        if (isRedirect(status)) {
+            dstURI = resolveLocation(response.headers().firstValue("location").orElse(null), dstURI);
+        }
+
+        Body body = response.body();
+        InputStream bodyStream = body != null ? ContentEncoding.decode(new ByteArrayInputStream(body.bytes), response.headers().firstValue("content-encoding").orElse(null)) : null;
+        HttpResponse httpResponse = new HttpResponse(status, dstURI, getContentType(response.headers()), bodyStream,
+                response.headers().firstValue("retry-after").orElse(null),
+                response.headers().firstValue("etag").orElse(null),
+                response.headers().firstValue("last-modified").orElse(null));
+        if (body != null) {
+            httpResponse.setBodyTruncated(body.truncated);
+            //all downloaded before the response is handed over
+            long received = body.bytes.length;
+            httpResponse.setBodyBytesReceived(() -> received);
+        }
+        return httpResponse;
+    }
+
+    private BodyHandler<Body> bodyHandler() {
+        return responseInfo -> shouldReadBody(responseInfo) ? new LimitedBodySubscriber(maxBodySize) : BodySubscribers.replacing(null);
+    }
+
+    private static boolean shouldReadBody(ResponseInfo responseInfo) {
+        int status = responseInfo.statusCode();
+        return status < 400 && !isRedirect(status) && WebPageReader.isSupportedContentType(getContentType(responseInfo.headers()));
+    }
+
+    private static String getContentType(java.net.http.HttpHeaders headers) {
+        return headers.firstValue("content-type").orElse(null);
+    }
+
+    private static IOException rethrow(Throwable cause) throws URISyntaxException {
+        if (cause instanceof CompletionException && cause.getCause() != null) cause = cause.getCause();
+        if (cause instanceof IOException) return (IOException) cause;
+        if (cause instanceof URISyntaxException) throw (URISyntaxException) cause;
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        return new IOException(cause);
+    }
+
+    private static class Body {
+        private final byte[] bytes;
+        //the download was cancelled after the first bytes
+        private final boolean truncated;
+
+        Body(byte[] bytes, boolean truncated) {
+            this.bytes = bytes;
+            this.truncated = truncated;
+        }
+    }
+
+    /**
+     * Collects the body up to limit bytes, then cancels the download.
+     */
+    private static class LimitedBodySubscriber implements BodySubscriber<Body> {
+        private final CompletableFuture<Body> body = new CompletableFuture<>();
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final long limit;
+        private Flow.Subscription subscription;
+
+        LimitedBodySubscriber(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public CompletionStage<Body> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (body.isDone()) return;
+            boolean truncated = false;
+            for (ByteBuffer item : items) {
+                int len = (int) Math.min(item.remaining(), limit - buffer.size());
+                byte[] bytes = new byte[len];
+                item.get(bytes);
+                buffer.write(bytes, 0, len);
+                truncated |= item.hasRemaining();
+            }
+            if (truncated) {
+                subscription.cancel();
+                body.complete(new Body(buffer.toByteArray(), true));
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            body.complete(new Body(buffer.toByteArray(), false));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.myseotoolbox.crawler.httpclient.HttpGetRequest.DEFAULT_CONNECTION_TIMEOUT;
+
+/**
+ * Builds non blocking requests on a single {@link HttpClient}.
+ * One instance can be shared by many crawl jobs: the client multiplexes all the connections on its own selector thread.
+ * <p>
+ * The responses are handled (and the pages parsed) on a pool of one thread per processor, unless an executor is given.
+ * HttpClient default pool would start a thread per concurrent response. {@link #close()} shuts the pool down.
+ * <p>
+ * Certificates are not verified, same as {@link NoSSLVerificationConnectionFactory}.
+ * Host name verification can only be disabled JVM wide with -Djdk.internal.httpclient.disableHostnameVerification
+ */
+public class AsyncHttpRequestFactory extends HttpRequestFactory implements Closeable {
+
+    private static final AtomicInteger threadId = new AtomicInteger();
+
+    private final HttpClient client;
+    private final int maxBodySize;
+    //created here, null if given by the caller
+    private final ExecutorService ownExecutor;
+
+    public AsyncHttpRequestFactory() {
+        this(null);
+    }
+
+    public AsyncHttpRequestFactory(Executor executor) {
+        this(executor, WebPageReader.DEFAULT_MAX_BODY_SIZE);
+    }
+
+    /**
+     * @param executor    runs the response handlers (and the parsing of the pages). A pool of one thread per processor if null
+     * @param maxBodySize bytes buffered per page, the download stops after them and the page is marked as truncated (see {@link HttpResponse#isBodyTruncated()})
+     */
+    public AsyncHttpRequestFactory(Executor executor, int maxBodySize) {
+        super(null);
+        this.maxBodySize = maxBodySize;
+        this.ownExecutor = executor == null ? newResponsePool() : null;
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofMillis(DEFAULT_CONNECTION_TIMEOUT))
+                .sslContext(NoSSLVerificationConnectionFactory.createTrustAllSslContext());
+
+        builder.executor(executor != null ? executor : ownExecutor);
+
+        this.client = builder.build();
+    }
+
+    @Override
+    public HttpGetRequest buildGetFor(URI uri) {
+        return new AsyncHttpGetRequest(uri, client, maxBodySize);
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return true;
+    }
+
+    /**
+     * Shut down the pool handling the responses, if created here. An executor given by the caller is left running
+     */
+    @Override
+    public void close() {
+        if (ownExecutor != null) ownExecutor.shutdown();
+    }
+
+    private static ExecutorService newResponsePool() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "async-http-" + threadId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
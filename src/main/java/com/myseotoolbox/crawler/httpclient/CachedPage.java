@@ -0,0 +1,20 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import com.myseotoolbox.crawler.model.PageSnapshot;
+import lombok.Data;
+
+/**
+ * Snapshot of a page with the validators of the response it was parsed from
+ */
+@Data
+public class CachedPage {
+    /**
+     * Null if the server didn't send it
+     */
+    private final String etag;
+    /**
+     * Null if the server didn't send it
+     */
+    private final String lastModified;
+    private final PageSnapshot snapshot;
+}
@@ -0,0 +1,137 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import org.brotli.dec.BrotliInputStream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Content codings we ask for, and the streams decoding them while they are read.
+ * <p>
+ * Nothing is decompressed up front: the page is inflated as the parser reads it, so the max body size of the {@link WebPageReader}
+ * applies to the decoded bytes and a compression bomb is dropped once the limit is reached.
+ */
+public final class ContentEncoding {
+
+    public static final String ACCEPT_ENCODING = "gzip, deflate, br";
+
+    private ContentEncoding() {
+    }
+
+    /**
+     * @param contentEncoding value of the Content-Encoding header, null for identity
+     * @return the decoded body, decoding starts at the first read. Closing it closes the body.
+     */
+    public static InputStream decode(InputStream body, String contentEncoding) {
+        if (body == null || contentEncoding == null) return body;
+        String coding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        switch (coding) {
+            case "":
+            case "identity":
+                return body;
+            case "gzip":
+            case "x-gzip":
+            case "deflate":
+            case "br":
+                return new DecodingInputStream(body, coding);
+            default:
+                //stacked codings ("gzip, br") are never sent for what we ask
+                return new FailingInputStream(body, new IOException("Unsupported content encoding: " + contentEncoding));
+        }
+    }
+
+    private static InputStream decoderFor(InputStream body, String coding) throws IOException {
+        switch (coding) {
+            case "br":
+                return new BrotliInputStream(body);
+            case "deflate":
+                return inflate(body);
+            default:
+                return new GZIPInputStream(body);
+        }
+    }
+
+    /**
+     * "deflate" should be zlib wrapped, but plenty of servers send the raw deflate stream
+     */
+    private static InputStream inflate(InputStream body) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(body, 2);
+        int cmf = in.read();
+        int flg = cmf != -1 ? in.read() : -1;
+        if (flg != -1) in.unread(flg);
+        if (cmf != -1) in.unread(cmf);
+        boolean zlibHeader = (cmf & 0x0f) == 8 && flg != -1 && ((cmf << 8) | flg) % 31 == 0;
+        return new InflaterInputStream(in, new Inflater(!zlibHeader));
+    }
+
+    /**
+     * Replaces the body with its decoder at the first read: bodies nobody reads (304, HEAD-like empty responses) are never decoded.
+     */
+    private static class DecodingInputStream extends FilterInputStream {
+        private final String coding;
+        private boolean decoding = false;
+
+        DecodingInputStream(InputStream body, String coding) {
+            super(body);
+            this.coding = coding;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return decoder().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return decoder().read(b, off, len);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return decoder().skip(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return decoding ? in.available() : 0;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private InputStream decoder() throws IOException {
+            if (!decoding) {
+                in = decoderFor(in, coding);
+                decoding = true;
+            }
+            return in;
+        }
+    }
+
+    private static class FailingInputStream extends FilterInputStream {
+        private final IOException failure;
+
+        FailingInputStream(InputStream body, IOException failure) {
+            super(body);
+            this.failure = failure;
+        }
+
+        @Override
+        public int read() throws IOException {
+            throw failure;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            throw failure;
+        }
+    }
+}
@@ -2,26 +2,86 @@ package com.myseotoolbox.crawler.httpclient;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 
+import static com.myseotoolbox.crawler.httpclient.HttpGetRequest.DEFAULT_CONNECTION_TIMEOUT;
+import static com.myseotoolbox.crawler.httpclient.HttpGetRequest.USER_AGENT;
+
+
+/**
+ * Follows redirects. Connections are pooled across the calls on the same instance.
+ */
+public class HTTPClient implements Closeable {
+    //the Apache defaults
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 2;
+    private static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+    private final CloseableHttpClient httpclient;
+
+    public HTTPClient() {
+        this(DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * @param maxConnections connections kept open at the same time, to the same host or overall.
+     *                       A call waiting longer than the connection timeout for one of them fails
+     */
+    public HTTPClient(int maxConnections) {
+        this(maxConnections, maxConnections);
+    }
+
+    private HTTPClient(int maxConnectionsPerRoute, int maxConnections) {
+        this.httpclient = HttpClients.custom()
+                .setUserAgent(USER_AGENT)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setMaxConnTotal(maxConnections)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(DEFAULT_CONNECTION_TIMEOUT)
+                        .setSocketTimeout(DEFAULT_CONNECTION_TIMEOUT)
+                        .setConnectionRequestTimeout(DEFAULT_CONNECTION_TIMEOUT)
+                        .build())
+                .build();
+    }
+
+    public interface BodyConsumer {
+        void accept(InputStream body) throws IOException;
+    }
 
-public class HTTPClient {
     public String get(URI uri) throws IOException {
-        try (CloseableHttpClient httpclient = HttpClients.createDefault()) {
-            HttpGet httpget = new HttpGet(uri);
-            CloseableHttpResponse response = httpclient.execute(httpget);
+        StringBuilder content = new StringBuilder();
+        get(uri, body -> content.append(IOUtils.toString(body, StandardCharsets.UTF_8)));
+        return content.toString();
+    }
+
+    /**
+     * Streams the body to consumer. The body can't be used after consumer returns.
+     *
+     * @throws HttpStatusException if the status isn't 200
+     */
+    public void get(URI uri, BodyConsumer consumer) throws IOException {
+        HttpGet httpget = new HttpGet(uri);
+        try (CloseableHttpResponse response = httpclient.execute(httpget)) {
             if (response.getStatusLine().getStatusCode() != 200) {
-                throw new IOException(new IOException("Non 200 status code: "+response.getStatusLine().getStatusCode()));
+                throw new HttpStatusException(response.getStatusLine().getStatusCode());
             }
+            //a body not read to the end closes the connection instead of being drained
             final HttpEntity entity = response.getEntity();
-            return IOUtils.toString(entity.getContent(), StandardCharsets.UTF_8);
+            consumer.accept(entity.getContent());
         }
     }
-}
+
+    @Override
+    public void close() throws IOException {
+        httpclient.close();
+    }
+}
\ No newline at end of file
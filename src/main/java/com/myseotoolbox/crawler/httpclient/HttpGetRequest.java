@@ -1,12 +1,15 @@
 package com.myseotoolbox.crawler.httpclient;
 
 
+import com.google.common.io.CountingInputStream;
 import lombok.extern.log4j.Log4j2;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
 
 import static com.myseotoolbox.crawler.httpclient.SafeStringEscaper.containsUnicodeCharacters;
 import static com.myseotoolbox.crawler.spider.PageLinksHelper.toValidUri;
@@ -22,12 +25,45 @@ public class HttpGetRequest {
     public static final int DEFAULT_CONNECTION_TIMEOUT = 30000;
     private final URI uri;
     private final ConnectionFactory connectionFactory;
+    private String ifNoneMatch;
+    private String ifModifiedSince;
 
     public HttpGetRequest(URI uri, ConnectionFactory connectionFactory) {
         this.uri = uri;
         this.connectionFactory = connectionFactory;
     }
 
+    /**
+     * Ask the server to answer 304 Not Modified if the page didn't change since the response with these validators
+     *
+     * @param etag         ETag of the previous response, or null
+     * @param lastModified Last-Modified of the previous response, or null
+     */
+    public HttpGetRequest conditionalOn(String etag, String lastModified) {
+        this.ifNoneMatch = etag;
+        this.ifModifiedSince = lastModified;
+        return this;
+    }
+
+    String getIfNoneMatch() {
+        return ifNoneMatch;
+    }
+
+    String getIfModifiedSince() {
+        return ifModifiedSince;
+    }
+
+
+    /**
+     * Blocking requests complete the future on the calling thread. See {@link AsyncHttpGetRequest} for the non blocking version
+     */
+    public CompletableFuture<HttpResponse> executeAsync() {
+        try {
+            return CompletableFuture.completedFuture(execute());
+        } catch (IOException | URISyntaxException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
     public HttpResponse execute() throws IOException, URISyntaxException {
 
@@ -37,6 +73,9 @@ public class HttpGetRequest {
         connection.setInstanceFollowRedirects(false);
         connection.setConnectTimeout(DEFAULT_CONNECTION_TIMEOUT);
         connection.setRequestProperty("User-Agent", USER_AGENT);
+        connection.setRequestProperty("Accept-Encoding", ContentEncoding.ACCEPT_ENCODING);
+        if (ifNoneMatch != null) connection.setRequestProperty("If-None-Match", ifNoneMatch);
+        if (ifModifiedSince != null) connection.setRequestProperty("If-Modified-Since", ifModifiedSince);
 
         connection.connect();
         URI dstURI = uri;
@@ -44,28 +83,38 @@ public class HttpGetRequest {
         int status = connection.getResponseCode();
 
         if (isRedirect(status)) {
-            dstURI = extractDestinationUri(connection, dstURI);
+            dstURI = resolveLocation(connection.getHeaderField("location"), dstURI);
         }
 
-        return new HttpResponse(status, dstURI, connection.getContentType(), status < 400 ? connection.getInputStream() : null);
-    }
+        if (status >= 400) {
+            //error bodies are never parsed, but the connection can only go back to the keep-alive cache once they're consumed
+            ResponseStreams.drainAndClose(connection.getErrorStream());
+            return new HttpResponse(status, dstURI, connection.getContentType(), null, connection.getHeaderField("retry-after"));
+        }
 
-    private URI extractDestinationUri(HttpURLConnection connection, URI initialLocation) throws URISyntaxException {
-        String locationHeader = connection.getHeaderField("location");
+        CountingInputStream received = new CountingInputStream(connection.getInputStream());
+        InputStream body = ContentEncoding.decode(received, connection.getContentEncoding());
+        HttpResponse response = new HttpResponse(status, dstURI, connection.getContentType(), body, null,
+                connection.getHeaderField("etag"), connection.getHeaderField("last-modified"));
+        response.setBodyBytesReceived(received::getCount);
+        return response;
+    }
 
+    static URI resolveLocation(String locationHeader, URI initialLocation) {
+        String location = locationHeader;
 
-        if (containsUnicodeCharacters(locationHeader)) {
-            log.warn("Redirect destination {} contains non ASCII characters (as required by the standard)", connection.getURL());
-            locationHeader = SafeStringEscaper.escapeString(locationHeader);
+        if (containsUnicodeCharacters(location)) {
+            log.warn("Redirect destination {} contains non ASCII characters (as required by the standard)", initialLocation);
+            location = SafeStringEscaper.escapeString(location);
         }
 
-        URI location = toValidUri(locationHeader)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid redirect destination. src: " + initialLocation + " dst: " + connection.getHeaderField("location")));
+        URI locationUri = toValidUri(location)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid redirect destination. src: " + initialLocation + " dst: " + locationHeader));
 
-        if (location.isAbsolute()) {
-            return location;
+        if (locationUri.isAbsolute()) {
+            return locationUri;
         } else {
-            return initialLocation.resolve(location);
+            return initialLocation.resolve(locationUri);
         }
     }
 
@@ -10,4 +10,11 @@ public class HttpRequestFactory {
     public HttpGetRequest buildGetFor(URI uri) {
         return new HttpGetRequest(uri, connectionFactory);
     }
+
+    /**
+     * @return true if {@link HttpGetRequest#executeAsync()} doesn't hold the calling thread while waiting for the server
+     */
+    public boolean isNonBlocking() {
+        return false;
+    }
 }
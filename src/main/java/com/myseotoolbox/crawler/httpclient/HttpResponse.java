@@ -4,6 +4,7 @@ import lombok.Data;
 
 import java.io.InputStream;
 import java.net.URI;
+import java.util.function.LongSupplier;
 
 
 @Data
@@ -12,11 +13,39 @@ public class HttpResponse {
     private final URI location;
     private final String contentType;
     private final InputStream inputStream;
+    /**
+     * Raw Retry-After header of 429 and 503 responses
+     */
+    private final String retryAfter;
+    /**
+     * Validators of the page, null if not sent. See {@link HttpGetRequest#conditionalOn}
+     */
+    private final String etag;
+    private final String lastModified;
+    /**
+     * True if the request stopped downloading the body before its end, see {@link AsyncHttpRequestFactory}
+     */
+    private boolean bodyTruncated;
+    /**
+     * Bytes of the body received so far as sent by the server, before decompression. Null if not tracked
+     */
+    private LongSupplier bodyBytesReceived;
 
     public HttpResponse(int httpStatus, URI location, String contentType, InputStream inputStream) {
+        this(httpStatus, location, contentType, inputStream, null);
+    }
+
+    public HttpResponse(int httpStatus, URI location, String contentType, InputStream inputStream, String retryAfter) {
+        this(httpStatus, location, contentType, inputStream, retryAfter, null, null);
+    }
+
+    public HttpResponse(int httpStatus, URI location, String contentType, InputStream inputStream, String retryAfter, String etag, String lastModified) {
         this.httpStatus = httpStatus;
         this.location = location;
         this.contentType = contentType;
         this.inputStream = inputStream;
+        this.retryAfter = retryAfter;
+        this.etag = etag;
+        this.lastModified = lastModified;
     }
 }
@@ -0,0 +1,17 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import java.net.URI;
+
+/**
+ * Notified of every request sent through an {@link ObservedHttpRequestFactory}, redirects included.
+ * Called on the thread that received the response: implementations must be thread safe and quick.
+ */
+public interface HttpResponseListener {
+
+    /**
+     * @param latency millis from the request to the response headers
+     */
+    void onResponse(URI uri, HttpResponse response, long latency);
+
+    void onFailure(URI uri, Throwable cause);
+}
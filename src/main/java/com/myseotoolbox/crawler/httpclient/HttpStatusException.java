@@ -0,0 +1,18 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * The server answered, but not with 200 OK
+ */
+@Getter
+public class HttpStatusException extends IOException {
+    private final int statusCode;
+
+    public HttpStatusException(int statusCode) {
+        super("Non 200 status code: " + statusCode);
+        this.statusCode = statusCode;
+    }
+}
@@ -0,0 +1,29 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the whole snapshots on the heap: fine for recrawls in the same process of websites of moderate size.
+ * To recrawl across restarts, implement {@link ValidatorStore} on top of the storage of the previous snapshots.
+ */
+@ThreadSafe
+public class InMemoryValidatorStore implements ValidatorStore {
+
+    private final Map<String, CachedPage> pages = new ConcurrentHashMap<>();
+
+    @Override
+    public CachedPage get(String url) {
+        return pages.get(url);
+    }
+
+    @Override
+    public void put(String url, CachedPage page) {
+        pages.put(url, page);
+    }
+
+    public int size() {
+        return pages.size();
+    }
+}
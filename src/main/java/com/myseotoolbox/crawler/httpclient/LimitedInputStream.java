@@ -0,0 +1,101 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Ends the stream once maxBytes have been read, or once the deadline has passed.
+ * {@link #isTruncated()} tells if there was more to read.
+ * <p>
+ * The deadline is checked between reads: a read already blocked on the network still waits for the socket timeout.
+ */
+class LimitedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private final long deadline;
+    private long count = 0;
+    private boolean truncated = false;
+    private boolean timedOut = false;
+
+    /**
+     * @param maxReadTimeMillis 0 for no time limit
+     */
+    LimitedInputStream(InputStream in, long maxBytes, long maxReadTimeMillis) {
+        super(in);
+        this.maxBytes = maxBytes;
+        this.deadline = maxReadTimeMillis > 0 ? System.nanoTime() + maxReadTimeMillis * 1_000_000 : 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (limitReached()) return -1;
+        int b = super.read();
+        if (b != -1) count++;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (limitReached()) return -1;
+        int read = super.read(b, off, (int) Math.min(len, maxBytes - count));
+        if (read > 0) count += read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (limitReached()) return 0;
+        long skipped = super.skip(Math.min(n, maxBytes - count));
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(super.available(), maxBytes - count);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @return true if the stream was truncated by the deadline rather than by its size
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    private boolean limitReached() throws IOException {
+        if (truncated) return true;
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            truncated = true;
+            timedOut = true;
+            return true;
+        }
+        if (count < maxBytes) return false;
+        //One more byte tells a body of exactly maxBytes from a bigger one
+        truncated = super.read() != -1;
+        return true;
+    }
+}
@@ -34,11 +34,16 @@ public class NoSSLVerificationConnectionFactory implements ConnectionFactory {
     private static final HostnameVerifier allHostsValid = (hostname, session) -> true;
     private final SSLContext sslContext;
 
-    @SneakyThrows
     public NoSSLVerificationConnectionFactory() {
+        sslContext = createTrustAllSslContext();
+    }
+
+    @SneakyThrows
+    static SSLContext createTrustAllSslContext() {
         // Install the all-trusting trust manager
-        sslContext = SSLContext.getInstance("SSL");
+        SSLContext sslContext = SSLContext.getInstance("SSL");
         sslContext.init(null, trustAllCerts, new java.security.SecureRandom());
+        return sslContext;
     }
 
     @Override
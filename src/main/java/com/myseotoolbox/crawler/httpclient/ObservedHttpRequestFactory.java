@@ -0,0 +1,79 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the requests with another factory and reports their outcome to a {@link HttpResponseListener}.
+ */
+public class ObservedHttpRequestFactory extends HttpRequestFactory {
+
+    private final HttpRequestFactory delegate;
+    private final HttpResponseListener listener;
+
+    public ObservedHttpRequestFactory(HttpRequestFactory delegate, HttpResponseListener listener) {
+        super(null);
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    @Override
+    public HttpGetRequest buildGetFor(URI uri) {
+        return new ObservedHttpGetRequest(uri, delegate.buildGetFor(uri), listener);
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return delegate.isNonBlocking();
+    }
+
+    private static class ObservedHttpGetRequest extends HttpGetRequest {
+        private final URI uri;
+        private final HttpGetRequest delegate;
+        private final HttpResponseListener listener;
+
+        ObservedHttpGetRequest(URI uri, HttpGetRequest delegate, HttpResponseListener listener) {
+            super(uri, null);
+            this.uri = uri;
+            this.delegate = delegate;
+            this.listener = listener;
+        }
+
+        @Override
+        public HttpGetRequest conditionalOn(String etag, String lastModified) {
+            delegate.conditionalOn(etag, lastModified);
+            return this;
+        }
+
+        @Override
+        public HttpResponse execute() throws IOException, URISyntaxException {
+            long start = System.nanoTime();
+            try {
+                HttpResponse response = delegate.execute();
+                listener.onResponse(uri, response, elapsedMillis(start));
+                return response;
+            } catch (IOException | URISyntaxException | RuntimeException e) {
+                listener.onFailure(uri, e);
+                throw e;
+            }
+        }
+
+        @Override
+        public CompletableFuture<HttpResponse> executeAsync() {
+            long start = System.nanoTime();
+            return delegate.executeAsync().whenComplete((response, throwable) -> {
+                if (throwable == null) {
+                    listener.onResponse(uri, response, elapsedMillis(start));
+                } else {
+                    listener.onFailure(uri, throwable);
+                }
+            });
+        }
+
+        private static long elapsedMillis(long start) {
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import com.google.common.io.CountingInputStream;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import static com.myseotoolbox.crawler.httpclient.HttpGetRequest.USER_AGENT;
+import static com.myseotoolbox.crawler.utils.IsRedirect.isRedirect;
+
+/**
+ * GET request sent on a pooled connection. The connection goes back to the pool once the body has been read and closed.
+ * Bodies nobody is going to read (errors and redirects) are drained straight away.
+ */
+public class PooledHttpGetRequest extends HttpGetRequest {
+
+    private final URI uri;
+    private final CloseableHttpClient client;
+
+    public PooledHttpGetRequest(URI uri, CloseableHttpClient client) {
+        super(uri, null);
+        this.uri = uri;
+        this.client = client;
+    }
+
+    @Override
+    public HttpResponse execute() throws IOException, URISyntaxException {
+        HttpGet get = new HttpGet(new URI(uri.toASCIIString()));
+        get.setHeader("User-Agent", USER_AGENT);
+        get.setHeader("Accept-Encoding", ContentEncoding.ACCEPT_ENCODING);
+        if (getIfNoneMatch() != null) get.setHeader("If-None-Match", getIfNoneMatch());
+        if (getIfModifiedSince() != null) get.setHeader("If-Modified-Since", getIfModifiedSince());
+
+        CloseableHttpResponse response = client.execute(get);
+        try {
+            int status = response.getStatusLine().getStatusCode();
+            URI dstURI = uri;
+
+            if (isRedirect(status)) {
+                dstURI = resolveLocation(headerValue(response, "location"), dstURI);
+            }
+
+            String contentType = headerValue(response, "content-type");
+            HttpEntity entity = response.getEntity();
+
+            if (status >= 400 || isRedirect(status) || entity == null) {
+                release(response);
+                return new HttpResponse(status, dstURI, contentType, null, headerValue(response, "retry-after"));
+            }
+
+            //decoded outside the releasing stream: what's left of the body is drained compressed
+            CountingInputStream received = new CountingInputStream(entity.getContent());
+            InputStream body = ContentEncoding.decode(new ReleasingInputStream(received, response), headerValue(response, "content-encoding"));
+            HttpResponse httpResponse = new HttpResponse(status, dstURI, contentType, body, null,
+                    headerValue(response, "etag"), headerValue(response, "last-modified"));
+            httpResponse.setBodyBytesReceived(received::getCount);
+            return httpResponse;
+        } catch (IOException | RuntimeException e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    private static void release(CloseableHttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity != null) ResponseStreams.drain(entity.getContent(), ResponseStreams.DRAIN_LIMIT);
+        //no-op if the body was consumed (and the connection already released to the pool), otherwise the connection is discarded
+        response.close();
+    }
+
+    private static String headerValue(CloseableHttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    private static class ReleasingInputStream extends FilterInputStream {
+        private final CloseableHttpResponse response;
+
+        ReleasingInputStream(InputStream in, CloseableHttpResponse response) {
+            super(in);
+            this.response = response;
+        }
+
+        @Override
+        public void close() throws IOException {
+            ResponseStreams.drain(in, ResponseStreams.DRAIN_LIMIT);
+            response.close();
+        }
+    }
+}
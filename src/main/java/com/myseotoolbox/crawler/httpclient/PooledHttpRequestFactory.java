@@ -0,0 +1,122 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import lombok.extern.log4j.Log4j2;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.myseotoolbox.crawler.httpclient.HttpGetRequest.DEFAULT_CONNECTION_TIMEOUT;
+
+/**
+ * Keeps the connections alive between requests, so a crawl pays for the TCP (and TLS) handshake once per connection instead of once per page.
+ * <p>
+ * Connections to the same host are limited to maxConnectionsPerHost: it should match the concurrent connections of the crawl job.
+ * Connections idle for longer than idleTimeout are closed by a background thread until the factory is closed.
+ * <p>
+ * Certificates and host names are not verified, same as {@link NoSSLVerificationConnectionFactory}.
+ */
+@Log4j2
+public class PooledHttpRequestFactory extends HttpRequestFactory implements Closeable {
+
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30000;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient client;
+    private final AtomicLong requests = new AtomicLong(0);
+    private final AtomicLong connectionsOpened = new AtomicLong(0);
+    private final AtomicLong tlsHandshakes = new AtomicLong(0);
+
+    public PooledHttpRequestFactory(int maxConnectionsPerHost) {
+        this(maxConnectionsPerHost, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    public PooledHttpRequestFactory(int maxConnectionsPerHost, long idleTimeoutMillis) {
+        super(null);
+        this.connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", new SSLConnectionSocketFactory(NoSSLVerificationConnectionFactory.createTrustAllSslContext(), NoopHostnameVerifier.INSTANCE))
+                        .build(),
+                new CountingConnectionFactory());
+        this.connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        this.connectionManager.setMaxTotal(Integer.MAX_VALUE);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(DEFAULT_CONNECTION_TIMEOUT)
+                .setSocketTimeout(DEFAULT_CONNECTION_TIMEOUT)
+                .setConnectionRequestTimeout(DEFAULT_CONNECTION_TIMEOUT)
+                .build();
+
+        //Redirects, cookies and compression are handled (or not) the same way as HttpURLConnection does in HttpGetRequest. Bodies are decoded by ContentEncoding
+        this.client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .disableRedirectHandling()
+                .disableCookieManagement()
+                .disableContentCompression()
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Override
+    public HttpGetRequest buildGetFor(URI uri) {
+        requests.incrementAndGet();
+        return new PooledHttpGetRequest(uri, client);
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    public long getTlsHandshakes() {
+        return tlsHandshakes.get();
+    }
+
+    /**
+     * @return the fraction of requests sent on a connection already open
+     */
+    public double getReuseRatio() {
+        long requests = this.requests.get();
+        if (requests == 0) return 0;
+        return Math.max(0, requests - connectionsOpened.get()) / (double) requests;
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.info("Closing connection pool. Requests: {} Connections opened: {} TLS handshakes: {} Reuse ratio: {}",
+                getRequests(), getConnectionsOpened(), getTlsHandshakes(), String.format("%.2f", getReuseRatio()));
+        client.close();
+    }
+
+    private class CountingConnectionFactory implements HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> {
+        @Override
+        public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+            connectionsOpened.incrementAndGet();
+            if (route.isSecure()) tlsHandshakes.incrementAndGet();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        }
+    }
+}
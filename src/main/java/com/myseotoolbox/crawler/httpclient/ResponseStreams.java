@@ -0,0 +1,48 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A connection can only be reused once its response body has been read to the end.
+ */
+final class ResponseStreams {
+
+    /**
+     * Bodies we are not interested in (errors, redirects) are read and discarded up to this size.
+     * Bigger ones are cheaper to drop together with their connection.
+     */
+    static final int DRAIN_LIMIT = 64 * 1024;
+
+    private ResponseStreams() {
+    }
+
+    /**
+     * @return true if the end of the stream was reached within the limit
+     */
+    static boolean drain(InputStream in, int limit) {
+        if (in == null) return true;
+        byte[] buffer = new byte[8192];
+        int total = 0;
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > limit) return false;
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static void drainAndClose(InputStream in) {
+        if (in == null) return;
+        drain(in, DRAIN_LIMIT);
+        try {
+            in.close();
+        } catch (IOException ignore) {
+            //connection won't be reused
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import com.myseotoolbox.crawler.model.PageSnapshot;
+import com.myseotoolbox.crawler.model.RedirectChainElement;
+import com.myseotoolbox.crawler.pagelinks.PageLink;
+import org.jsoup.parser.Parser;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_16BE;
+import static java.nio.charset.StandardCharsets.UTF_16LE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Extracts the {@link PageSnapshot} fields in a single scan of the html source, without building a DOM.
+ * <p>
+ * Follows the tokenizer rules of the html spec (and jsoup) for what matters to us: comments, raw text elements (script, style...),
+ * quoted and unquoted attributes and character references. Only the tags we extract allocate anything:
+ * the content of the others, scripts and styles included, is skipped while reading.
+ * Unclosed headings end where the DOM would close them, at the end of one of their parents.
+ * <p>
+ * Unlike the DOM we report one link per {@code <a href>} of the source: jsoup clones unclosed anchors into the following blocks.
+ * <p>
+ * Not thread safe, one instance per page.
+ */
+class StreamingHtmlExtractor {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final String[] RAW_TEXT_TAGS = {"script", "style", "xmp", "iframe", "noembed", "noframes"};
+    private static final String[] RCDATA_TAGS = {"title", "textarea"};
+    private static final String[] HEAD_TAGS = {"html", "head", "title", "meta", "link", "base", "style", "script", "noscript", "template", "basefont", "bgsound", "command"};
+    private static final String[] VOID_TAGS = {"area", "base", "basefont", "bgsound", "br", "col", "command", "embed", "frame", "hr", "img", "input", "keygen", "link", "meta", "param", "source", "track", "wbr"};
+    //only one of each in the DOM, the tags found later are ignored
+    private static final String[] DOCUMENT_TAGS = {"html", "head", "body"};
+    private static final String[] FORMATTING_TAGS = {"a", "b", "big", "code", "em", "font", "i", "nobr", "s", "small", "strike", "strong", "tt", "u"};
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos = 0;
+    private int limit = 0;
+    private int pushedBack = -1;
+    private long consumed = 0;
+    private long markupStart = 0;
+
+    private final StringBuilder tagName = new StringBuilder();
+    private final StringBuilder attributeName = new StringBuilder();
+    private final StringBuilder attributeValue = new StringBuilder();
+
+    //open elements, only to know when an unclosed heading gets closed by the end of one of its parents
+    private final List<String> openElements = new ArrayList<>();
+    //open h1 and h2, each recording the raw source of its content
+    private final List<HeadingRecorder> headings = new ArrayList<>(2);
+
+    private boolean inBody = false;
+    private String headTitle;
+    private String firstTitle;
+    private final List<String> h1s = new ArrayList<>();
+    private final List<String> h2s = new ArrayList<>();
+    private final List<String> metaDescriptions = new ArrayList<>();
+    private final List<String> canonicals = new ArrayList<>();
+    private final List<PageLink> links = new ArrayList<>();
+
+    private StreamingHtmlExtractor(Reader reader) {
+        this.reader = reader;
+    }
+
+    static PageSnapshot extract(String uri, List<RedirectChainElement> elements, InputStream is) throws IOException {
+        StreamingHtmlExtractor extractor = new StreamingHtmlExtractor(is != null ? toReader(is) : Reader.nullReader());
+        extractor.scan();
+        return extractor.buildSnapshot(uri, elements);
+    }
+
+    private PageSnapshot buildSnapshot(String uri, List<RedirectChainElement> elements) {
+        PageSnapshot pageSnapshot = new PageSnapshot(removeFragment(uri), getTitle(), h1s, h2s, metaDescriptions, canonicals);
+        pageSnapshot.setLinks(links);
+        pageSnapshot.setRedirectChainElements(elements);
+        return pageSnapshot;
+    }
+
+    /**
+     * Same as the DOM: the title in head first, then the first one in the page.
+     */
+    private String getTitle() {
+        String title = headTitle != null ? normaliseWhitespace(headTitle) : "";
+        if (!title.isBlank()) return title;
+        return firstTitle != null ? escapeHtml(firstTitle) : "";
+    }
+
+    private void scan() throws IOException {
+        int c;
+        while ((c = next()) != -1) {
+            if (c == '<') {
+                markupStart = consumed - 1;
+                readMarkup();
+            } else if (!inBody && !isWhitespace(c)) {
+                inBody = true;
+            }
+        }
+        markupStart = consumed;
+        closeElements(0);
+    }
+
+    private void readMarkup() throws IOException {
+        int c = next();
+        if (c == '!') {
+            readDeclarationOrComment();
+        } else if (c == '?') {
+            skipUntil('>');
+        } else if (c == '/') {
+            readEndTag();
+        } else if (isAsciiLetter(c)) {
+            readStartTag(c);
+        } else {
+            //a lone '<' is text
+            pushBack(c);
+            inBody = true;
+        }
+    }
+
+    private void readDeclarationOrComment() throws IOException {
+        int c1 = next();
+        if (c1 == '-') {
+            int c2 = next();
+            if (c2 == '-') {
+                skipComment();
+                return;
+            }
+            pushBack(c2);
+        } else {
+            pushBack(c1);
+        }
+        skipUntil('>');
+    }
+
+    private void skipComment() throws IOException {
+        //"<!-->" and "<!--->" are complete comments
+        int dashes = 2;
+        int c;
+        while ((c = next()) != -1) {
+            if (c == '>' && dashes >= 2) return;
+            if (c == '-') {
+                dashes++;
+            } else {
+                dashes = 0;
+            }
+        }
+    }
+
+    private void readEndTag() throws IOException {
+        int c = next();
+        if (!isAsciiLetter(c)) {
+            //"</>" is ignored, anything else is a bogus comment
+            if (c != '>') skipUntil('>');
+            return;
+        }
+        c = readTagName(c);
+        skipAttributes(c);
+
+        //these open the body when found in head. The content after </body> still goes in the current element
+        if (equals(tagName, "body") || equals(tagName, "html") || equals(tagName, "br")) {
+            inBody = true;
+            return;
+        }
+
+        if (isHeading(tagName)) {
+            //any heading end tag closes the innermost heading
+            int depth = lastHeadingIndex();
+            if (depth >= 0) closeElements(depth);
+            return;
+        }
+
+        int depth = lastIndexOf(tagName);
+        if (depth < 0) return;
+        //formatting elements are re-opened by the DOM (adoption agency), they don't close the heading
+        if (isOneOf(tagName, FORMATTING_TAGS) && lastHeadingIndex() > depth) return;
+        closeElements(depth);
+    }
+
+    private void readStartTag(int first) throws IOException {
+        int c = readTagName(first);
+
+        if (equals(tagName, "a")) {
+            Map<String, String> attributes = readAttributes(c, "href", "rel");
+            if (attributes.containsKey("href")) {
+                Map<String, String> linkAttributes = new HashMap<>(2);
+                if (attributes.containsKey("rel")) linkAttributes.put("rel", attributes.get("rel"));
+                links.add(new PageLink(attributes.get("href"), linkAttributes));
+            }
+        } else if (equals(tagName, "meta")) {
+            Map<String, String> attributes = readAttributes(c, "name", "content");
+            if ("description".equalsIgnoreCase(attributes.getOrDefault("name", "").trim())) {
+                metaDescriptions.add(attributes.getOrDefault("content", ""));
+            }
+        } else if (equals(tagName, "link")) {
+            Map<String, String> attributes = readAttributes(c, "rel", "href");
+            if ("canonical".equalsIgnoreCase(attributes.getOrDefault("rel", "").trim())) {
+                canonicals.add(attributes.getOrDefault("href", ""));
+            }
+        } else {
+            skipAttributes(c);
+        }
+
+        if (isHeading(tagName)) {
+            //a heading closes the open paragraph, then the heading it's directly in
+            int paragraph = lastIndexOf("p");
+            if (paragraph >= 0) closeElements(paragraph);
+            if (!openElements.isEmpty() && isHeading(openElements.get(openElements.size() - 1))) {
+                closeElements(openElements.size() - 1);
+            }
+        }
+
+        //noscript in head is raw text, as jsoup parses it
+        boolean rawText = isOneOf(tagName, RCDATA_TAGS) || isOneOf(tagName, RAW_TEXT_TAGS) || (!inBody && equals(tagName, "noscript"));
+
+        if (!inBody && !isOneOf(tagName, HEAD_TAGS)) {
+            inBody = true;
+        }
+
+        if (!rawText && !isOneOf(tagName, VOID_TAGS) && !isOneOf(tagName, DOCUMENT_TAGS)) {
+            openElements.add(tagName.toString());
+            if (equals(tagName, "h1")) startHeading(h1s);
+            else if (equals(tagName, "h2")) startHeading(h2s);
+        }
+
+        if (equals(tagName, "title")) {
+            readTitle();
+        } else if (rawText) {
+            skipRawText(tagName.toString());
+        }
+    }
+
+    private void readTitle() throws IOException {
+        StringBuilder title = new StringBuilder();
+        readRawText("title", title);
+        String decoded = title.indexOf("&") >= 0 ? Parser.unescapeEntities(title.toString(), false) : title.toString();
+        if (firstTitle == null) firstTitle = decoded;
+        if (headTitle == null && !inBody) headTitle = decoded;
+    }
+
+    private void startHeading(List<String> target) {
+        //reserve the slot: nested headings are listed in the order they start, as in the DOM
+        target.add(null);
+        headings.add(new HeadingRecorder(target, target.size() - 1, openElements.size() - 1));
+    }
+
+    /**
+     * Closes the open elements from depth (included). The headings closed don't include the markup being read.
+     */
+    private void closeElements(int depth) {
+        for (int i = headings.size() - 1; i >= 0 && headings.get(i).depth >= depth; i--) {
+            headings.remove(i).end((int) (consumed - markupStart));
+        }
+        openElements.subList(depth, openElements.size()).clear();
+    }
+
+    private int lastIndexOf(CharSequence name) {
+        for (int i = openElements.size() - 1; i >= 0; i--) {
+            if (equals(openElements.get(i), name)) return i;
+        }
+        return -1;
+    }
+
+    private int lastHeadingIndex() {
+        for (int i = openElements.size() - 1; i >= 0; i--) {
+            if (isHeading(openElements.get(i))) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the first char after the name
+     */
+    private int readTagName(int first) throws IOException {
+        tagName.setLength(0);
+        int c = first;
+        while (c != -1 && !isWhitespace(c) && c != '/' && c != '>') {
+            tagName.append(toLowerCase(c));
+            c = next();
+        }
+        return c;
+    }
+
+    private void skipAttributes(int c) throws IOException {
+        readAttributes(c, (String[]) null);
+    }
+
+    /**
+     * Reads the attributes up to the end of the tag.
+     *
+     * @param c    the first char after the tag name
+     * @param keep names of the attributes to return (the first occurrence wins, as in the DOM)
+     */
+    private Map<String, String> readAttributes(int c, String... keep) throws IOException {
+        Map<String, String> attributes = keep != null ? new HashMap<>(4) : null;
+        while (true) {
+            while (isWhitespace(c) || c == '/') c = next();
+            if (c == '>' || c == -1) return attributes != null ? attributes : Collections.emptyMap();
+
+            attributeName.setLength(0);
+            do {
+                attributeName.append(toLowerCase(c));
+                c = next();
+            } while (c != -1 && !isWhitespace(c) && c != '/' && c != '>' && c != '=');
+
+            while (isWhitespace(c)) c = next();
+
+            boolean wanted = attributes != null && isOneOf(attributeName, keep) && !attributes.containsKey(attributeName.toString());
+            attributeValue.setLength(0);
+            if (c == '=') {
+                c = next();
+                while (isWhitespace(c)) c = next();
+                if (c == '"' || c == '\'') {
+                    int quote = c;
+                    while ((c = next()) != -1 && c != quote) {
+                        if (wanted) attributeValue.append((char) c);
+                    }
+                    c = next();
+                } else {
+                    while (c != -1 && !isWhitespace(c) && c != '>') {
+                        if (wanted) attributeValue.append((char) c);
+                        c = next();
+                    }
+                }
+            }
+
+            if (wanted) {
+                attributes.put(attributeName.toString(), decodeAttribute(attributeValue));
+            }
+        }
+    }
+
+    private static String decodeAttribute(StringBuilder value) {
+        String s = value.toString();
+        return s.indexOf('&') >= 0 ? Parser.unescapeEntities(s, true) : s;
+    }
+
+    private void skipRawText(String name) throws IOException {
+        readRawText(name, null);
+    }
+
+    /**
+     * Reads up to the closing tag of a raw text element, its content is never markup.
+     */
+    private void readRawText(String name, StringBuilder content) throws IOException {
+        int c;
+        while ((c = next()) != -1) {
+            if (c != '<') {
+                if (content != null) content.append((char) c);
+                continue;
+            }
+            int slash = next();
+            if (slash != '/') {
+                if (content != null) content.append('<');
+                pushBack(slash);
+                continue;
+            }
+            int matched = 0;
+            while (matched < name.length()) {
+                c = next();
+                if (c == -1 || toLowerCase(c) != name.charAt(matched)) break;
+                matched++;
+            }
+            if (matched == name.length()) {
+                c = next();
+                if (isWhitespace(c) || c == '/' || c == '>') {
+                    skipAttributes(c);
+                    return;
+                }
+            }
+            if (content != null) content.append("</").append(name, 0, matched);
+            pushBack(c);
+        }
+    }
+
+    private void skipUntil(char end) throws IOException {
+        int c;
+        while ((c = next()) != -1 && c != end) {
+            //skip
+        }
+    }
+
+    private int next() throws IOException {
+        int c;
+        if (pushedBack != -1) {
+            c = pushedBack;
+            pushedBack = -1;
+        } else {
+            if (pos == limit) {
+                limit = reader.read(buffer, 0, BUFFER_SIZE);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            c = buffer[pos++];
+        }
+        consumed++;
+        for (int i = 0; i < headings.size(); i++) {
+            headings.get(i).content.append((char) c);
+        }
+        return c;
+    }
+
+    private void pushBack(int c) {
+        if (c == -1) return;
+        pushedBack = c;
+        consumed--;
+        for (int i = 0; i < headings.size(); i++) {
+            StringBuilder content = headings.get(i).content;
+            content.setLength(content.length() - 1);
+        }
+    }
+
+    private static Reader toReader(InputStream is) throws IOException {
+        //Same as jsoup: the byte order mark wins over the declared charset
+        BufferedInputStream in = new BufferedInputStream(is);
+        in.mark(3);
+        int b0 = in.read(), b1 = in.read(), b2 = in.read();
+        Charset charset = UTF_8;
+        int bomLength = 0;
+        if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+            bomLength = 3;
+        } else if (b0 == 0xFE && b1 == 0xFF) {
+            charset = UTF_16BE;
+            bomLength = 2;
+        } else if (b0 == 0xFF && b1 == 0xFE) {
+            charset = UTF_16LE;
+            bomLength = 2;
+        }
+        in.reset();
+        in.skip(bomLength);
+        return new InputStreamReader(in, charset);
+    }
+
+    private static boolean isHeading(CharSequence name) {
+        return name.length() == 2 && name.charAt(0) == 'h' && name.charAt(1) >= '1' && name.charAt(1) <= '6';
+    }
+
+    private static boolean isOneOf(CharSequence name, String[] names) {
+        for (String n : names) {
+            if (equals(name, n)) return true;
+        }
+        return false;
+    }
+
+    private static boolean equals(CharSequence a, CharSequence b) {
+        if (a.length() != b.length()) return false;
+        for (int i = 0; i < b.length(); i++) {
+            if (a.charAt(i) != b.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    private static boolean isAsciiLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static char toLowerCase(int c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : (char) c;
+    }
+
+    private static String normaliseWhitespace(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean lastWasWhite = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (isWhitespace(c) || c == '\u00a0') {
+                if (!lastWasWhite) sb.append(' ');
+                lastWasWhite = true;
+            } else {
+                sb.append(c);
+                lastWasWhite = false;
+            }
+        }
+        return sb.toString().trim();
+    }
+
+    //as the inner html of the element would be
+    private static String escapeHtml(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String removeFragment(String uri) {
+        return uri.split("#")[0];
+    }
+
+    private static class HeadingRecorder {
+        private final StringBuilder content = new StringBuilder();
+        private final List<String> target;
+        private final int index;
+        private final int depth;
+
+        HeadingRecorder(List<String> target, int index, int depth) {
+            this.target = target;
+            this.index = index;
+            this.depth = depth;
+        }
+
+        /**
+         * @param closingMarkup length of the markup that closed the heading, recorded but not part of the content
+         */
+        void end(int closingMarkup) {
+            content.setLength(Math.max(0, content.length() - closingMarkup));
+            target.set(index, content.toString());
+        }
+    }
+}
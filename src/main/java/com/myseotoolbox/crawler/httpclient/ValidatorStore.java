@@ -0,0 +1,17 @@
+package com.myseotoolbox.crawler.httpclient;
+
+/**
+ * Pages of the previous crawls with their ETag and Last-Modified, keyed by the url that returned them (the end of the redirect chain).
+ * <p>
+ * The {@link WebPageReader} sends conditional requests for the urls in the store and reuses the snapshot when the server answers 304 Not Modified,
+ * without downloading or parsing the page. Implementations must be thread safe.
+ */
+public interface ValidatorStore {
+
+    /**
+     * @return null if the url was never crawled with validators
+     */
+    CachedPage get(String url);
+
+    void put(String url, CachedPage page);
+}
@@ -1,14 +1,20 @@
 package com.myseotoolbox.crawler.httpclient;
 
 import com.myseotoolbox.crawler.CalendarService;
+import com.myseotoolbox.crawler.metrics.CrawlMetrics;
 import com.myseotoolbox.crawler.model.*;
 import com.myseotoolbox.crawler.spider.UriFilter;
 import lombok.extern.log4j.Log4j2;
 import org.jsoup.UnsupportedMimeTypeException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Pattern;
 
 import static com.myseotoolbox.crawler.utils.IsRedirect.isRedirect;
@@ -16,16 +22,40 @@ import static com.myseotoolbox.crawler.utils.IsRedirect.isRedirect;
 @Log4j2
 public class WebPageReader {
 
+    public static final int DEFAULT_MAX_BODY_SIZE = 10 * 1024 * 1024;
+    /**
+     * Crawl status of the snapshots extracted from the first part of the page only
+     */
+    public static final String TRUNCATED_CRAWL_STATUS = "Truncated";
+
     private static final Pattern allowedContentTypeRegex = Pattern.compile("(application|text)/\\w*\\+?xml.*");
 
     private final HtmlParser parser = new HtmlParser();
     private final CalendarService calendarService = new CalendarService();
     private final UriFilter uriFilter;
     private final HttpRequestFactory httpRequestFactory;
+    private final int maxBodySize;
+    private final long maxReadTimeMillis;
+    private final CrawlMetrics metrics;
+    private final ValidatorStore validatorStore;
 
     public WebPageReader(UriFilter uriFilter, HttpRequestFactory httpRequestFactory) {
+        this(uriFilter, httpRequestFactory, DEFAULT_MAX_BODY_SIZE, 0, new CrawlMetrics(), null);
+    }
+
+    /**
+     * @param maxBodySize       bytes of the page we parse, the rest is discarded
+     * @param maxReadTimeMillis time allowed to read the page, 0 for no limit
+     * @param metrics           where the bytes read and the parse time of the pages are recorded
+     * @param validatorStore    pages to request conditionally (and where the pages crawled are recorded), null to always send full requests
+     */
+    public WebPageReader(UriFilter uriFilter, HttpRequestFactory httpRequestFactory, int maxBodySize, long maxReadTimeMillis, CrawlMetrics metrics, ValidatorStore validatorStore) {
         this.uriFilter = uriFilter;
         this.httpRequestFactory = httpRequestFactory;
+        this.maxBodySize = maxBodySize;
+        this.maxReadTimeMillis = maxReadTimeMillis;
+        this.metrics = metrics;
+        this.validatorStore = validatorStore;
     }
 
     public CrawlResult snapshotPage(URI uri) throws SnapshotException {
@@ -38,50 +68,200 @@ public class WebPageReader {
             URI baseUri = buildUri(startURI);
 
             if (scanRedirectChain(chain, baseUri)) {
-                PageSnapshot snapshot = parser.parse(startURI, chain.getElements(), chain.getInputStream());
-                snapshot.setCreateDate(calendarService.now());
-                return CrawlResult.forSnapshot(snapshot);
+                return CrawlResult.forSnapshot(parse(startURI, chain));
             }
 
             return CrawlResult.forBlockedChain( chain);
 
 
         } catch (Exception e) {
-            PageSnapshot pageSnapshot = new PageSnapshot();
-            pageSnapshot.setUri(startURI);
-            pageSnapshot.setCreateDate(calendarService.now());
-            pageSnapshot.setRedirectChainElements(chain.getElements());
-            pageSnapshot.setCrawlStatus("Unable to crawl: " + e);
-            throw new SnapshotException(e, pageSnapshot);
+            throw new SnapshotException(e, buildFailedSnapshot(startURI, chain, e));
+        }
+
+    }
+
+    /**
+     * Non blocking version of {@link #snapshotPage(URI)} when the {@link HttpRequestFactory} is non blocking.
+     * The returned future fails with a {@link SnapshotException} carrying the partial snapshot.
+     */
+    public CompletableFuture<CrawlResult> snapshotPageAsync(URI uri) {
+
+        String startURI = uri.toString();
+        RedirectChain chain = new RedirectChain();
+
+        return CompletableFuture.completedFuture(startURI)
+                .thenCompose(s -> {
+                    try {
+                        return scanRedirectChainAsync(chain, buildUri(s));
+                    } catch (URISyntaxException e) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                })
+                .thenApply(completed -> {
+                    try {
+                        return completed ? CrawlResult.forSnapshot(parse(startURI, chain)) : CrawlResult.forBlockedChain(chain);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .handle((result, throwable) -> {
+                    if (throwable == null) return result;
+                    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                    if (!(cause instanceof Exception)) throw new CompletionException(cause);
+                    throw new CompletionException(new SnapshotException((Exception) cause, buildFailedSnapshot(startURI, chain, cause)));
+                });
+    }
+
+    private PageSnapshot parse(String startURI, RedirectChain chain) throws IOException {
+        if (chain.getNotModifiedSnapshot() != null) {
+            return reuseNotModified(startURI, chain);
+        }
+
+        //Closing the stream gives the connection back for reuse
+        try (LimitedInputStream inputStream = limit(chain.getInputStream())) {
+            long start = System.nanoTime();
+            PageSnapshot snapshot = parser.parse(startURI, chain.getElements(), inputStream);
+            long decodedBytes = inputStream != null ? inputStream.getCount() : 0;
+            long receivedBytes = chain.getBodyBytesReceived() != null ? chain.getBodyBytesReceived().getAsLong() : decodedBytes;
+            metrics.pageRead(receivedBytes, decodedBytes, (System.nanoTime() - start) / 1000);
+            snapshot.setCreateDate(calendarService.now());
+            if (inputStream != null && (inputStream.isTruncated() || chain.isBodyTruncated())) {
+                log.warn("Page {} truncated after {} bytes", startURI, inputStream.getCount());
+                snapshot.setCrawlStatus(getTruncatedStatus(inputStream));
+            }
+            recordValidators(chain, snapshot);
+            return snapshot;
         }
+    }
 
+    /**
+     * Copy of the snapshot of the previous crawl, with the redirect chain of this crawl
+     */
+    private PageSnapshot reuseNotModified(String startURI, RedirectChain chain) {
+        PageSnapshot previous = chain.getNotModifiedSnapshot();
+        PageSnapshot snapshot = new PageSnapshot(startURI, previous.getTitle(), previous.getH1s(), previous.getH2s(), previous.getMetaDescriptions(), previous.getCanonicals());
+        snapshot.setLinks(previous.getLinks());
+        snapshot.setCrawlStatus(previous.getCrawlStatus());
+        snapshot.setRedirectChainElements(chain.getElements());
+        snapshot.setCreateDate(calendarService.now());
+        metrics.pageNotModified();
+        return snapshot;
+    }
+
+    private void recordValidators(RedirectChain chain, PageSnapshot snapshot) {
+        if (validatorStore == null || chain.getEtag() == null && chain.getLastModified() == null) return;
+        List<RedirectChainElement> elements = chain.getElements();
+        validatorStore.put(elements.get(elements.size() - 1).getSourceURI(), new CachedPage(chain.getEtag(), chain.getLastModified(), snapshot));
+    }
+
+    private CachedPage getCachedPage(URI uri) {
+        return validatorStore != null ? validatorStore.get(uri.toString()) : null;
+    }
+
+    private HttpGetRequest buildGetFor(URI uri, CachedPage cachedPage) {
+        HttpGetRequest request = httpRequestFactory.buildGetFor(uri);
+        if (cachedPage != null) request.conditionalOn(cachedPage.getEtag(), cachedPage.getLastModified());
+        return request;
+    }
+
+    private LimitedInputStream limit(InputStream inputStream) {
+        return inputStream != null ? new LimitedInputStream(inputStream, maxBodySize, maxReadTimeMillis) : null;
+    }
+
+    private String getTruncatedStatus(LimitedInputStream inputStream) {
+        if (inputStream.isTimedOut()) return TRUNCATED_CRAWL_STATUS + ": not read within " + maxReadTimeMillis + "ms";
+        if (inputStream.isTruncated()) return TRUNCATED_CRAWL_STATUS + ": bigger than " + maxBodySize + " bytes";
+        return TRUNCATED_CRAWL_STATUS + ": bigger than the request max body size";
+    }
+
+    private PageSnapshot buildFailedSnapshot(String startURI, RedirectChain chain, Throwable e) {
+        PageSnapshot pageSnapshot = new PageSnapshot();
+        pageSnapshot.setUri(startURI);
+        pageSnapshot.setCreateDate(calendarService.now());
+        pageSnapshot.setRedirectChainElements(chain.getElements());
+        pageSnapshot.setCrawlStatus("Unable to crawl: " + e);
+        return pageSnapshot;
     }
 
     private boolean scanRedirectChain(RedirectChain redirectChain, URI currentURI) throws IOException, URISyntaxException, RedirectLoopException {
 
-        HttpResponse response = httpRequestFactory.buildGetFor(currentURI).execute();
+        CachedPage cachedPage = getCachedPage(currentURI);
+        HttpResponse response = buildGetFor(currentURI, cachedPage).execute();
 
+        if (shouldFollowRedirect(redirectChain, currentURI, response, cachedPage)) {
+            return scanRedirectChain(redirectChain, response.getLocation());
+        }
+        return !isRedirect(response.getHttpStatus());
+    }
+
+    private CompletableFuture<Boolean> scanRedirectChainAsync(RedirectChain redirectChain, URI currentURI) {
+        CachedPage cachedPage = getCachedPage(currentURI);
+        return buildGetFor(currentURI, cachedPage).executeAsync().thenCompose(response -> {
+            try {
+                if (shouldFollowRedirect(redirectChain, currentURI, response, cachedPage)) {
+                    return scanRedirectChainAsync(redirectChain, response.getLocation());
+                }
+                return CompletableFuture.completedFuture(!isRedirect(response.getHttpStatus()));
+            } catch (RedirectLoopException | UnsupportedMimeTypeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+    /**
+     * Add the response to the chain.
+     *
+     * @param cachedPage the page of the previous crawl, if the request was conditional
+     * @return true if the response is a redirect we should follow. False if the chain ended or it was blocked by the filter
+     */
+    private boolean shouldFollowRedirect(RedirectChain redirectChain, URI currentURI, HttpResponse response, CachedPage cachedPage) throws RedirectLoopException, UnsupportedMimeTypeException {
         int httpStatus = response.getHttpStatus();
         URI location = response.getLocation();
 
-        redirectChain.addElement(new RedirectChainElement(currentURI.toString(), httpStatus, location.toString()));
+        if (httpStatus == HttpURLConnection.HTTP_NOT_MODIFIED && cachedPage != null) {
+            ResponseStreams.drainAndClose(response.getInputStream());
+            //Recorded as the previous crawl did, so the chain doesn't look changed
+            redirectChain.addElement(new RedirectChainElement(currentURI.toString(), getFinalStatus(cachedPage.getSnapshot()), currentURI.toString()));
+            redirectChain.setNotModifiedSnapshot(cachedPage.getSnapshot());
+            return false;
+        }
+
+        try {
+            redirectChain.addElement(new RedirectChainElement(currentURI.toString(), httpStatus, location.toString()));
 
-        checkMimeType(response.getContentType(), currentURI);
+            checkMimeType(response.getContentType(), currentURI);
+        } catch (RedirectLoopException | UnsupportedMimeTypeException e) {
+            ResponseStreams.drainAndClose(response.getInputStream());
+            throw e;
+        }
 
         if (isRedirect(httpStatus)) {
-            if (isBlockedChain(currentURI, location)) return false;
-            return scanRedirectChain(redirectChain, location);
+            ResponseStreams.drainAndClose(response.getInputStream());
+            return !isBlockedChain(currentURI, location);
         } else {
             redirectChain.setInputStream(response.getInputStream());
-            return true;
+            redirectChain.setEtag(response.getEtag());
+            redirectChain.setLastModified(response.getLastModified());
+            redirectChain.setBodyTruncated(response.isBodyTruncated());
+            redirectChain.setBodyBytesReceived(response.getBodyBytesReceived());
+            return false;
         }
     }
 
+    private static int getFinalStatus(PageSnapshot snapshot) {
+        List<RedirectChainElement> elements = snapshot.getRedirectChainElements();
+        return elements != null && !elements.isEmpty() ? elements.get(elements.size() - 1).getHttpStatus() : HttpURLConnection.HTTP_OK;
+    }
+
     private void checkMimeType(String contentType, URI url) throws UnsupportedMimeTypeException {
-        if (contentType != null && !contentType.startsWith("text/") && !allowedContentTypeRegex.matcher(contentType).matches())
+        if (!isSupportedContentType(contentType))
             throw new UnsupportedMimeTypeException("Unhandled content type. Must be text/*, application/xml, or application/xhtml+xml", contentType, url.toString());
     }
 
+    static boolean isSupportedContentType(String contentType) {
+        return contentType == null || contentType.startsWith("text/") || allowedContentTypeRegex.matcher(contentType).matches();
+    }
+
     private boolean isBlockedChain(URI currentURI, URI location) {
         return !uriFilter.shouldCrawl(currentURI, location);
     }
@@ -0,0 +1,114 @@
+package com.myseotoolbox.crawler.metrics;
+
+import com.myseotoolbox.crawler.httpclient.HttpResponse;
+import com.myseotoolbox.crawler.httpclient.HttpResponseListener;
+import com.myseotoolbox.crawler.spider.filter.RejectionCause;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.net.URI;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters, histograms and gauges of a crawl. Recording is lock free, so it's cheap enough for the per link and per page hot paths.
+ * <p>
+ * Read them any time with {@link #snapshot()}, or have them exported periodically by the {@link CrawlMetricsReporter}.
+ * Fetch latency and failures are recorded as a {@link HttpResponseListener}, redirects included.
+ */
+@ThreadSafe
+public class CrawlMetrics implements HttpResponseListener {
+
+    /**
+     * Values read from the crawl when the snapshot is taken
+     */
+    public enum Gauge {
+        FRONTIER_SIZE,
+        VISITED_URLS,
+        VISITED_URLS_MEMORY_BYTES,
+        QUEUED_TASKS,
+        ACTIVE_TASKS,
+        COMPLETED_TASKS
+    }
+
+    private final Histogram fetchLatency = new Histogram();
+    private final Histogram parseTime = new Histogram();
+    private final Histogram redirectChainLength = new Histogram();
+    private final LongAdder pagesCrawled = new LongAdder();
+    private final LongAdder pagesNotModified = new LongAdder();
+    private final LongAdder fetchFailures = new LongAdder();
+    private final LongAdder bytesDownloaded = new LongAdder();
+    private final LongAdder bytesDecoded = new LongAdder();
+    //Every cause is there from the start: read only map of thread safe counters
+    private final Map<RejectionCause, LongAdder> rejections = new EnumMap<>(RejectionCause.class);
+    private final Map<Gauge, LongSupplier> gauges = Collections.synchronizedMap(new EnumMap<>(Gauge.class));
+
+    public CrawlMetrics() {
+        for (RejectionCause cause : RejectionCause.values()) {
+            rejections.put(cause, new LongAdder());
+        }
+    }
+
+    @Override
+    public void onResponse(URI uri, HttpResponse response, long latency) {
+        fetchLatency.record(latency);
+    }
+
+    @Override
+    public void onFailure(URI uri, Throwable cause) {
+        fetchFailures.increment();
+    }
+
+    /**
+     * @param redirects number of redirects followed to get to the page
+     */
+    public void pageCrawled(int redirects) {
+        pagesCrawled.increment();
+        redirectChainLength.record(redirects);
+    }
+
+    /**
+     * @param downloadedBytes bytes of the body received, as sent by the server
+     * @param decodedBytes    bytes of the body parsed, after decompression
+     * @param parseMicros     time to parse the body. The body is parsed while it's downloaded, so it includes the transfer time.
+     */
+    public void pageRead(long downloadedBytes, long decodedBytes, long parseMicros) {
+        bytesDownloaded.add(downloadedBytes);
+        bytesDecoded.add(decodedBytes);
+        parseTime.record(parseMicros);
+    }
+
+    /**
+     * The page was not downloaded nor parsed: the server answered 304 to the conditional request
+     */
+    public void pageNotModified() {
+        pagesNotModified.increment();
+    }
+
+    public void linkRejected(RejectionCause cause) {
+        rejections.get(cause).increment();
+    }
+
+    /**
+     * Read value when taking a snapshot. It's called by the reporter thread, so it has to be thread safe. Replaces the previous supplier of the gauge.
+     */
+    public void gauge(Gauge gauge, LongSupplier value) {
+        gauges.put(gauge, value);
+    }
+
+    public CrawlMetricsSnapshot snapshot() {
+        Map<RejectionCause, Long> rejections = new EnumMap<>(RejectionCause.class);
+        this.rejections.forEach((cause, count) -> rejections.put(cause, count.sum()));
+
+        Map<Gauge, Long> gauges = new EnumMap<>(Gauge.class);
+        synchronized (this.gauges) {
+            this.gauges.forEach((gauge, value) -> gauges.put(gauge, value.getAsLong()));
+        }
+
+        return new CrawlMetricsSnapshot(pagesCrawled.sum(), pagesNotModified.sum(), fetchFailures.sum(), bytesDownloaded.sum(), bytesDecoded.sum(),
+                fetchLatency.snapshot(), parseTime.snapshot(), redirectChainLength.snapshot(),
+                Collections.unmodifiableMap(rejections), Collections.unmodifiableMap(gauges));
+    }
+}
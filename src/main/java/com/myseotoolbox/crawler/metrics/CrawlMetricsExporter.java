@@ -0,0 +1,19 @@
+package com.myseotoolbox.crawler.metrics;
+
+/**
+ * Receives the metrics of the crawls periodically from the {@link CrawlMetricsReporter}.
+ * This is where to bridge a metrics library (e.g. register the snapshot values as Micrometer gauges) or keep the latest snapshots.
+ * <p>
+ * Called on the single reporter thread shared by all the crawls: implementations should be quick.
+ */
+public interface CrawlMetricsExporter {
+
+    void export(String crawlName, CrawlMetricsSnapshot snapshot);
+
+    /**
+     * Last export of the crawl, once it's ended
+     */
+    default void crawlEnded(String crawlName, CrawlMetricsSnapshot snapshot) {
+        export(crawlName, snapshot);
+    }
+}
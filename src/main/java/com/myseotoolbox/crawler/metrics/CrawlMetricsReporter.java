@@ -0,0 +1,92 @@
+package com.myseotoolbox.crawler.metrics;
+
+import lombok.extern.log4j.Log4j2;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the metrics of every running crawl from a single scheduler thread, instead of a monitor thread per crawl.
+ */
+@Log4j2
+@ThreadSafe
+public class CrawlMetricsReporter {
+
+    private static final long FIRST_EXPORT_DELAY_MILLIS = 1000;
+    private static final CrawlMetricsReporter SHARED = new CrawlMetricsReporter(Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "crawl-metrics-reporter");
+        thread.setDaemon(true);
+        return thread;
+    }));
+
+    private final ScheduledExecutorService scheduler;
+
+    CrawlMetricsReporter(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public static CrawlMetricsReporter shared() {
+        return SHARED;
+    }
+
+    /**
+     * Export the metrics shortly after the start and then every interval, until the returned reporting is stopped.
+     * The reporting also stops if the crawl is abandoned and its metrics garbage collected.
+     */
+    public Reporting start(String crawlName, CrawlMetrics metrics, CrawlMetricsExporter exporter, Duration interval) {
+        Reporting reporting = new Reporting(crawlName, metrics, exporter);
+        long intervalMillis = Math.max(interval.toMillis(), 1);
+        reporting.future = scheduler.scheduleAtFixedRate(reporting::export, Math.min(FIRST_EXPORT_DELAY_MILLIS, intervalMillis), intervalMillis, TimeUnit.MILLISECONDS);
+        return reporting;
+    }
+
+    public class Reporting {
+        private final String crawlName;
+        //Only the crawl keeps its metrics alive, not the scheduled export
+        private final WeakReference<CrawlMetrics> metrics;
+        private final CrawlMetricsExporter exporter;
+        private volatile ScheduledFuture<?> future;
+
+        private Reporting(String crawlName, CrawlMetrics metrics, CrawlMetricsExporter exporter) {
+            this.crawlName = crawlName;
+            this.metrics = new WeakReference<>(metrics);
+            this.exporter = exporter;
+        }
+
+        /**
+         * Stop the periodic export and export the final metrics (asynchronously, on the reporter thread)
+         */
+        public void stop() {
+            future.cancel(false);
+            CrawlMetrics current = metrics.get();
+            if (current == null) return;
+            scheduler.execute(() -> {
+                try {
+                    exporter.crawlEnded(crawlName, current.snapshot());
+                } catch (RuntimeException e) {
+                    log.warn("Unable to export final metrics of {}. Exception: {}", crawlName, e.toString());
+                }
+            });
+        }
+
+        private void export() {
+            CrawlMetrics current = metrics.get();
+            if (current == null) {
+                log.info("Crawl {} is gone. Terminating metrics reporting", crawlName);
+                future.cancel(false);
+                return;
+            }
+            try {
+                exporter.export(crawlName, current.snapshot());
+            } catch (RuntimeException e) {
+                //An exception would cancel the periodic export
+                log.warn("Unable to export metrics of {}. Exception: {}", crawlName, e.toString());
+            }
+        }
+    }
+}
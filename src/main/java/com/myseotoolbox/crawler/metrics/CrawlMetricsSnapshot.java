@@ -0,0 +1,43 @@
+package com.myseotoolbox.crawler.metrics;
+
+import com.myseotoolbox.crawler.spider.filter.RejectionCause;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class CrawlMetricsSnapshot {
+    private final long pagesCrawled;
+    /**
+     * Pages crawled reusing the snapshot of the previous crawl
+     */
+    private final long pagesNotModified;
+    private final long fetchFailures;
+    /**
+     * Bytes of the bodies received, compressed if the server compressed them
+     */
+    private final long bytesDownloaded;
+    /**
+     * Bytes of the bodies parsed, after decompression
+     */
+    private final long bytesDecoded;
+    private final HistogramSnapshot fetchLatencyMillis;
+    private final HistogramSnapshot parseTimeMicros;
+    /**
+     * Redirects followed per page
+     */
+    private final HistogramSnapshot redirectChainLength;
+    private final Map<RejectionCause, Long> rejections;
+    private final Map<CrawlMetrics.Gauge, Long> gauges;
+
+    /**
+     * @return 0 if the gauge is not tracked for the crawl
+     */
+    public long getGauge(CrawlMetrics.Gauge gauge) {
+        return gauges.getOrDefault(gauge, 0L);
+    }
+
+    public long getTotalRejections() {
+        return rejections.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,41 @@
+package com.myseotoolbox.crawler.metrics;
+
+import lombok.extern.log4j.Log4j2;
+
+import static com.myseotoolbox.crawler.metrics.CrawlMetrics.Gauge.*;
+
+/**
+ * Logs a status line per crawl. The default exporter.
+ */
+@Log4j2
+public class LoggingMetricsExporter implements CrawlMetricsExporter {
+
+    @Override
+    public void export(String crawlName, CrawlMetricsSnapshot snapshot) {
+        log(crawlName, "Running", snapshot);
+    }
+
+    @Override
+    public void crawlEnded(String crawlName, CrawlMetricsSnapshot snapshot) {
+        log(crawlName, "Terminated", snapshot);
+    }
+
+    private void log(String crawlName, String runState, CrawlMetricsSnapshot snapshot) {
+        log.info("{} - {} Active Tasks: {} Queued Tasks: {} Completed Tasks: {} Frontier: {} Visited: {} ({} KB) " +
+                        "Fetch p50/p99: {}/{}ms Failures: {} Downloaded: {} KB (decoded: {} KB) Rejected: {}",
+                crawlName,
+                runState,
+                snapshot.getGauge(ACTIVE_TASKS),
+                snapshot.getGauge(QUEUED_TASKS),
+                snapshot.getGauge(COMPLETED_TASKS),
+                snapshot.getGauge(FRONTIER_SIZE),
+                snapshot.getGauge(VISITED_URLS),
+                snapshot.getGauge(VISITED_URLS_MEMORY_BYTES) / 1024,
+                snapshot.getFetchLatencyMillis().getP50(),
+                snapshot.getFetchLatencyMillis().getP99(),
+                snapshot.getFetchFailures(),
+                snapshot.getBytesDownloaded() / 1024,
+                snapshot.getBytesDecoded() / 1024,
+                snapshot.getRejections());
+    }
+}
@@ -7,6 +7,7 @@ import lombok.ToString;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.LongSupplier;
 
 import static com.myseotoolbox.crawler.utils.IsRedirect.isRedirect;
 
@@ -18,6 +19,23 @@ public final class RedirectChain {
 
     private final List<RedirectChainElement> elements;
     private InputStream inputStream;
+    /**
+     * Validators of the last response of the chain
+     */
+    private String etag;
+    private String lastModified;
+    /**
+     * The request of the last response stopped downloading the body before its end
+     */
+    private boolean bodyTruncated;
+    /**
+     * Compressed bytes of the body of the last response received so far, null if not tracked
+     */
+    private LongSupplier bodyBytesReceived;
+    /**
+     * Snapshot of the previous crawl, when the server answered the last request with 304 Not Modified
+     */
+    private PageSnapshot notModifiedSnapshot;
 
     public RedirectChain() {
         elements = new ArrayList<>();
@@ -5,6 +5,9 @@ import com.myseotoolbox.crawler.websitecrawl.CrawlStartedEvent;
 
 
 public interface CrawlEventListener {
+    /**
+     * Invoked concurrently by the crawler threads, implementations need to be thread safe.
+     */
     public void pageCrawled(CrawlResult crawlResult);
 
     public void crawlStarted(CrawlStartedEvent event);
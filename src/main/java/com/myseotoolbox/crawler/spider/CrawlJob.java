@@ -1,49 +1,147 @@
 package com.myseotoolbox.crawler.spider;
 
 import com.myseotoolbox.crawler.httpclient.WebPageReader;
-import com.myseotoolbox.crawler.spider.filter.WebsiteOriginUtils;
+import com.myseotoolbox.crawler.metrics.CrawlMetrics;
+import com.myseotoolbox.crawler.metrics.CrawlMetricsExporter;
+import com.myseotoolbox.crawler.metrics.CrawlMetricsReporter;
+import com.myseotoolbox.crawler.metrics.LoggingMetricsExporter;
+import com.myseotoolbox.crawler.model.CrawlResult;
+import com.myseotoolbox.crawler.spider.checkpoint.CheckpointWriter;
+import com.myseotoolbox.crawler.spider.checkpoint.CrawlCheckpoint;
+import com.myseotoolbox.crawler.spider.filter.Origin;
+import com.myseotoolbox.crawler.spider.frontier.Frontier;
+import com.myseotoolbox.crawler.spider.frontier.InMemoryFrontier;
+import com.myseotoolbox.crawler.spider.model.SnapshotTask;
+import com.myseotoolbox.crawler.spider.partition.CrawlPartition;
+import com.myseotoolbox.crawler.spider.visited.FingerprintVisitedUrlStore;
+import com.myseotoolbox.crawler.spider.visited.VisitedUrlStore;
 import com.myseotoolbox.crawler.websitecrawl.CrawlStartedEvent;
 import lombok.extern.log4j.Log4j2;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Log4j2
 public class CrawlJob {
 
+    static final Duration DEFAULT_METRICS_INTERVAL = Duration.ofSeconds(30);
+
     private final CrawlEventListener dispatch;
     private final URI crawlOrigin;
+    private final String name;
     private final List<URI> seeds;
     private final CrawlerQueue crawlerQueue;
-    private final CrawlerPoolStatusMonitor crawlerPoolStatusMonitor;
+    private final CrawlMetrics metrics;
+    private CrawlMetricsExporter metricsExporter = new LoggingMetricsExporter();
+    private Duration metricsInterval = DEFAULT_METRICS_INTERVAL;
+    private volatile CrawlMetricsReporter.Reporting metricsReporting;
+
+    public CrawlJob(URI crawlOrigin, Collection<URI> seeds, WebPageReader pageReader, UriFilter uriFilter, ExecutorService executor, int maxCrawls, CrawlEventListener dispatch) {
+        this(crawlOrigin, seeds, new CrawlersPool(pageReader, executor), uriFilter, maxCrawls, dispatch);
+    }
 
-    public CrawlJob(URI crawlOrigin, Collection<URI> seeds, WebPageReader pageReader, UriFilter uriFilter, ThreadPoolExecutor executor, int maxCrawls, CrawlEventListener dispatch) {
+    private CrawlJob(URI crawlOrigin, Collection<URI> seeds, CrawlersPool pool, UriFilter uriFilter, int maxCrawls, CrawlEventListener dispatch) {
+        this(crawlOrigin, seeds, pool, pool, uriFilter, maxCrawls, dispatch, FingerprintVisitedUrlStore::onHeap, new InMemoryFrontier(), Integer.MAX_VALUE, new CrawlMetrics());
+    }
+
+    CrawlJob(URI crawlOrigin, Collection<URI> seeds, CrawlersPool pool, Consumer<SnapshotTask> taskDispatcher, UriFilter uriFilter, int maxCrawls, CrawlEventListener dispatch, Supplier<VisitedUrlStore> visitedUrlStoreFactory,
+             Frontier frontier, int maxPendingTasks, CrawlMetrics metrics) {
         this.crawlOrigin = crawlOrigin;
         this.seeds = new ArrayList<>(seeds);
-        String name = this.crawlOrigin.getHost();
-        CrawlersPool pool = new CrawlersPool(pageReader, executor);
-        this.crawlerQueue = new CrawlerQueue(name, removeSeedsOutsideOrigin(this.crawlOrigin, seeds), pool, uriFilter, maxCrawls, dispatch);
-        this.crawlerPoolStatusMonitor = new CrawlerPoolStatusMonitor(name, executor);
+        this.name = this.crawlOrigin.getHost();
+        this.metrics = metrics;
+        this.crawlerQueue = new CrawlerQueue(name, removeSeedsOutsideOrigin(this.crawlOrigin, seeds), pool, taskDispatcher, uriFilter, maxCrawls, stopMetricsReportingOnCrawlEnded(dispatch), visitedUrlStoreFactory, frontier, maxPendingTasks, metrics);
         this.dispatch = dispatch;
+        metrics.gauge(CrawlMetrics.Gauge.QUEUED_TASKS, pool::getQueuedTasks);
+        metrics.gauge(CrawlMetrics.Gauge.ACTIVE_TASKS, pool::getActiveTasks);
+        metrics.gauge(CrawlMetrics.Gauge.COMPLETED_TASKS, pool::getCompletedTasks);
+    }
+
+    /**
+     * @param resumeFrom null to start from the seeds
+     */
+    void checkpointTo(CheckpointWriter checkpoint, CrawlCheckpoint resumeFrom) {
+        crawlerQueue.checkpointTo(checkpoint, resumeFrom);
+    }
+
+    /**
+     * Must be invoked before {@link #start()}
+     */
+    void reportMetricsTo(CrawlMetricsExporter exporter, Duration interval) {
+        this.metricsExporter = exporter;
+        this.metricsInterval = interval;
+    }
+
+    /**
+     * Crawl also uris (e.g. from the sitemaps), after the seeds. Thread safe. Once the crawl is started, only while it's kept open with {@link #keepOpenUntil}
+     */
+    void addSeeds(Collection<URI> uris) {
+        crawlerQueue.addSeeds(removeSeedsOutsideOrigin(crawlOrigin, uris));
+    }
+
+    /**
+     * Crawl only the urls owned by partition. Must be invoked before {@link #start()} and before the checkpoint is configured
+     */
+    void partitionWith(CrawlPartition partition) {
+        crawlerQueue.partitionWith(partition);
+    }
+
+    /**
+     * The crawl doesn't end before bootstrap completes, so seeds can be added while it runs. Must be invoked before {@link #start()}
+     */
+    void keepOpenUntil(CompletableFuture<?> bootstrap) {
+        crawlerQueue.keepOpenUntil(bootstrap);
     }
 
     public void start() {
         notifyCrawlStart();
+        metricsReporting = CrawlMetricsReporter.shared().start(name, metrics, metricsExporter, metricsInterval);
         crawlerQueue.start();
-        crawlerPoolStatusMonitor.start();
+    }
+
+    /**
+     * Live metrics of the crawl
+     */
+    public CrawlMetrics getMetrics() {
+        return metrics;
     }
 
     private List<URI> removeSeedsOutsideOrigin(URI origin, Collection<URI> seeds) {
-        List<URI> filtered = seeds.stream().filter(u -> WebsiteOriginUtils.isHostMatching(origin, u)).collect(Collectors.toList());
+        Origin host = Origin.of(origin);
+        List<URI> filtered = seeds.stream().filter(u -> host.isHostMatching(u, true)).collect(Collectors.toList());
         if (filtered.size() != seeds.size())
             log.warn("Seeds from external domains found on {}. Original Seeds: {} Filtered Seeds: {}", origin, seeds.size(), filtered.size());
         return filtered;
     }
 
+    private CrawlEventListener stopMetricsReportingOnCrawlEnded(CrawlEventListener listener) {
+        return new CrawlEventListener() {
+            @Override
+            public void pageCrawled(CrawlResult crawlResult) {
+                listener.pageCrawled(crawlResult);
+            }
+
+            @Override
+            public void crawlStarted(CrawlStartedEvent event) {
+                listener.crawlStarted(event);
+            }
+
+            @Override
+            public void crawlEnded() {
+                if (metricsReporting != null) metricsReporting.stop();
+                listener.crawlEnded();
+            }
+        };
+    }
+
     private void notifyCrawlStart() {
         List<String> collect = seeds.subList(0, Math.min(seeds.size(), 20)).stream().map(URI::toString).collect(Collectors.toList());
         dispatch.crawlStarted(new CrawlStartedEvent(crawlOrigin.toString(), collect));
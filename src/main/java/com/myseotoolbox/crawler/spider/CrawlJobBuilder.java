@@ -1,28 +1,90 @@
 package com.myseotoolbox.crawler.spider;
 
+import com.myseotoolbox.crawler.httpclient.AsyncHttpRequestFactory;
 import com.myseotoolbox.crawler.httpclient.ConnectionFactory;
 import com.myseotoolbox.crawler.httpclient.HttpRequestFactory;
 import com.myseotoolbox.crawler.httpclient.NoSSLVerificationConnectionFactory;
+import com.myseotoolbox.crawler.httpclient.ObservedHttpRequestFactory;
+import com.myseotoolbox.crawler.httpclient.PooledHttpRequestFactory;
+import com.myseotoolbox.crawler.httpclient.ValidatorStore;
 import com.myseotoolbox.crawler.httpclient.WebPageReader;
+import com.myseotoolbox.crawler.metrics.CrawlMetrics;
+import com.myseotoolbox.crawler.metrics.CrawlMetricsExporter;
+import com.myseotoolbox.crawler.metrics.LoggingMetricsExporter;
+import com.myseotoolbox.crawler.model.CrawlResult;
+import com.myseotoolbox.crawler.spider.checkpoint.CheckpointWriter;
+import com.myseotoolbox.crawler.spider.checkpoint.CrawlCheckpoint;
 import com.myseotoolbox.crawler.spider.configuration.AllowedPathFromSeeds;
 import com.myseotoolbox.crawler.spider.filter.robotstxt.RobotsTxt;
+import com.myseotoolbox.crawler.spider.filter.robotstxt.RobotsTxtCache;
+import com.myseotoolbox.crawler.spider.frontier.InMemoryFrontier;
+import com.myseotoolbox.crawler.spider.frontier.SpillingFrontier;
+import com.myseotoolbox.crawler.spider.model.SnapshotTask;
+import com.myseotoolbox.crawler.spider.partition.CrawlPartition;
+import com.myseotoolbox.crawler.spider.partition.PartitionTransport;
+import com.myseotoolbox.crawler.spider.politeness.PolitenessPolicy;
+import com.myseotoolbox.crawler.spider.politeness.PolitenessScheduler;
+import com.myseotoolbox.crawler.spider.sitemap.SiteMap;
 import com.myseotoolbox.crawler.spider.sitemap.SitemapReader;
+import com.myseotoolbox.crawler.spider.visited.FingerprintVisitedUrlStore;
+import com.myseotoolbox.crawler.spider.visited.VisitedUrlStore;
+import com.myseotoolbox.crawler.websitecrawl.CrawlStartedEvent;
+import lombok.extern.log4j.Log4j2;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.net.URI;
-import java.util.Collection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+@Log4j2
 public class CrawlJobBuilder {
+    //tasks queued in the executor per connection when the frontier is bounded, so the crawlers never starve
+    private static final int PENDING_TASKS_PER_CONNECTION = 2;
+    private static final Duration DEFAULT_CHECKPOINT_INTERVAL = Duration.ofSeconds(30);
+    private static final AtomicInteger bootstrapThreadId = new AtomicInteger();
+    //robots.txt and sitemaps of the jobs built with buildAsync()
+    private static final Executor BOOTSTRAP_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "crawl-bootstrap-" + bootstrapThreadId.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
     private final URI origin;
     private final CrawlEventListener listener;
     private List<URI> seeds = Collections.emptyList();
     private CrawlerThreadPoolExecutorFactory threadPoolExecutorFactory = new CrawlerThreadPoolExecutorFactory();
+    private CrawlScheduler scheduler = null;
+    private int schedulerWeight = 1;
     private int maxConcurrentConnections = 1;
     private int crawlLimit = 10000;
+    private Supplier<VisitedUrlStore> visitedUrlStoreFactory = FingerprintVisitedUrlStore::onHeap;
+    private HttpRequestFactory httpRequestFactory = null;
+    private boolean connectionPooling = false;
+    private int maxBodySize = WebPageReader.DEFAULT_MAX_BODY_SIZE;
+    private Duration maxReadTime = Duration.ZERO;
+    private Duration politenessInterval = null;
+    private Path frontierDirectory = null;
+    private int maxUrlsInMemory = 0;
+    private Path checkpointFile = null;
+    private Duration checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private boolean resume = false;
+    private CrawlMetricsExporter metricsExporter = new LoggingMetricsExporter();
+    private Duration metricsInterval = CrawlJob.DEFAULT_METRICS_INTERVAL;
+    private ValidatorStore validatorStore = null;
+    private RobotsTxtCache robotsTxtCache = RobotsTxtCache.shared();
+    private int sitemapConcurrency = SiteMap.DEFAULT_CONCURRENCY;
+    private CrawlPartition partition = null;
+
     private CrawlJobBuilder(URI origin, CrawlEventListener listener) {
         this.origin = origin;
         this.listener = listener;
@@ -37,11 +99,25 @@ public class CrawlJobBuilder {
         return this;
     }
 
+    /**
+     * Use {@code new CrawlerThreadPoolExecutorFactory(true)} to run the crawlers on virtual threads (Java 21+)
+     */
     public CrawlJobBuilder withThreadPoolFactory(CrawlerThreadPoolExecutorFactory factory) {
         this.threadPoolExecutorFactory = factory;
         return this;
     }
 
+    /**
+     * Run the crawl on the workers of scheduler, shared with the other jobs, instead of a thread pool of its own.
+     * The job gets a share of the workers proportional to weight, and up to {@link #withConcurrentConnections} of them
+     * (one with a non blocking {@link #withHttpRequestFactory}). Overrides {@link #withThreadPoolFactory}
+     */
+    public CrawlJobBuilder withScheduler(CrawlScheduler scheduler, int weight) {
+        this.scheduler = scheduler;
+        this.schedulerWeight = weight;
+        return this;
+    }
+
     public CrawlJobBuilder withConcurrentConnections(int maxConcurrentConnections) {
         this.maxConcurrentConnections = maxConcurrentConnections;
         return this;
@@ -52,27 +128,281 @@ public class CrawlJobBuilder {
         return this;
     }
 
+    /**
+     * Use {@link FingerprintVisitedUrlStore#offHeap()} or {@link FingerprintVisitedUrlStore#memoryMapped} to keep the visited urls out of the heap on very big crawls
+     */
+    public CrawlJobBuilder withVisitedUrlStore(Supplier<VisitedUrlStore> visitedUrlStoreFactory) {
+        this.visitedUrlStoreFactory = visitedUrlStoreFactory;
+        return this;
+    }
+
+    /**
+     * Use {@link AsyncHttpRequestFactory} to fetch the pages without holding a thread per connection:
+     * the job sends its requests from a single thread, up to {@link #withConcurrentConnections} at a time.
+     * A single instance can be shared by many crawl jobs.
+     */
+    public CrawlJobBuilder withHttpRequestFactory(HttpRequestFactory httpRequestFactory) {
+        this.httpRequestFactory = httpRequestFactory;
+        return this;
+    }
+
+    /**
+     * Reuse keep-alive connections across the crawl, with up to {@link #withConcurrentConnections} connections to the host.
+     * The pool is closed when the crawl ends. Ignored if a custom {@link #withHttpRequestFactory} is used.
+     */
+    public CrawlJobBuilder withConnectionPooling() {
+        this.connectionPooling = true;
+        return this;
+    }
+
+    /**
+     * Pages are parsed up to maxBytes, the snapshot of a bigger page has crawl status {@link WebPageReader#TRUNCATED_CRAWL_STATUS}
+     */
+    public CrawlJobBuilder withMaxBodySize(int maxBytes) {
+        this.maxBodySize = maxBytes;
+        return this;
+    }
+
+    /**
+     * Pages not downloaded within maxReadTime are parsed up to where they got, same as {@link #withMaxBodySize}.
+     */
+    public CrawlJobBuilder withMaxReadTime(Duration maxReadTime) {
+        this.maxReadTime = maxReadTime;
+        return this;
+    }
+
+    /**
+     * Space the requests to the host by at least minInterval, or the robots.txt Crawl-delay if longer (honoured even without politeness).
+     * The interval adapts to the host: it grows when the host errors or slows down and honours Retry-After. See {@link PolitenessPolicy}
+     */
+    public CrawlJobBuilder withPoliteness(Duration minInterval) {
+        this.politenessInterval = minInterval;
+        return this;
+    }
+
+    /**
+     * Keep at most maxUrlsInMemory urls to crawl on the heap, the rest is spilled to memory mapped files in directory.
+     * Only a few tasks per connection are handed over to the crawlers at a time. See {@link SpillingFrontier}
+     */
+    public CrawlJobBuilder withSpillingFrontier(Path directory, int maxUrlsInMemory) {
+        this.frontierDirectory = directory;
+        this.maxUrlsInMemory = maxUrlsInMemory;
+        return this;
+    }
+
+    /**
+     * Record the progress of the crawl in file, synced to disk every interval. The file is replaced, unless resuming from it with {@link #resumeFrom}
+     */
+    public CrawlJobBuilder withCheckpoint(Path file, Duration interval) {
+        this.checkpointFile = file;
+        this.checkpointInterval = interval;
+        return this;
+    }
+
+    /**
+     * Continue the crawl recorded in the checkpoint file without crawling again the pages already crawled, and keep recording the progress in it.
+     * If the file doesn't exist, the crawl starts from the seeds (so the same job can be built on every restart).
+     * The checkpoint interval can be set with {@link #withCheckpoint} on the same file.
+     */
+    public CrawlJobBuilder resumeFrom(Path checkpoint) {
+        this.checkpointFile = checkpoint;
+        this.resume = true;
+        return this;
+    }
+
+    /**
+     * Export the {@link CrawlMetrics} of the crawl every interval, instead of logging them every {@link CrawlJob#DEFAULT_METRICS_INTERVAL}.
+     * The metrics can also be read any time from {@link CrawlJob#getMetrics()}
+     */
+    public CrawlJobBuilder withMetricsExporter(CrawlMetricsExporter exporter, Duration interval) {
+        this.metricsExporter = exporter;
+        this.metricsInterval = interval;
+        return this;
+    }
+
+    /**
+     * Recrawl with conditional requests: pages not modified since the crawl recorded in store are not downloaded nor parsed,
+     * their previous snapshot is reused. The pages crawled are recorded in store. Share the same store across the crawls of the website.
+     */
+    public CrawlJobBuilder withValidatorStore(ValidatorStore store) {
+        this.validatorStore = store;
+        return this;
+    }
+
+    /**
+     * Where the robots.txt of the website and of its subdomains are fetched from, instead of the {@link RobotsTxtCache#shared()} one
+     */
+    public CrawlJobBuilder withRobotsTxtCache(RobotsTxtCache cache) {
+        this.robotsTxtCache = cache;
+        return this;
+    }
+
+    /**
+     * Fetch up to concurrency sitemaps at the same time, when the sitemap indexes link more than one
+     */
+    public CrawlJobBuilder withSitemapConcurrency(int concurrency) {
+        this.sitemapConcurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Crawl only the share of the website owned by partition, as one of the partitions the crawl is split into (possibly on different nodes).
+     * Build a job with the same configuration and seeds for each partition of the transport. See {@link PartitionTransport}
+     * <p>
+     * The partitions split the budget of the website: each one opens {@link #withConcurrentConnections} / partitions connections (at least one)
+     * and spaces its requests by the politeness interval and the robots.txt Crawl-delay times the partitions, so together they keep the rate of a single job.
+     */
+    public CrawlJobBuilder withPartition(CrawlPartition partition) {
+        this.partition = partition;
+        return this;
+    }
+
+    /**
+     * Blocks until robots.txt and all the sitemaps have been read. See {@link #buildAsync()}
+     */
     public CrawlJob build() {
+        CrawlMetrics metrics = new CrawlMetrics();
+        RobotsTxt robotsTxt = RobotsTxtBuilder.buildRobotsTxtForOrigin(origin, false, robotsTxtCache);
+        UriFilter uriFilter = buildUriFilter(robotsTxt, metrics);
+        CrawlJob crawlJob = assemble(robotsTxt, uriFilter, metrics);
+        //after the checkpoint: the urls already crawled are skipped
+        readSitemaps(robotsTxt, uriFilter, crawlJob);
+        return crawlJob;
+    }
+
+    /**
+     * Same as {@link #buildAsync(Executor)} on a shared pool of daemon threads
+     */
+    public CompletableFuture<CrawlJob> buildAsync() {
+        return buildAsync(BOOTSTRAP_EXECUTOR);
+    }
 
+    /**
+     * Build the job without blocking the caller. The job is completed as soon as robots.txt is fetched (the filters and the crawl delay depend on it),
+     * the sitemaps are read afterwards on executor: the job can be started straight away, the urls in the sitemaps are merged into
+     * the frontier as they're found and the crawl doesn't end before all the sitemaps have been read.
+     */
+    public CompletableFuture<CrawlJob> buildAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            CrawlMetrics metrics = new CrawlMetrics();
+            RobotsTxt robotsTxt = RobotsTxtBuilder.buildRobotsTxtForOrigin(origin, false, robotsTxtCache);
+            UriFilter uriFilter = buildUriFilter(robotsTxt, metrics);
+            CrawlJob crawlJob = assemble(robotsTxt, uriFilter, metrics);
+            CompletableFuture<Void> sitemaps = CompletableFuture.runAsync(() -> readSitemaps(robotsTxt, uriFilter, crawlJob), executor)
+                    .whenComplete((r, e) -> {
+                        if (e != null) log.warn("Error while reading the sitemaps of {}. Error: {}", origin, e.toString());
+                    });
+            //before the job is handed over: it can't be started before
+            crawlJob.keepOpenUntil(sitemaps);
+            return crawlJob;
+        }, executor);
+    }
+
+    private UriFilter buildUriFilter(RobotsTxt robotsTxt, CrawlMetrics metrics) {
         List<String> allowedPaths = AllowedPathFromSeeds.extractAllowedPathFromSeeds(seeds);
-        RobotsTxt robotsTxt = RobotsTxtBuilder.buildRobotsTxtForOrigin(origin, false);
-        UriFilter uriFilter = new DefaultUriFilter(origin, allowedPaths, robotsTxt);
+        return new DefaultUriFilter(origin, allowedPaths, robotsTxt, metrics);
+    }
 
-        ConnectionFactory connectionFactory = new NoSSLVerificationConnectionFactory();
-        HttpRequestFactory httpRequestFactory = new HttpRequestFactory(connectionFactory);
+    private void readSitemaps(RobotsTxt robotsTxt, UriFilter uriFilter, CrawlJob crawlJob) {
+        new SitemapReader(sitemapConcurrency).readSeedsFromSitemaps(origin, robotsTxt.getSitemaps(), uriFilter, crawlJob::addSeeds);
+    }
+
+    private CrawlJob assemble(RobotsTxt robotsTxt, UriFilter uriFilter, CrawlMetrics metrics) {
+        CrawlEventListener listener = this.listener;
+        HttpRequestFactory httpRequestFactory = this.httpRequestFactory;
+        //the partitions of a website share its budget: their connections add up, and so do their request rates
+        int partitions = partition != null ? partition.getPartitions() : 1;
+        int connections = Math.max(1, maxConcurrentConnections / partitions);
+        if (httpRequestFactory == null && connectionPooling) {
+            PooledHttpRequestFactory pooledFactory = new PooledHttpRequestFactory(connections);
+            httpRequestFactory = pooledFactory;
+            listener = closeOnCrawlEnded(listener, pooledFactory);
+        } else if (httpRequestFactory == null) {
+            httpRequestFactory = buildDefaultHttpRequestFactory();
+        }
+
+        PolitenessPolicy politenessPolicy = null;
+        if (politenessInterval != null || robotsTxt.getCrawlDelayMillis() > 0) {
+            long minInterval = politenessInterval != null ? politenessInterval.toMillis() : 0;
+            politenessPolicy = new PolitenessPolicy(minInterval * partitions, robotsTxt.getCrawlDelayMillis() * partitions);
+            httpRequestFactory = new ObservedHttpRequestFactory(httpRequestFactory, politenessPolicy);
+        }
+
+        httpRequestFactory = new ObservedHttpRequestFactory(httpRequestFactory, metrics);
+        WebPageReader webPageReader = new WebPageReader(uriFilter, httpRequestFactory, maxBodySize, maxReadTime.toMillis(), metrics, validatorStore);
 
-        WebPageReader webPageReader = new WebPageReader(uriFilter, httpRequestFactory);
+        //non blocking requests only need a thread to be sent, not to wait for the server
+        int workers = httpRequestFactory.isNonBlocking() ? 1 : connections;
+        ExecutorService executor = scheduler != null ?
+                scheduler.register(origin.getHost(), workers, schedulerWeight) :
+                threadPoolExecutorFactory.buildExecutor(origin.getHost(), workers);
 
-        SitemapReader sitemapReader = new SitemapReader();
-        List<URI> seedsFromSitemap = sitemapReader.getSeedsFromSitemaps(origin, robotsTxt.getSitemaps(), uriFilter);
+        CrawlersPool pool = httpRequestFactory.isNonBlocking() ?
+                new CrawlersPool(webPageReader, executor, connections) :
+                new CrawlersPool(webPageReader, executor);
 
-        ThreadPoolExecutor executor = threadPoolExecutorFactory.buildThreadPool(origin.getHost(), maxConcurrentConnections);
-        List<URI> allSeeds = concatCollections(seeds, seedsFromSitemap);
+        Consumer<SnapshotTask> taskDispatcher = politenessPolicy != null ? new PolitenessScheduler(pool, politenessPolicy) : pool;
 
-        return new CrawlJob(origin, allSeeds, webPageReader, uriFilter, executor, crawlLimit, listener);
+        CrawlJob crawlJob;
+        if (frontierDirectory != null) {
+            SpillingFrontier frontier = new SpillingFrontier(frontierDirectory, maxUrlsInMemory);
+            int maxPendingTasks = connections * PENDING_TASKS_PER_CONNECTION;
+            crawlJob = new CrawlJob(origin, seeds, pool, taskDispatcher, uriFilter, crawlLimit, listener, visitedUrlStoreFactory, frontier, maxPendingTasks, metrics);
+        } else {
+            crawlJob = new CrawlJob(origin, seeds, pool, taskDispatcher, uriFilter, crawlLimit, listener, visitedUrlStoreFactory, new InMemoryFrontier(), Integer.MAX_VALUE, metrics);
+        }
+        crawlJob.reportMetricsTo(metricsExporter, metricsInterval);
+
+        if (partition != null) {
+            crawlJob.partitionWith(partition);
+        }
+        if (checkpointFile != null) {
+            configureCheckpoint(crawlJob);
+        }
+        return crawlJob;
+    }
+
+    private void configureCheckpoint(CrawlJob crawlJob) {
+        if (resume && Files.exists(checkpointFile)) {
+            CrawlCheckpoint checkpoint = CrawlCheckpoint.read(checkpointFile);
+            if (!checkpoint.getOrigin().equals(origin)) {
+                throw new IllegalArgumentException("Checkpoint " + checkpointFile + " belongs to " + checkpoint.getOrigin() + " not to " + origin);
+            }
+            crawlJob.checkpointTo(CheckpointWriter.resume(checkpoint, checkpointInterval), checkpoint);
+        } else {
+            crawlJob.checkpointTo(CheckpointWriter.create(checkpointFile, origin, checkpointInterval), null);
+        }
+    }
+
+    private HttpRequestFactory buildDefaultHttpRequestFactory() {
+        ConnectionFactory connectionFactory = new NoSSLVerificationConnectionFactory();
+        return new HttpRequestFactory(connectionFactory);
     }
 
-    private List<URI> concatCollections(Collection<URI> seeds, Collection<URI> seedsFromSitemap) {
-        return Stream.concat(seeds.stream(), seedsFromSitemap.stream()).collect(Collectors.toList());
+    private CrawlEventListener closeOnCrawlEnded(CrawlEventListener listener, Closeable resource) {
+        return new CrawlEventListener() {
+            @Override
+            public void pageCrawled(CrawlResult crawlResult) {
+                listener.pageCrawled(crawlResult);
+            }
+
+            @Override
+            public void crawlStarted(CrawlStartedEvent event) {
+                listener.crawlStarted(event);
+            }
+
+            @Override
+            public void crawlEnded() {
+                try {
+                    listener.crawlEnded();
+                } finally {
+                    try {
+                        resource.close();
+                    } catch (IOException e) {
+                        log.warn("Unable to close {}. Exception: {}", resource, e.getMessage());
+                    }
+                }
+            }
+        };
     }
 }
@@ -0,0 +1,289 @@
+package com.myseotoolbox.crawler.spider;
+
+import lombok.extern.log4j.Log4j2;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs the tasks of many crawl jobs on one shared pool of workers, instead of a thread pool per job.
+ * <p>
+ * The workers are the global connection budget: no more than maxConnections pages are crawled at the same time across all the jobs.
+ * Each job gets a share of the workers proportional to its weight (stride scheduling) and never more than its own max connections to its host.
+ * A job that was idle rejoins at the current virtual time, so it doesn't get a burst of the workers for the time it wasn't crawling.
+ * <p>
+ * With the non blocking {@link com.myseotoolbox.crawler.httpclient.AsyncHttpRequestFactory} the workers only send the requests:
+ * the responses a job waits for are capped by its own max connections only.
+ */
+@Log4j2
+@ThreadSafe
+public class CrawlScheduler implements Closeable {
+
+    //pass added to a job with weight 1 at every task it runs
+    private static final long STRIDE = 1 << 20;
+    private static final AtomicInteger schedulerId = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    //signalled one worker at a time, so queuing a task doesn't wake up all the workers
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition jobTerminated = lock.newCondition();
+    //jobs with tasks queued and room for another connection, lowest pass first
+    private final TreeSet<JobExecutor> ready = new TreeSet<>(Comparator.<JobExecutor>comparingLong(job -> job.pass).thenComparingLong(job -> job.id));
+    private final List<Thread> workers = new ArrayList<>();
+    private long virtualTime = 0;
+    private long nextJobId = 0;
+    private int registeredJobs = 0;
+    private int activeTasks = 0;
+    private boolean closed = false;
+
+    /**
+     * @param maxConnections workers shared by the jobs, pages crawled at the same time across all of them
+     */
+    public CrawlScheduler(int maxConnections) {
+        if (maxConnections < 1) throw new IllegalArgumentException("maxConnections should be at least 1. Was: " + maxConnections);
+        String namePrefix = "crawl-scheduler-" + schedulerId.getAndIncrement() + "-";
+        for (int i = 0; i < maxConnections; i++) {
+            Thread worker = new Thread(this::work, namePrefix + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * The executor a crawl job runs its tasks on. Shutting it down unregisters the job once its tasks are completed.
+     *
+     * @param maxConnections max tasks of the job running at the same time, the connections to its host
+     * @param weight         share of the workers compared to the other jobs
+     */
+    public ExecutorService register(String name, int maxConnections, int weight) {
+        if (maxConnections < 1) throw new IllegalArgumentException("maxConnections should be at least 1. Was: " + maxConnections);
+        if (weight < 1) throw new IllegalArgumentException("weight should be at least 1. Was: " + weight);
+        lock.lock();
+        try {
+            if (closed) throw new RejectedExecutionException("Scheduler has been closed");
+            registeredJobs++;
+            return new JobExecutor(nextJobId++, name, maxConnections, weight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxConnections() {
+        return workers.size();
+    }
+
+    /**
+     * Jobs registered and not terminated yet
+     */
+    public int getRegisteredJobs() {
+        lock.lock();
+        try {
+            return registeredJobs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tasks running on the workers, across all the jobs
+     */
+    public int getActiveTasks() {
+        lock.lock();
+        try {
+            return activeTasks;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the workers once they complete the task they're running. The tasks still queued are not run.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            JobExecutor job;
+            Runnable task;
+            lock.lock();
+            try {
+                while (ready.isEmpty() && !closed) {
+                    workAvailable.await();
+                }
+                if (closed) return;
+                job = ready.pollFirst();
+                task = job.tasks.poll();
+                job.running++;
+                activeTasks++;
+                virtualTime = job.pass;
+                job.pass += STRIDE / job.weight;
+                if (job.isReady()) ready.add(job);
+                //more work than this worker can take
+                if (!ready.isEmpty()) workAvailable.signal();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Exception while running task of " + job.name, e);
+            } finally {
+                lock.lock();
+                try {
+                    job.running--;
+                    activeTasks--;
+                    job.onChanged();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue of a job on the shared workers. Guarded by the scheduler lock.
+     */
+    private class JobExecutor extends AbstractExecutorService {
+        private final long id;
+        private final String name;
+        private final int maxConnections;
+        private final int weight;
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private long pass;
+        private int running = 0;
+        private boolean shutdown = false;
+        private boolean terminated = false;
+
+        JobExecutor(long id, String name, int maxConnections, int weight) {
+            this.id = id;
+            this.name = name;
+            this.maxConnections = maxConnections;
+            this.weight = weight;
+            this.pass = virtualTime;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            lock.lock();
+            try {
+                if (shutdown || closed) throw new RejectedExecutionException("Executor of " + name + " has been shut down");
+                tasks.add(command);
+                onChanged();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isReady() {
+            return !tasks.isEmpty() && running < maxConnections;
+        }
+
+        //after a task is queued or completed: the job might be ready again, or terminated
+        private void onChanged() {
+            if (isReady() && !ready.contains(this)) {
+                pass = Math.max(pass, virtualTime);
+                ready.add(this);
+                workAvailable.signal();
+            } else if (shutdown && running == 0 && tasks.isEmpty() && !terminated) {
+                terminated = true;
+                registeredJobs--;
+                jobTerminated.signalAll();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            lock.lock();
+            try {
+                shutdown = true;
+                onChanged();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Tasks already running are not interrupted, the queued ones are returned
+         */
+        @Override
+        public List<Runnable> shutdownNow() {
+            lock.lock();
+            try {
+                ready.remove(this);
+                List<Runnable> queued = new ArrayList<>(tasks);
+                tasks.clear();
+                shutdown();
+                return queued;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean isShutdown() {
+            lock.lock();
+            try {
+                return shutdown;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean isTerminated() {
+            lock.lock();
+            try {
+                return terminated;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long remaining = unit.toNanos(timeout);
+            lock.lock();
+            try {
+                while (!terminated) {
+                    if (remaining <= 0) return false;
+                    remaining = jobTerminated.awaitNanos(remaining);
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "CrawlScheduler job " + name;
+        }
+    }
+}
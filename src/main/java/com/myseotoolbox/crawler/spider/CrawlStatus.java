@@ -1,53 +1,173 @@
 package com.myseotoolbox.crawler.spider;
 
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
+import com.myseotoolbox.crawler.spider.visited.FingerprintVisitedUrlStore;
+import com.myseotoolbox.crawler.spider.visited.StripedVisitedUrlStore;
+import com.myseotoolbox.crawler.spider.visited.VisitedUrlStore;
 import lombok.extern.log4j.Log4j2;
 
 import javax.annotation.concurrent.ThreadSafe;
-import java.net.URI;
-import java.util.Collection;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 
+/**
+ * Bookkeeping of the crawl without a global lock: the visited urls are striped, the counters are atomic.
+ * <p>
+ * A url is claimed atomically the first time it's seen, so concurrent crawler threads never enqueue it twice.
+ * The crawl is completed when no task is in flight: a task is released only after the links it discovered have been claimed.
+ */
 @Log4j2
 @ThreadSafe
 class CrawlStatus {
-    private final Set<String> visited = new HashSet<>();
-    private final Set<String> inProgress = new HashSet<>();
+    private static final int STORE_STRIPES = 16;
 
-    public synchronized void addToInProgress(List<URI> uris) {
-        log.debug("Adding to in progress: {}", uris);
-        inProgress.addAll(toString(uris));
+    private final VisitedUrlStore seen;
+    private final VisitedUrlStore inProgress;
+    private final AtomicInteger enqueued = new AtomicInteger(0);
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private volatile CrawlSlots sharedSlots = null;
+    private volatile boolean crawlLimitReached = false;
+
+    /**
+     * Crawl slots shared with other crawls, e.g. the other partitions of the same crawl
+     */
+    interface CrawlSlots {
+        boolean tryReserve(int maxCrawls);
+    }
+
+    CrawlStatus() {
+        this(FingerprintVisitedUrlStore::onHeap);
+    }
+
+    CrawlStatus(Supplier<VisitedUrlStore> storeFactory) {
+        this.seen = new StripedVisitedUrlStore(STORE_STRIPES, storeFactory);
+        this.inProgress = new StripedVisitedUrlStore(STORE_STRIPES, storeFactory);
+    }
+
+    /**
+     * Count maxCrawls on slots rather than on the urls claimed here. Must be invoked before any url is claimed
+     */
+    public void reserveSlotsFrom(CrawlSlots slots) {
+        this.sharedSlots = slots;
+    }
+
+    public List<CrawlUrl> addToInProgress(List<CrawlUrl> urls) {
+        return addToInProgress(urls, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Claim the urls never seen before, as long as the total enqueued stays within maxCrawls.
+     *
+     * @return the claimed urls, each of them has to be completed with {@link #markAsCrawled(CrawlUrl)} and {@link #releaseTask()}
+     */
+    public List<CrawlUrl> addToInProgress(List<CrawlUrl> urls, int maxCrawls) {
+        List<CrawlUrl> claimed = new ArrayList<>(urls.size());
+        for (CrawlUrl url : urls) {
+            if (!seen.add(url)) continue;
+
+            if (!reserveSlot(maxCrawls)) {
+                seen.remove(url);
+                break;
+            }
+
+            inFlight.incrementAndGet();
+            inProgress.add(url);
+            claimed.add(url);
+        }
+        log.debug("Added to in progress: {}", claimed);
+        return claimed;
+    }
+
+    /**
+     * Mark as visited a url crawled before the crawl was resumed. It counts towards maxCrawls.
+     */
+    public void restoreCrawled(String url) {
+        if (!seen.add(url)) return;
+        enqueued.incrementAndGet();
+        if (sharedSlots != null) sharedSlots.tryReserve(Integer.MAX_VALUE);
     }
 
-    public synchronized void markAsCrawled(URI uri) {
-        log.debug("Marking as crawled: {}", uri);
-        if (!inProgress.remove(toString(uri))) {
-            throw new IllegalStateException("Completing snapshot of not in progress URI: '" + uri + "' Visited: " + visited.contains(toString(uri)));
+    public void markAsCrawled(CrawlUrl url) {
+        log.debug("Marking as crawled: {}", url);
+        if (!inProgress.remove(url)) {
+            throw new IllegalStateException("Completing snapshot of not in progress URI: '" + url + "' Visited: " + seen.contains(url));
         }
-        if (!visited.add(toString(uri)))
-            throw new IllegalStateException("Already visited: " + uri);
     }
 
-    public synchronized boolean isAlreadyVisited(URI uri) {
-        return visited.contains(toString(uri)) || inProgress.contains(toString(uri));
+    /**
+     * Keep the crawl from completing, as if a task was in flight, until {@link #releaseTask()}
+     */
+    public void hold() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * @return true if this was the last task in flight, meaning the crawl is completed
+     */
+    public boolean releaseTask() {
+        return inFlight.decrementAndGet() == 0;
+    }
+
+    public boolean isAlreadyVisited(CrawlUrl url) {
+        return seen.contains(url);
+    }
+
+    /**
+     * Urls claimed here, including the ones restored
+     */
+    public int getTotalEnqueued() {
+        return enqueued.get();
     }
 
-    public synchronized int getTotalEnqueued() {
-        return inProgress.size() + visited.size();
+    /**
+     * True once a url wasn't claimed because maxCrawls was reached
+     */
+    public boolean isCrawlLimitReached() {
+        return crawlLimitReached;
     }
 
-    public synchronized boolean isCrawlCompleted() {
-        return inProgress.size() == 0;
+    /**
+     * Urls seen by the crawl, crawled or not
+     */
+    public int getVisitedUrls() {
+        return seen.size();
     }
 
-    private String toString(URI uri) {
-        return uri.toASCIIString();
+    public long getMemoryFootprint() {
+        return seen.memoryFootprint() + inProgress.memoryFootprint();
+    }
+
+    public boolean isCrawlCompleted() {
+        return inFlight.get() == 0;
+    }
+
+    /**
+     * Release the visited url stores, once the crawl is completed
+     */
+    public void close() {
+        seen.close();
+        inProgress.close();
+    }
+
+    private boolean reserveSlot(int maxCrawls) {
+        CrawlSlots slots = sharedSlots;
+        if (slots != null) {
+            if (!slots.tryReserve(maxCrawls)) return limitReached();
+            enqueued.incrementAndGet();
+            return true;
+        }
+        while (true) {
+            int cur = enqueued.get();
+            if (cur >= maxCrawls) return limitReached();
+            if (enqueued.compareAndSet(cur, cur + 1)) return true;
+        }
     }
 
-    private Collection<String> toString(Collection<URI> uris) {
-        return uris.stream().map(this::toString).collect(Collectors.toSet());
+    private boolean limitReached() {
+        crawlLimitReached = true;
+        return false;
     }
 }
@@ -1,20 +1,29 @@
 package com.myseotoolbox.crawler.spider;
 
-import com.myseotoolbox.crawler.httpclient.SafeStringEscaper;
+import com.myseotoolbox.crawler.metrics.CrawlMetrics;
 import com.myseotoolbox.crawler.model.CrawlResult;
 import com.myseotoolbox.crawler.model.PageSnapshot;
+import com.myseotoolbox.crawler.spider.checkpoint.CheckpointWriter;
+import com.myseotoolbox.crawler.spider.checkpoint.CrawlCheckpoint;
+import com.myseotoolbox.crawler.spider.frontier.Frontier;
+import com.myseotoolbox.crawler.spider.frontier.InMemoryFrontier;
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
 import com.myseotoolbox.crawler.spider.model.SnapshotTask;
-import com.myseotoolbox.crawler.utils.LinkResolver;
+import com.myseotoolbox.crawler.spider.partition.CrawlPartition;
+import com.myseotoolbox.crawler.spider.visited.FingerprintVisitedUrlStore;
+import com.myseotoolbox.crawler.spider.visited.VisitedUrlStore;
 import com.myseotoolbox.crawler.utils.LoggingUtils;
 import lombok.extern.log4j.Log4j2;
 
 import javax.annotation.concurrent.ThreadSafe;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
-import static com.myseotoolbox.crawler.httpclient.SafeStringEscaper.containsUnicodeCharacters;
 import static com.myseotoolbox.crawler.spider.PageLinksHelper.*;
 import static com.myseotoolbox.crawler.spider.PageLinksHelper.MAX_URL_LEN;
 import static com.myseotoolbox.crawler.utils.GetDestinationUri.getDestinationUri;
@@ -24,36 +33,137 @@ import static com.myseotoolbox.crawler.utils.IsCanonicalized.isCanonicalizedToDi
 @ThreadSafe
 class CrawlerQueue implements Consumer<CrawlResult> {
 
-    private final CrawlStatus crawlStatus = new CrawlStatus();
-    private final List<URI> seeds = new ArrayList<>();
+    private final CrawlStatus crawlStatus;
+    private final List<CrawlUrl> seeds = new ArrayList<>();
     private final CrawlersPool crawlersPool;
+    private final Consumer<SnapshotTask> taskDispatcher;
+    private final Frontier frontier;
+    private final int maxPendingTasks;
+    private int pendingTasks = 0;
+    private CheckpointWriter checkpoint = null;
+    private CrawlPartition partition = null;
     private final UriFilter uriFilter;
     private final CrawlEventListener dispatch;
+    private final CrawlMetrics metrics;
 
     private final int maxCrawls;
     private final String queueName;
-    private boolean crawlShutdownInvoked = false;
+    private final AtomicBoolean crawlShutdownInvoked = new AtomicBoolean(false);
+    private boolean seedsClaimed = false;
+    private boolean started = false;
 
     public CrawlerQueue(String queueName, Collection<URI> seeds, CrawlersPool crawlersPool, UriFilter filter, int maxCrawls, CrawlEventListener dispatch) {
+        this(queueName, seeds, crawlersPool, crawlersPool, filter, maxCrawls, dispatch, FingerprintVisitedUrlStore::onHeap, new InMemoryFrontier(), Integer.MAX_VALUE, new CrawlMetrics());
+    }
+
+    /**
+     * @param taskDispatcher  hands the tasks over to the crawlersPool, possibly later (see {@link com.myseotoolbox.crawler.spider.politeness.PolitenessScheduler})
+     * @param frontier        urls claimed but not handed over to the crawlers yet
+     * @param maxPendingTasks max tasks handed over to the crawlers and not completed yet. The others wait in the frontier.
+     * @param metrics         where the crawled pages are recorded. The frontier and the visited urls are tracked as gauges.
+     */
+    CrawlerQueue(String queueName, Collection<URI> seeds, CrawlersPool crawlersPool, Consumer<SnapshotTask> taskDispatcher, UriFilter filter, int maxCrawls, CrawlEventListener dispatch, Supplier<VisitedUrlStore> visitedUrlStoreFactory,
+                 Frontier frontier, int maxPendingTasks, CrawlMetrics metrics) {
         this.queueName = queueName;
+        this.crawlStatus = new CrawlStatus(visitedUrlStoreFactory);
         this.crawlersPool = crawlersPool;
+        this.taskDispatcher = taskDispatcher;
+        this.frontier = frontier;
+        this.maxPendingTasks = maxPendingTasks;
         this.uriFilter = filter;
         this.maxCrawls = maxCrawls;
         this.dispatch = dispatch;
-        List<URI> validSeeds = filterValidUrls(seeds.stream().map(URI::toString).collect(Collectors.toList()))
+        this.metrics = metrics;
+        registerGauges();
+        List<CrawlUrl> validSeeds = filterValidUrls(seeds.stream().map(URI::toString).collect(Collectors.toList()))
                 .stream()
                 .distinct()
+                .map(CrawlUrl::of)
                 .collect(Collectors.toList());
         this.seeds.addAll(validSeeds);
     }
 
-    public synchronized void start() {
-        submitTasks(seeds);
+    /**
+     * Record the progress in the checkpoint and, if given, continue the crawl from where resumeFrom was left.
+     * Must be invoked before {@link #start()}
+     *
+     * @param resumeFrom null to start from the seeds
+     */
+    public void checkpointTo(CheckpointWriter checkpoint, CrawlCheckpoint resumeFrom) {
+        this.checkpoint = checkpoint;
+        if (resumeFrom != null) {
+            resumeFrom.forEachCrawled(crawlStatus::restoreCrawled);
+            List<CrawlUrl> inProgress = resumeFrom.getInProgress().stream().map(CrawlUrl::fromAscii).collect(Collectors.toList());
+            //Crawled seeds are skipped as already visited
+            seeds.addAll(0, inProgress);
+            log.info("{} resumed: {} urls already crawled, {} in progress", queueName, resumeFrom.getCrawled(), inProgress.size());
+        }
+    }
+
+    /**
+     * Crawl also uris (e.g. from the sitemaps), after the seeds. They go straight to the frontier, so they're not kept in memory twice.
+     * Thread safe. Once the crawl is started, only while it's kept open with {@link #keepOpenUntil}
+     */
+    public void addSeeds(Collection<URI> uris) {
+        claimSeeds();
+        List<CrawlUrl> valid = filterValidUrls(uris.stream().map(URI::toString).collect(Collectors.toList()))
+                .stream()
+                .map(CrawlUrl::of)
+                .collect(Collectors.toList());
+        submitTasks(valid);
+    }
+
+    /**
+     * Urls discovered by the other partitions, already validated and filtered there
+     */
+    private void addReceived(List<CrawlUrl> urls) {
+        claimSeeds();
+        submitTasks(urls);
+    }
+
+    /**
+     * The crawl doesn't end before bootstrap completes, even with nothing left to crawl, so {@link #addSeeds} can be invoked until then.
+     * Must be invoked before {@link #start()}
+     */
+    public void keepOpenUntil(CompletableFuture<?> bootstrap) {
+        crawlStatus.hold();
+        bootstrap.whenComplete((result, e) -> {
+            //before the start, the crawl is ended by start() if there's nothing to crawl
+            if (crawlStatus.releaseTask() && isStarted()) {
+                shutdown();
+            }
+        });
+    }
+
+    /**
+     * Crawl only the urls owned by partition, the others are handed over to their owners. maxCrawls counts the pages crawled by every partition
+     * and the crawl ends when all of them are done. Must be invoked before {@link #start()} and before {@link #checkpointTo}
+     */
+    public void partitionWith(CrawlPartition partition) {
+        this.partition = partition;
+        crawlStatus.reserveSlotsFrom(partition::tryReserveCrawl);
+        keepOpenUntil(partition.completion());
+        partition.onReceived(this::addReceived);
+    }
+
+    public void start() {
+        claimSeeds();
+        synchronized (frontier) {
+            started = true;
+        }
+        //after the seeds are claimed: the crawl can't end before
+        if (partition != null) partition.started();
+        dispatchFromFrontier();
+        //Nothing left to crawl (e.g. resuming a completed crawl): there won't be any task completion to end it
+        if (crawlStatus.isCrawlCompleted()) {
+            shutdown();
+        }
     }
 
     @Override
     public void accept(CrawlResult result) {
         if (!result.isBlockedChain()) {
+            metrics.pageCrawled(countRedirects(result.getPageSnapshot()));
             notifyPageCrawled(result);
         } else {
             log.debug("Skipping crawl notification for {} because result is blockedChain: {}", result.getUri(), result.getChain());
@@ -62,121 +172,169 @@ class CrawlerQueue implements Consumer<CrawlResult> {
         onScanCompleted(result);
     }
 
-    private synchronized void onScanCompleted(CrawlResult crawlResult) {
+    private void onScanCompleted(CrawlResult crawlResult) {
         URI baseUri = URI.create(crawlResult.getUri());
 
         assertAbsolute(baseUri);
-        crawlStatus.markAsCrawled(baseUri);
-        enqueueDiscoveredLinks(crawlResult);
+        CrawlUrl url = CrawlUrl.of(baseUri);
+        crawlStatus.markAsCrawled(url);
+        synchronized (frontier) {
+            pendingTasks--;
+        }
 
-        if (crawlCompleted()) {
-            shutdown();
+        try {
+            enqueueDiscoveredLinks(crawlResult);
+            //After the discovered links: a page is recorded as crawled only once its links are recorded as claimed
+            if (checkpoint != null) checkpoint.crawled(url.toString());
+        } finally {
+            //The completed task made room for the next one (even when no link was discovered)
+            dispatchFromFrontier();
+            if (partition != null) partition.taskReleased();
+            //Discovered links are already in flight, so we can only get to zero when there is nothing else to crawl
+            if (crawlStatus.releaseTask()) {
+                shutdown();
+            }
         }
     }
 
-    private synchronized void enqueueDiscoveredLinks(CrawlResult crawlResult) {
+    private void enqueueDiscoveredLinks(CrawlResult crawlResult) {
 
         if (crawlResult.isBlockedChain()) return;
 
         PageSnapshot pageSnapshot = crawlResult.getPageSnapshot();
         String sourceUri = crawlResult.getUri();
 
-        List<URI> links = discoverLinks(pageSnapshot);
+        List<String> links = discoverLinks(pageSnapshot);
 
         log.debug("Scanned: {} links:{}", sourceUri, links.size());
 
         if (!links.isEmpty()) {
             URI destinationUri = getDestinationUri(pageSnapshot);
 
-            List<URI> newLinks = links.stream()
-                    .map(uri -> toAbsolute(destinationUri, uri))
-                    .filter(Objects::nonNull)
-                    .filter(uri -> uri.toString().length() < MAX_URL_LEN)
-                    .filter(uri -> uriFilter.shouldCrawl(destinationUri, uri))
-                    .filter(uri -> !alreadyVisited(uri))
-                    .distinct()
-                    .collect(Collectors.toList());
+            //distinct by URI: it ignores the case of hosts and escapes
+            Map<URI, CrawlUrl> newLinks = new LinkedHashMap<>();
+            for (String link : links) {
+                URI uri = toValidUri(destinationUri, link).orElse(null);
+                if (uri == null || uri.toString().length() >= MAX_URL_LEN || newLinks.containsKey(uri)) continue;
+
+                CrawlUrl url = CrawlUrl.of(uri);
+                if (!alreadyVisited(url) && uriFilter.shouldCrawl(destinationUri, uri)) {
+                    newLinks.put(uri, url);
+                }
+            }
 
-            submitTasks(newLinks);
+            submitTasks(new ArrayList<>(newLinks.values()));
         }
 
     }
 
-    private synchronized void submitTasks(List<URI> seeds) {
-        List<URI> allowedSeeds = calculateAllowedSeeds(seeds);
-        if (allowedSeeds.size() > 0) {
-            crawlStatus.addToInProgress(allowedSeeds);
-            allowedSeeds.stream()
-                    .map(uri -> new SnapshotTask(uri, this))
-                    .forEach(crawlersPool::accept);
-        }
+    private void submitTasks(List<CrawlUrl> urls) {
+        if (partition != null) urls = partition.route(urls);
+        claim(urls);
     }
 
-    private List<URI> discoverLinks(PageSnapshot snapshot) {
-        List<URI> ret = new ArrayList<>(filterValidPageLinks(snapshot.getLinks()));
+    private void claim(List<CrawlUrl> urls) {
+        if (urls.isEmpty()) return;
 
-        if (isCanonicalizedToDifferentUri(snapshot))
-            ret.addAll(filterValidUrls(snapshot.getCanonicals()));
-        return ret;
-    }
+        List<CrawlUrl> claimed = crawlStatus.addToInProgress(urls, this.maxCrawls);
+        if (partition != null) partition.tasksClaimed(claimed.size());
 
-    private List<URI> calculateAllowedSeeds(List<URI> seeds) {
+        if (claimed.size() < urls.size() && crawlStatus.isCrawlLimitReached()) {
+            LoggingUtils.logWarningOnce(this, log, "Unable to enqueue more URL. Max size exceeded for " + this.queueName);
+        }
 
-        int totUrlEnqueued = crawlStatus.getTotalEnqueued();
+        if (checkpoint != null) claimed.forEach(url -> checkpoint.claimed(url.toString()));
 
-        if (totUrlEnqueued >= this.maxCrawls) {
-            LoggingUtils.logWarningOnce(this, log, "Unable to enqueue more URL. Max size exceeded for " + this.queueName);
-            return Collections.emptyList();
+        synchronized (frontier) {
+            claimed.forEach(frontier::add);
+        }
+        dispatchFromFrontier();
+    }
+
+    /**
+     * The seeds come first in the frontier, whatever is added before the crawl starts.
+     * The seeds owned by other partitions are sent outside the lock: the owner might be sending its own seeds to this queue from another thread.
+     */
+    private void claimSeeds() {
+        List<CrawlUrl> others = new ArrayList<>();
+        synchronized (this) {
+            if (seedsClaimed) return;
+            seedsClaimed = true;
+            List<CrawlUrl> owned = new ArrayList<>(seeds.size());
+            for (CrawlUrl seed : seeds) {
+                if (partition == null || partition.isOwned(seed)) owned.add(seed);
+                else others.add(seed);
+            }
+            claim(owned);
+        }
+        if (!others.isEmpty()) submitTasks(others);
+    }
+
+    private boolean isStarted() {
+        synchronized (frontier) {
+            return started;
         }
+    }
 
-        if (seeds.size() + totUrlEnqueued >= this.maxCrawls) {
-            int remaining = this.maxCrawls - totUrlEnqueued;
-            return seeds.subList(0, remaining);
+    private void dispatchFromFrontier() {
+        while (true) {
+            CrawlUrl next;
+            synchronized (frontier) {
+                if (!started || pendingTasks >= maxPendingTasks) return;
+                next = frontier.poll();
+                if (next == null) return;
+                pendingTasks++;
+            }
+            //outside the lock: the dispatcher might run the task (and get back to this queue) on the current thread
+            taskDispatcher.accept(new SnapshotTask(next.toURI(), this));
         }
+    }
 
-        return seeds;
+    private List<String> discoverLinks(PageSnapshot snapshot) {
+        List<String> ret = new ArrayList<>();
+        if (snapshot.getLinks() != null) filterFollowablePageLinks(snapshot.getLinks()).forEach(link -> ret.add(link.getDestination()));
 
+        if (isCanonicalizedToDifferentUri(snapshot) && snapshot.getCanonicals() != null)
+            ret.addAll(snapshot.getCanonicals());
+        return ret;
     }
 
-    private synchronized boolean alreadyVisited(URI uri) {
-        return crawlStatus.isAlreadyVisited(uri);
+    private boolean alreadyVisited(CrawlUrl url) {
+        return crawlStatus.isAlreadyVisited(url);
     }
 
-    private static URI toAbsolute(URI sourceUri, URI uri) {
-        if (uri.isAbsolute()) return uri;
+    private static int countRedirects(PageSnapshot snapshot) {
+        List<?> chain = snapshot != null ? snapshot.getRedirectChainElements() : null;
+        return chain != null && !chain.isEmpty() ? chain.size() - 1 : 0;
+    }
 
-        String path = uri.toString();
-        if (containsUnicodeCharacters(path)) {
-            log.debug("Redirect destination {} contains non ASCII characters (as required by the standard)", path);
-            return LinkResolver.resolve(sourceUri, SafeStringEscaper.escapeString(path));
-        } else {
-            try {
-                return LinkResolver.resolve(sourceUri, path);
-            } catch (IllegalArgumentException e) {
-                log.warn("Error while converting to absolute '{}' (source: '{}'). {}", uri, sourceUri, e.getMessage());
-                return null;
+    private void registerGauges() {
+        metrics.gauge(CrawlMetrics.Gauge.FRONTIER_SIZE, () -> {
+            synchronized (frontier) {
+                return frontier.size();
             }
-        }
-
+        });
+        metrics.gauge(CrawlMetrics.Gauge.VISITED_URLS, crawlStatus::getVisitedUrls);
+        metrics.gauge(CrawlMetrics.Gauge.VISITED_URLS_MEMORY_BYTES, crawlStatus::getMemoryFootprint);
     }
 
     private static void assertAbsolute(URI uri) {
         if (!uri.isAbsolute()) throw new IllegalStateException("URI should be absolute or we risk to visit it twice.");
     }
 
-    private synchronized void notifyPageCrawled(CrawlResult crawlResult) {
+    private void notifyPageCrawled(CrawlResult crawlResult) {
         dispatch.pageCrawled(crawlResult);
     }
 
-    private synchronized void shutdown() {
-        if (!crawlShutdownInvoked) {
-            crawlShutdownInvoked = true;
+    private void shutdown() {
+        if (crawlShutdownInvoked.compareAndSet(false, true)) {
+            synchronized (frontier) {
+                frontier.close();
+            }
+            crawlStatus.close();
+            if (checkpoint != null) checkpoint.close();
             crawlersPool.shutDown();
             dispatch.crawlEnded();
         }
     }
-
-    private synchronized boolean crawlCompleted() {
-        return crawlStatus.isCrawlCompleted();
-    }
 }
\ No newline at end of file
@@ -1,11 +1,39 @@
 package com.myseotoolbox.crawler.spider;
 
+import lombok.extern.log4j.Log4j2;
+
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
+@Log4j2
 public class CrawlerThreadPoolExecutorFactory {
 
     private final AtomicInteger threadId = new AtomicInteger(0);
+    private final boolean virtualThreads;
+
+    public CrawlerThreadPoolExecutorFactory() {
+        this(false);
+    }
+
+    /**
+     * @param virtualThreads run every crawl task in its own virtual thread when the runtime supports them (Java 21+).
+     *                       Falls back to a pool of platform threads otherwise.
+     *                       On Java 21 the blocking client pins the carrier thread while jsoup reads the body: pair it with {@link com.myseotoolbox.crawler.httpclient.AsyncHttpRequestFactory}
+     */
+    public CrawlerThreadPoolExecutorFactory(boolean virtualThreads) {
+        if (virtualThreads && !VirtualThreadCrawlerExecutor.isSupported()) {
+            log.warn("Virtual threads are not supported by this runtime ({}). Using platform threads.", Runtime.version());
+            virtualThreads = false;
+        }
+        this.virtualThreads = virtualThreads;
+    }
+
+    public ExecutorService buildExecutor(String namePostfix, int concurrentConnections) {
+        if (virtualThreads) {
+            return new VirtualThreadCrawlerExecutor("crawler-" + namePostfix + "-", concurrentConnections);
+        }
+        return buildThreadPool(namePostfix, concurrentConnections);
+    }
 
     public ThreadPoolExecutor buildThreadPool(String namePostfix, int concurrentConnections) {
         ThreadFactory factory = r -> {
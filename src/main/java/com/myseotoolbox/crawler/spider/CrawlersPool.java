@@ -8,38 +8,148 @@ import lombok.extern.log4j.Log4j2;
 import org.jsoup.UnsupportedMimeTypeException;
 
 import java.net.URI;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
+/**
+ * Runs the snapshot tasks on the crawl executor.
+ * Keeps its own count of queued, active and completed tasks, so it works with any {@link ExecutorService}
+ * (including the virtual thread one that has no queue or pool size).
+ */
 @Log4j2
 public class CrawlersPool implements Consumer<SnapshotTask> {
 
-    private final ThreadPoolExecutor executor;
+    private final ExecutorService executor;
     private final WebPageReader pageReader;
+    private final Semaphore asyncRequests;
+    //non blocking mode only: tasks waiting for one of the async requests
+    private final Queue<SnapshotTask> waitingTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedTasks = new AtomicInteger(0);
+    private final AtomicInteger activeTasks = new AtomicInteger(0);
+    private final AtomicLong completedTasks = new AtomicLong(0);
+    private volatile boolean shutDownInvoked = false;
 
-    public CrawlersPool(WebPageReader pageReader, ThreadPoolExecutor executor) {
+    public CrawlersPool(WebPageReader pageReader, ExecutorService executor) {
         this.pageReader = pageReader;
         this.executor = executor;
+        this.asyncRequests = null;
+    }
+
+    /**
+     * Non blocking mode: the executor threads only send the requests, the pages are fetched with {@link WebPageReader#snapshotPageAsync(URI)}.
+     * The tasks wait in the pool (not on the executor) for one of the requests, so a single thread can keep all of them in flight.
+     *
+     * @param maxAsyncRequests max number of requests waiting for the server at the same time
+     */
+    public CrawlersPool(WebPageReader pageReader, ExecutorService executor, int maxAsyncRequests) {
+        this.pageReader = pageReader;
+        this.executor = executor;
+        this.asyncRequests = new Semaphore(maxAsyncRequests);
     }
 
     @Override
     public void accept(SnapshotTask task) {
         log.debug("Task submitted: {}", task.getUri());
+        queuedTasks.incrementAndGet();
+        if (asyncRequests != null) {
+            waitingTasks.add(task);
+            dispatchWaitingTasks();
+            return;
+        }
         executor.submit(() -> {
+            queuedTasks.decrementAndGet();
+            activeTasks.incrementAndGet();
             try {
                 try {
                     CrawlResult result = pageReader.snapshotPage(task.getUri());
                     task.getTaskRequester().accept(result);
                 } catch (SnapshotException e) {
-                    logException(e, task.getUri());
-                    task.getTaskRequester().accept(CrawlResult.forSnapshot(e.getPartialSnapshot()));
+                    onSnapshotException(task, e);
+                }
+            } catch (Exception e) {
+                log.error("Exception while crawling: " + task.getUri(), e);
+            } finally {
+                onTaskCompleted();
+            }
+        });
+    }
+
+    /**
+     * Hand the waiting tasks over to the executor while there are requests available.
+     * Called after every task added and every request released, so a task can't be left waiting with a request available.
+     */
+    private void dispatchWaitingTasks() {
+        while (!waitingTasks.isEmpty() && asyncRequests.tryAcquire()) {
+            SnapshotTask task = waitingTasks.poll();
+            if (task == null) {
+                //taken by a concurrent dispatch
+                asyncRequests.release();
+                return;
+            }
+            executor.submit(() -> {
+                queuedTasks.decrementAndGet();
+                activeTasks.incrementAndGet();
+                submitAsync(task);
+            });
+        }
+    }
+
+    private void releaseAsyncRequest() {
+        asyncRequests.release();
+        dispatchWaitingTasks();
+    }
+
+    private void submitAsync(SnapshotTask task) {
+        CompletableFuture<CrawlResult> future;
+        try {
+            future = pageReader.snapshotPageAsync(task.getUri());
+        } catch (Exception e) {
+            releaseAsyncRequest();
+            log.error("Exception while crawling: " + task.getUri(), e);
+            onTaskCompleted();
+            return;
+        }
+
+        future.whenComplete((result, throwable) -> {
+            //release before handing over the result: the requester might submit new tasks on this thread
+            releaseAsyncRequest();
+            try {
+                if (throwable == null) {
+                    task.getTaskRequester().accept(result);
+                } else if (unwrap(throwable) instanceof SnapshotException) {
+                    onSnapshotException(task, (SnapshotException) unwrap(throwable));
+                } else {
+                    log.error("Exception while crawling: " + task.getUri(), throwable);
                 }
             } catch (Exception e) {
                 log.error("Exception while crawling: " + task.getUri(), e);
+            } finally {
+                onTaskCompleted();
             }
         });
     }
 
+    private void onTaskCompleted() {
+        activeTasks.decrementAndGet();
+        completedTasks.incrementAndGet();
+    }
+
+    private void onSnapshotException(SnapshotTask task, SnapshotException e) {
+        logException(e, task.getUri());
+        task.getTaskRequester().accept(CrawlResult.forSnapshot(e.getPartialSnapshot()));
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+
     private void logException(SnapshotException e, URI uri) {
         if (e.getCause() instanceof UnsupportedMimeTypeException) {
             log.debug("Unable to crawl: {}. Exception: {}", uri, e.getMessage());
@@ -48,9 +158,32 @@ public class CrawlersPool implements Consumer<SnapshotTask> {
         }
     }
 
+    /**
+     * Tasks submitted but not started yet
+     */
+    public int getQueuedTasks() {
+        return queuedTasks.get();
+    }
+
+    /**
+     * Tasks being crawled, including the ones waiting for an async response
+     */
+    public int getActiveTasks() {
+        return activeTasks.get();
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks.get();
+    }
+
+    public boolean isShutDown() {
+        return shutDownInvoked;
+    }
+
     public void shutDown() {
         log.info("Shutting down executor {}", executor);
-        if (executor.getQueue().size() > 0) throw new IllegalStateException("Crawler terminated with pending tasks!");
+        if (queuedTasks.get() > 0) throw new IllegalStateException("Crawler terminated with pending tasks!");
+        shutDownInvoked = true;
         executor.shutdown();
     }
 }
@@ -1,26 +1,48 @@
 package com.myseotoolbox.crawler.spider;
 
+import com.myseotoolbox.crawler.metrics.CrawlMetrics;
 import com.myseotoolbox.crawler.spider.filter.BasicUriFilter;
-import com.myseotoolbox.crawler.spider.filter.FilterAggregator;
 import com.myseotoolbox.crawler.spider.filter.PathFilter;
+import com.myseotoolbox.crawler.spider.filter.RejectionCause;
+import com.myseotoolbox.crawler.spider.filter.UriFilterPipeline;
 import com.myseotoolbox.crawler.spider.filter.robotstxt.RobotsTxt;
 import lombok.extern.log4j.Log4j2;
 
 import java.net.URI;
 import java.util.List;
 
+/**
+ * Scheme first, then extension, host and path checks in the order measured to be the cheapest by {@link UriFilterPipeline}, then robots.txt.
+ */
 @Log4j2
 public class DefaultUriFilter implements UriFilter {
-    private final FilterAggregator aggregatedFilters;
+    private final UriFilterPipeline pipeline;
+    private final CrawlMetrics metrics;
 
     public DefaultUriFilter(URI origin, List<String> allowedPaths, RobotsTxt robotsTxt) {
+        this(origin, allowedPaths, robotsTxt, new CrawlMetrics());
+    }
+
+    /**
+     * @param metrics where the rejected links are counted, by cause
+     */
+    public DefaultUriFilter(URI origin, List<String> allowedPaths, RobotsTxt robotsTxt, CrawlMetrics metrics) {
         PathFilter pathFilter = new PathFilter(allowedPaths);
-        BasicUriFilter basicFilter = new BasicUriFilter(origin);
-        aggregatedFilters = new FilterAggregator(robotsTxt, basicFilter, pathFilter);
+        UriFilterPipeline.Builder pipeline = new BasicUriFilter(origin).addChecksTo(UriFilterPipeline.builder())
+                .check(RejectionCause.PATH, pathFilter::shouldCrawl);
+        //last: it can fetch the robots.txt of the host, only worth it for links we'd crawl
+        if (robotsTxt != null) pipeline.last(RejectionCause.ROBOTS, robotsTxt::shouldCrawl);
+        this.pipeline = pipeline.build();
+        this.metrics = metrics;
     }
 
     @Override
     public boolean shouldCrawl(URI sourceUri, URI discoveredLink) {
-        return aggregatedFilters.shouldCrawl(sourceUri, discoveredLink);
+        RejectionCause cause = pipeline.getRejectionCause(sourceUri, discoveredLink);
+        if (cause != null) {
+            metrics.linkRejected(cause);
+            log.debug("Blocked: {} sourceUri: {} discoveredLink: {}", cause, sourceUri, discoveredLink);
+        }
+        return cause == null;
     }
 }
@@ -1,17 +1,12 @@
 package com.myseotoolbox.crawler.spider;
 
-import com.google.common.escape.Escaper;
-import com.google.common.net.UrlEscapers;
 import com.myseotoolbox.crawler.pagelinks.PageLink;
-import com.myseotoolbox.crawler.utils.RemoveUrlFragment;
-import com.myseotoolbox.crawler.utils.UrlDecoder;
+import com.myseotoolbox.crawler.utils.LinkResolver;
+import com.myseotoolbox.crawler.utils.UrlNormalizer;
 import lombok.extern.log4j.Log4j2;
 
-import javax.annotation.Nullable;
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URLDecoder;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -23,7 +18,6 @@ import static com.myseotoolbox.crawler.utils.UriUtils.isValidUri;
 public class PageLinksHelper {
 
     public static final int MAX_URL_LEN = 1000;
-    private static final Escaper ESCAPER = UrlEscapers.urlFragmentEscaper();
 
     public static List<PageLink> filterFollowablePageLinks(List<PageLink> links) {
         return links.stream().filter(PageLinksHelper::isFollowable).collect(Collectors.toList());
@@ -72,34 +66,25 @@ public class PageLinksHelper {
             return Optional.empty();
         }
 
-        str = RemoveUrlFragment.removeFragment(str);
-        str = str.trim();
+        String normalized = UrlNormalizer.normalize(str);
+        if (normalized == null) {
+            log.debug("Invalid or empty link: '{}'", str);
+            return Optional.empty();
+        }
 
         try {
-            String decoded = UrlDecoder.decode(str);
-            String transCoded = ESCAPER.escape(decoded);
-
-            URI uri = new URI(transCoded);
-            if (isEmptyLink(uri)) return Optional.empty();
-
-            return Optional.of(uri);
-        } catch (URISyntaxException  e) {
+            return Optional.of(new URI(normalized));
+        } catch (URISyntaxException e) {
             log.debug("Invalid link: '{}'. {}", str, e.getMessage());
             return Optional.empty();
         }
-
-
     }
 
-    private static boolean isEmptyLink(@Nullable URI uri) {
-        if (uri == null) return false;
-        try {
-            String s = URLDecoder.decode(uri.toString(), "UTF-8");
-            s = s.trim();
-            return s.length() == 0;
-        } catch (UnsupportedEncodingException e) {
-            return false;
-        }
+    /**
+     * @return the link resolved against the sourceUri, if valid
+     */
+    public static Optional<URI> toValidUri(URI sourceUri, String str) {
+        return toValidUri(str).map(uri -> uri.isAbsolute() ? uri : LinkResolver.resolve(sourceUri, uri));
     }
 
 }
@@ -0,0 +1,136 @@
+package com.myseotoolbox.crawler.spider;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts a virtual thread per task. The concurrency of the crawl is limited by a semaphore instead of the size of a pool,
+ * so hundreds of crawl jobs can run in the same JVM without owning thousands of platform threads.
+ * <p>
+ * Virtual threads are looked up reflectively so the library still builds and runs on the Java 17 toolchain.
+ */
+class VirtualThreadCrawlerExecutor extends AbstractExecutorService {
+
+    private static final ThreadFactoryBuilder VIRTUAL_THREAD_FACTORY = lookupVirtualThreadFactory();
+
+    private final ThreadFactory threadFactory;
+    private final Semaphore permits;
+    private final Object lock = new Object();
+    private int runningTasks = 0;
+    private boolean shutdown = false;
+
+    VirtualThreadCrawlerExecutor(String namePrefix, int concurrency) {
+        if (!isSupported()) throw new UnsupportedOperationException("Virtual threads are not supported by this runtime: " + Runtime.version());
+        this.threadFactory = VIRTUAL_THREAD_FACTORY.build(namePrefix);
+        this.permits = new Semaphore(concurrency);
+    }
+
+    static boolean isSupported() {
+        return VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        synchronized (lock) {
+            if (shutdown) throw new RejectedExecutionException("Executor has been shut down");
+            runningTasks++;
+        }
+
+        threadFactory.newThread(() -> {
+            try {
+                permits.acquire();
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                onTaskCompleted();
+            }
+        }).start();
+    }
+
+    private void onTaskCompleted() {
+        synchronized (lock) {
+            runningTasks--;
+            if (runningTasks == 0) lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+        }
+    }
+
+    /**
+     * Tasks already started are not interrupted, it only prevents new ones from being submitted
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        synchronized (lock) {
+            return shutdown;
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        synchronized (lock) {
+            return shutdown && runningTasks == 0;
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            while (!(shutdown && runningTasks == 0)) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) return false;
+                lock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    private interface ThreadFactoryBuilder {
+        ThreadFactory build(String namePrefix);
+    }
+
+    // Thread.ofVirtual().name(namePrefix, 0).factory()
+    private static ThreadFactoryBuilder lookupVirtualThreadFactory() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            Method factory = builderClass.getMethod("factory");
+            //Preview runtimes (19, 20) throw here unless started with --enable-preview
+            factory.invoke(ofVirtual.invoke(null));
+            return namePrefix -> {
+                try {
+                    Object builder = name.invoke(ofVirtual.invoke(null), namePrefix, 0L);
+                    return (ThreadFactory) factory.invoke(builder);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Unable to create virtual thread factory", e);
+                }
+            };
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.myseotoolbox.crawler.spider.checkpoint;
+
+import lombok.extern.log4j.Log4j2;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Appends the progress of the crawl to the checkpoint file: every url claimed and every url crawled.
+ * <p>
+ * Records are buffered and synced to disk every checkpoint interval, so a crash loses at most the last interval of work.
+ * A url is always recorded as claimed before the page linking to it is recorded as crawled:
+ * whatever is lost gets discovered again when the page is crawled again.
+ */
+@Log4j2
+@ThreadSafe
+public class CheckpointWriter implements Closeable {
+
+    static final int MAGIC = 0x43524b50;
+    static final byte VERSION = 1;
+    static final byte CLAIMED = 'C';
+    static final byte CRAWLED = 'D';
+
+    private final Path file;
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final long intervalNanos;
+    private long lastSync = System.nanoTime();
+    private boolean closed = false;
+
+    private CheckpointWriter(Path file, FileChannel channel, Duration interval) {
+        this.file = file;
+        this.channel = channel;
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+        this.intervalNanos = interval.toNanos();
+    }
+
+    /**
+     * Start a new checkpoint, replacing the file if it exists
+     */
+    public static CheckpointWriter create(Path file, URI origin, Duration interval) {
+        try {
+            FileChannel channel = FileChannel.open(file, WRITE, CREATE, TRUNCATE_EXISTING);
+            CheckpointWriter writer = new CheckpointWriter(file, channel, interval);
+            writer.out.writeInt(MAGIC);
+            writer.out.writeByte(VERSION);
+            writer.out.writeUTF(origin.toString());
+            writer.sync();
+            return writer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create checkpoint " + file, e);
+        }
+    }
+
+    /**
+     * Keep appending to the checkpoint we resumed from. A record partially written before the crash is dropped.
+     */
+    public static CheckpointWriter resume(CrawlCheckpoint checkpoint, Duration interval) {
+        Path file = checkpoint.getFile();
+        try {
+            FileChannel channel = FileChannel.open(file, WRITE);
+            channel.truncate(checkpoint.getValidLength());
+            channel.position(checkpoint.getValidLength());
+            return new CheckpointWriter(file, channel, interval);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to resume checkpoint " + file, e);
+        }
+    }
+
+    public synchronized void claimed(String url) {
+        append(CLAIMED, url);
+    }
+
+    public synchronized void crawled(String url) {
+        append(CRAWLED, url);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        try (FileChannel ignored = channel) {
+            sync();
+        } catch (IOException e) {
+            log.warn("Unable to close checkpoint {}. Exception: {}", file, e.getMessage());
+        }
+    }
+
+    private void append(byte type, String url) {
+        if (closed) return;
+        try {
+            out.writeByte(type);
+            out.writeUTF(url);
+            if (System.nanoTime() - lastSync >= intervalNanos) sync();
+        } catch (IOException e) {
+            //The crawl goes on, we'd only lose the ability to resume it
+            log.error("Unable to write checkpoint {}. Checkpointing disabled for this crawl. Exception: {}", file, e.getMessage());
+            closed = true;
+        }
+    }
+
+    private void sync() throws IOException {
+        out.flush();
+        channel.force(false);
+        lastSync = System.nanoTime();
+    }
+}
@@ -0,0 +1,160 @@
+package com.myseotoolbox.crawler.spider.checkpoint;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static com.myseotoolbox.crawler.spider.checkpoint.CheckpointWriter.CLAIMED;
+import static com.myseotoolbox.crawler.spider.checkpoint.CheckpointWriter.CRAWLED;
+import static com.myseotoolbox.crawler.spider.checkpoint.CheckpointWriter.MAGIC;
+import static com.myseotoolbox.crawler.spider.checkpoint.CheckpointWriter.VERSION;
+
+/**
+ * State of a crawl as recorded by the {@link CheckpointWriter}: the urls already crawled and the ones claimed but not crawled yet.
+ * <p>
+ * Only the in progress urls are kept in memory, the crawled ones are streamed from the file by {@link #forEachCrawled}.
+ */
+public class CrawlCheckpoint {
+
+    private final Path file;
+    private final URI origin;
+    private final List<String> inProgress;
+    private final long crawled;
+    private final long validLength;
+
+    private CrawlCheckpoint(Path file, URI origin, List<String> inProgress, long crawled, long validLength) {
+        this.file = file;
+        this.origin = origin;
+        this.inProgress = inProgress;
+        this.crawled = crawled;
+        this.validLength = validLength;
+    }
+
+    public static CrawlCheckpoint read(Path file) {
+        Set<String> inProgress = new LinkedHashSet<>();
+        long[] crawled = {0};
+        try (CheckpointReader reader = new CheckpointReader(file)) {
+            URI origin = reader.readHeader();
+            reader.forEachRecord((type, url) -> {
+                if (type == CLAIMED) {
+                    inProgress.add(url);
+                } else {
+                    inProgress.remove(url);
+                    crawled[0]++;
+                }
+            });
+            return new CrawlCheckpoint(file, origin, new ArrayList<>(inProgress), crawled[0], reader.position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read checkpoint " + file, e);
+        }
+    }
+
+    /**
+     * Stream the urls already crawled
+     */
+    public void forEachCrawled(Consumer<String> consumer) {
+        try (CheckpointReader reader = new CheckpointReader(file)) {
+            reader.readHeader();
+            reader.forEachRecord((type, url) -> {
+                if (type == CRAWLED) consumer.accept(url);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read checkpoint " + file, e);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public URI getOrigin() {
+        return origin;
+    }
+
+    /**
+     * @return the urls claimed but not crawled yet, in the order they were claimed
+     */
+    public List<String> getInProgress() {
+        return inProgress;
+    }
+
+    public long getCrawled() {
+        return crawled;
+    }
+
+    long getValidLength() {
+        return validLength;
+    }
+
+    private interface RecordConsumer {
+        void accept(byte type, String url);
+    }
+
+    private static class CheckpointReader implements AutoCloseable {
+        private final Path file;
+        private final DataInputStream in;
+        private long position = 0;
+
+        CheckpointReader(Path file) throws IOException {
+            this.file = file;
+            InputStream stream = Files.newInputStream(file);
+            this.in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024));
+        }
+
+        URI readHeader() throws IOException {
+            if (in.readInt() != MAGIC) throw new IOException(file + " is not a crawl checkpoint");
+            byte version = in.readByte();
+            if (version != VERSION) throw new IOException("Unsupported checkpoint version " + version);
+            String origin = in.readUTF();
+            position = Integer.BYTES + 1 + utfLength(origin);
+            return URI.create(origin);
+        }
+
+        /**
+         * Stops at the end of the last complete record: the one after might have been cut by a crash
+         */
+        void forEachRecord(RecordConsumer consumer) throws IOException {
+            while (true) {
+                byte type;
+                String url;
+                try {
+                    type = in.readByte();
+                    url = in.readUTF();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (type != CLAIMED && type != CRAWLED) throw new IOException("Corrupted checkpoint " + file + " at " + position);
+                consumer.accept(type, url);
+                position += 1 + utfLength(url);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        //Length of DataOutput.writeUTF
+        private static long utfLength(String s) {
+            long length = 2;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c >= 0x0001 && c <= 0x007F) length += 1;
+                else if (c > 0x07FF) length += 3;
+                else length += 2;
+            }
+            return length;
+        }
+    }
+}
@@ -4,58 +4,63 @@ import com.myseotoolbox.crawler.spider.UriFilter;
 import lombok.extern.log4j.Log4j2;
 
 import java.net.URI;
+import java.util.Arrays;
 import java.util.regex.Pattern;
 
-import static com.myseotoolbox.crawler.spider.filter.WebsiteOriginUtils.*;
-
 @Log4j2
 public class BasicUriFilter implements UriFilter {
-    private static final Pattern INVALID_EXTENSIONS = Pattern.compile(".*\\.(?:css|js|bmp|gif|jpe?g|png|tiff?|mid|mp2|mp3|mp4|wav|avi|mov|mpeg|ram|m4v|pdf|rm|smil|wmv|swf|wma|zip|rar|gz)$");
+    private static final ExtensionMatcher INVALID_EXTENSIONS = new ExtensionMatcher(Arrays.asList(
+            "css", "js", "bmp", "gif", "jpg", "jpeg", "png", "tif", "tiff", "mid", "mp2", "mp3", "mp4", "wav", "avi", "mov", "mpeg",
+            "ram", "m4v", "pdf", "rm", "smil", "wmv", "swf", "wma", "zip", "rar", "gz"));
     private static final Pattern VALID_SCHEME = Pattern.compile("(?:http|https)$");
 
 
-    private final URI websiteOrigin;
+    private final Origin websiteOrigin;
 
     public BasicUriFilter(URI websiteOrigin) {
-        this.websiteOrigin = websiteOrigin;
-
+        this.websiteOrigin = Origin.of(websiteOrigin);
     }
 
     @Override
     public boolean shouldCrawl(URI sourceUri, URI discoveredLink) {
-
-        boolean valid = validScheme(discoveredLink) && validExtension(discoveredLink) && validHost(sourceUri, discoveredLink);
-
-        if (!valid && log.isDebugEnabled()) {
-            log.debug("Blocked: {} origin:{} sourceUri: {} discoveredLink: {}",
-                    getFilterCause(validScheme(discoveredLink), validExtension(discoveredLink), validHost(sourceUri, discoveredLink)),
-                    websiteOrigin,
-                    sourceUri,
-                    discoveredLink);
+        RejectionCause cause = getRejectionCause(sourceUri, discoveredLink);
+        if (cause != null) {
+            log.debug("Blocked: {} origin:{} sourceUri: {} discoveredLink: {}", cause, websiteOrigin, sourceUri, discoveredLink);
         }
-
-        return valid;
-
+        return cause == null;
     }
 
-    private String getFilterCause(boolean scheme, boolean extension, boolean host) {
-        return (!scheme ? "SCH " : "") + (!extension ? "EXT " : "") + (!host ? "HOST " : "");
+    /**
+     * @return the first check failed by the link, null if it should be crawled
+     */
+    public RejectionCause getRejectionCause(URI sourceUri, URI discoveredLink) {
+        if (!validScheme(sourceUri, discoveredLink)) return RejectionCause.SCH;
+        if (!validExtension(sourceUri, discoveredLink)) return RejectionCause.EXT;
+        if (!validHost(sourceUri, discoveredLink)) return RejectionCause.HOST;
+        return null;
     }
 
-    private boolean validExtension(URI str) {
-        return !INVALID_EXTENSIONS.matcher(str.toString().toLowerCase()).matches();
+    /**
+     * Each check on its own, for {@link UriFilterPipeline}. The scheme is checked first: the other checks, and the ones added later, can
+     * expect http links (e.g. with a path)
+     */
+    public UriFilterPipeline.Builder addChecksTo(UriFilterPipeline.Builder pipeline) {
+        return pipeline
+                .first(RejectionCause.SCH, this::validScheme)
+                .check(RejectionCause.EXT, this::validExtension)
+                .check(RejectionCause.HOST, this::validHost);
     }
 
-    private boolean validHost(URI sourceUri, URI discoveredLink) {
-        return isHostMatching(websiteOrigin, discoveredLink, false) ||
-                isHostMatching(websiteOrigin, sourceUri, true) && areSubdomainsWithOrigin(discoveredLink);
+    private boolean validExtension(URI sourceUri, URI discoveredLink) {
+        return !INVALID_EXTENSIONS.matches(discoveredLink.toString());
     }
 
-    private boolean areSubdomainsWithOrigin(URI discoveredLink) {
-        return areSubdomains(websiteOrigin, discoveredLink, true);
+    private boolean validHost(URI sourceUri, URI discoveredLink) {
+        return websiteOrigin.isHostMatching(discoveredLink, false) ||
+                websiteOrigin.isHostMatching(sourceUri, true) && websiteOrigin.areSubdomains(discoveredLink);
     }
 
-    private boolean validScheme(URI discoveredLink) {
+    private boolean validScheme(URI sourceUri, URI discoveredLink) {
         String scheme = discoveredLink.getScheme();
         return scheme != null && VALID_SCHEME.matcher(scheme).matches();
     }
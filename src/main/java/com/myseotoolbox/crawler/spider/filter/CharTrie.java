@@ -0,0 +1,47 @@
+package com.myseotoolbox.crawler.spider.filter;
+
+import java.util.Arrays;
+
+/**
+ * Node of an immutable-once-built trie of chars. Children are looked up with a linear scan: tries here have a handful of
+ * children per node, so it's faster than hashing and doesn't box the chars.
+ */
+final class CharTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final CharTrie[] NO_CHILDREN = new CharTrie[0];
+
+    private char[] keys = NO_KEYS;
+    private CharTrie[] children = NO_CHILDREN;
+    private boolean terminal;
+
+    /**
+     * @return the child for c, null if none
+     */
+    CharTrie next(char c) {
+        char[] keys = this.keys;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == c) return children[i];
+        }
+        return null;
+    }
+
+    boolean isTerminal() {
+        return terminal;
+    }
+
+    void markTerminal() {
+        terminal = true;
+    }
+
+    CharTrie add(char c) {
+        CharTrie child = next(c);
+        if (child != null) return child;
+        child = new CharTrie();
+        keys = Arrays.copyOf(keys, keys.length + 1);
+        children = Arrays.copyOf(children, children.length + 1);
+        keys[keys.length - 1] = c;
+        children[children.length - 1] = child;
+        return child;
+    }
+}
@@ -0,0 +1,37 @@
+package com.myseotoolbox.crawler.spider.filter;
+
+import java.util.Collection;
+
+/**
+ * Matches strings ending with a dot followed by one of the extensions, ignoring ASCII case.
+ * <p>
+ * The extensions are stored reversed in a {@link CharTrie}, so a string is matched walking back from its last char,
+ * reading only as many chars as the longest extension plus one.
+ */
+final class ExtensionMatcher {
+
+    private final CharTrie reversed = new CharTrie();
+
+    ExtensionMatcher(Collection<String> extensions) {
+        for (String extension : extensions) {
+            if (extension.isEmpty()) throw new IllegalArgumentException("Empty extension");
+            CharTrie node = reversed;
+            for (int i = extension.length() - 1; i >= 0; i--) node = node.add(toLowerCase(extension.charAt(i)));
+            node.markTerminal();
+        }
+    }
+
+    boolean matches(CharSequence s) {
+        CharTrie node = reversed;
+        for (int i = s.length() - 1; i > 0; i--) {
+            node = node.next(toLowerCase(s.charAt(i)));
+            if (node == null) return false;
+            if (node.isTerminal() && s.charAt(i - 1) == '.') return true;
+        }
+        return false;
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -3,20 +3,24 @@ package com.myseotoolbox.crawler.spider.filter;
 import com.myseotoolbox.crawler.spider.UriFilter;
 
 import java.net.URI;
-import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Crawl the links accepted by all the predicates. Stops at the first one rejecting the link. See {@link UriFilterPipeline} to order them by cost.
+ */
 public class FilterAggregator implements UriFilter {
-    private final List<UriFilter> predicates;
+    private final UriFilter[] predicates;
 
     public FilterAggregator(UriFilter... predicates) {
-        this.predicates = Stream.of(predicates).filter(Objects::nonNull).collect(Collectors.toList());
+        this.predicates = Stream.of(predicates).filter(Objects::nonNull).toArray(UriFilter[]::new);
     }
 
     @Override
     public boolean shouldCrawl(URI sourceUri, URI discoveredLink) {
-        return predicates.stream().allMatch(uriPredicate -> uriPredicate.shouldCrawl(sourceUri, discoveredLink));
+        for (UriFilter predicate : predicates) {
+            if (!predicate.shouldCrawl(sourceUri, discoveredLink)) return false;
+        }
+        return true;
     }
 }
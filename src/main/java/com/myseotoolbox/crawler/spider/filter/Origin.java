@@ -0,0 +1,117 @@
+package com.myseotoolbox.crawler.spider.filter;
+
+import javax.annotation.concurrent.Immutable;
+import java.net.URI;
+
+/**
+ * Host and port of a website, normalized once so that the links can be compared to it without allocating.
+ * <p>
+ * Hosts are compared ignoring case, and port 80 is the same as no port.
+ */
+@Immutable
+public final class Origin {
+
+    private static final String WWW = "www.";
+    private static final int NO_PORT = -1;
+
+    private final String host;
+    private final int port;
+    private final int wwwLength;
+
+    private Origin(String host, int port) {
+        this.host = host;
+        this.port = port;
+        this.wwwLength = wwwLength(host);
+    }
+
+    public static Origin of(URI uri) {
+        return new Origin(hostOf(uri).toLowerCase(), portOf(uri));
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return the port, -1 if none or 80
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @param strictWww when false, www.host matches host and viceversa
+     */
+    public boolean isHostMatching(URI uri, boolean strictWww) {
+        String other = hostOf(uri);
+        return port == portOf(uri) && hostsMatch(host, strictWww ? 0 : wwwLength, other, strictWww ? 0 : wwwLength(other));
+    }
+
+    /**
+     * @return true if the host of uri is a subdomain of this one, e.g. sub.host of host
+     */
+    public boolean isSubdomain(URI uri) {
+        return port == portOf(uri) && isSubdomain(host, hostOf(uri));
+    }
+
+    /**
+     * @return true if either host is a subdomain of the other
+     */
+    public boolean areSubdomains(URI uri) {
+        String other = hostOf(uri);
+        return port == portOf(uri) && (isSubdomain(host, other) || isSubdomain(other, host));
+    }
+
+    static boolean isHostMatching(URI a, URI b, boolean strictWww) {
+        String hostA = hostOf(a);
+        String hostB = hostOf(b);
+        return portOf(a) == portOf(b) && hostsMatch(hostA, strictWww ? 0 : wwwLength(hostA), hostB, strictWww ? 0 : wwwLength(hostB));
+    }
+
+    static boolean isSubdomain(URI parent, URI child) {
+        return portOf(parent) == portOf(child) && isSubdomain(hostOf(parent), hostOf(child));
+    }
+
+    private static boolean hostsMatch(String a, int fromA, String b, int fromB) {
+        int len = a.length() - fromA;
+        return len == b.length() - fromB && a.regionMatches(true, fromA, b, fromB, len);
+    }
+
+    private static boolean isSubdomain(String parent, String child) {
+        int dot = child.length() - parent.length() - 1;
+        return dot >= 0 && child.charAt(dot) == '.' && child.regionMatches(true, dot + 1, parent, 0, parent.length());
+    }
+
+    private static int wwwLength(String host) {
+        return host.regionMatches(true, 0, WWW, 0, WWW.length()) ? WWW.length() : 0;
+    }
+
+    private static String hostOf(URI uri) {
+        //can be null in case of mailto:
+        String host = uri.getHost();
+        return host != null ? host : "";
+    }
+
+    private static int portOf(URI uri) {
+        int port = uri.getPort();
+        return port == 80 ? NO_PORT : port;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Origin origin = (Origin) o;
+        return port == origin.port && host.equals(origin.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * host.hashCode() + port;
+    }
+
+    @Override
+    public String toString() {
+        return port == NO_PORT ? host : host + ":" + port;
+    }
+}
@@ -1,6 +1,5 @@
 package com.myseotoolbox.crawler.spider.filter;
 
-import com.myseotoolbox.crawler.spider.PathMatcher;
 import com.myseotoolbox.crawler.spider.UriFilter;
 import lombok.extern.log4j.Log4j2;
 
@@ -11,12 +10,12 @@ import java.util.stream.Collectors;
 @Log4j2
 public class PathFilter implements UriFilter {
 
-    private final List<String> allowedPaths;
+    private final PathPrefixMatcher allowedPaths;
 
     public PathFilter(List<String> allowedPaths) {
-        this.allowedPaths = allowedPaths.stream()
+        this.allowedPaths = new PathPrefixMatcher(allowedPaths.stream()
                 .map(this::validatePath)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     private String validatePath(String s) {
@@ -26,7 +25,8 @@ public class PathFilter implements UriFilter {
     }
 
     private boolean isWithinAllowedPaths(String path) {
-        return allowedPaths.stream().anyMatch(s -> PathMatcher.isSubPath(s, path));
+        //null for opaque links, e.g. mailto:
+        return path != null && allowedPaths.matches(path);
     }
 
     @Override
@@ -0,0 +1,91 @@
+package com.myseotoolbox.crawler.spider.filter;
+
+import com.myseotoolbox.crawler.spider.PathMatcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.myseotoolbox.crawler.spider.configuration.AllowedPathFromSeeds.extractAllowedPathFromSeed;
+
+/**
+ * Matches the paths within any of the allowed paths, as {@link PathMatcher#isSubPath} does for each of them, in a single scan of the path.
+ * <p>
+ * The segments of the allowed paths are stored in a {@link CharTrie}, each one followed by a '/'. Empty segments are
+ * ignored, as AntPathMatcher does. Allowed paths with Ant wildcards are still matched by {@link PathMatcher}.
+ */
+final class PathPrefixMatcher {
+
+    private static final char SEPARATOR = '/';
+
+    private final CharTrie segments = new CharTrie();
+    private final List<String> wildcardPaths = new ArrayList<>();
+
+    PathPrefixMatcher(Collection<String> allowedPaths) {
+        for (String allowedPath : allowedPaths) {
+            String basePath = extractAllowedPathFromSeed(allowedPath);
+            if (hasWildcards(basePath)) {
+                wildcardPaths.add(basePath);
+            } else {
+                add(basePath);
+            }
+        }
+    }
+
+    boolean matches(String path) {
+        if (path == null) return false;
+        return matchesPrefix(path) || matchesWildcards(path);
+    }
+
+    private void add(String basePath) {
+        CharTrie node = segments;
+        int len = basePath.length();
+        for (int i = 0; i < len; i++) {
+            char c = basePath.charAt(i);
+            if (c == SEPARATOR) {
+                if (i > 0 && basePath.charAt(i - 1) != SEPARATOR) node = node.add(SEPARATOR);
+            } else {
+                node = node.add(c);
+            }
+        }
+        if (len > 0 && basePath.charAt(len - 1) != SEPARATOR) node = node.add(SEPARATOR);
+        node.markTerminal();
+    }
+
+    private boolean matchesPrefix(String path) {
+        if (!path.isEmpty() && path.charAt(0) != SEPARATOR) return false;
+        CharTrie node = segments;
+        if (node.isTerminal()) return true;
+        boolean inSegment = false;
+        int len = path.length();
+        for (int i = 0; i < len; i++) {
+            char c = path.charAt(i);
+            if (c == SEPARATOR) {
+                if (!inSegment) continue;
+                inSegment = false;
+            } else {
+                inSegment = true;
+            }
+            node = node.next(c);
+            if (node == null) return false;
+            if (!inSegment && node.isTerminal()) return true;
+        }
+        //the last segment isn't followed by a separator
+        if (inSegment) {
+            node = node.next(SEPARATOR);
+            return node != null && node.isTerminal();
+        }
+        return false;
+    }
+
+    private boolean matchesWildcards(String path) {
+        for (String wildcardPath : wildcardPaths) {
+            if (PathMatcher.isSubPath(wildcardPath, path)) return true;
+        }
+        return false;
+    }
+
+    private static boolean hasWildcards(String path) {
+        return path.indexOf('*') >= 0 || path.indexOf('?') >= 0 || path.indexOf('{') >= 0;
+    }
+}
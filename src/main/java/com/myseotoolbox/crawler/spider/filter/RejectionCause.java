@@ -0,0 +1,27 @@
+package com.myseotoolbox.crawler.spider.filter;
+
+/**
+ * Why a discovered link is not crawled
+ */
+public enum RejectionCause {
+    /**
+     * Not http or https
+     */
+    SCH,
+    /**
+     * Extension of a resource we don't crawl (images, scripts, documents...)
+     */
+    EXT,
+    /**
+     * Host outside the crawl origin
+     */
+    HOST,
+    /**
+     * Path outside the ones allowed by the seeds
+     */
+    PATH,
+    /**
+     * Disallowed by robots.txt
+     */
+    ROBOTS
+}
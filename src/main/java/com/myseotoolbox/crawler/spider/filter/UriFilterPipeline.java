@@ -0,0 +1,198 @@
+package com.myseotoolbox.crawler.spider.filter;
+
+import com.myseotoolbox.crawler.spider.UriFilter;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the checks of a link in the order that rejects it with the least work, stopping at the first check that rejects it.
+ * <p>
+ * One link every sampleInterval is run through all the checks, timing each of them: every reorderInterval samples the checks
+ * are sorted by average cost over rejection rate (cheap and selective first). The checks added with {@link Builder#first} and
+ * {@link Builder#last} are never sampled nor moved: the first ones guard the others (e.g. only http links have a path),
+ * the last ones are too expensive to run on every link (e.g. the ones that can do I/O).
+ * <p>
+ * A link failing more than one check is rejected by the first one in the current order. The order starts as declared.
+ */
+@ThreadSafe
+public final class UriFilterPipeline implements UriFilter {
+
+    static final int DEFAULT_SAMPLE_INTERVAL = 64;
+    static final int DEFAULT_REORDER_INTERVAL = 64;
+    //keeps a check that never rejected a sample from dividing by zero, and behind the ones that did
+    private static final double MIN_REJECTIONS = 1e-4;
+
+    public interface Check {
+        boolean accepts(URI sourceUri, URI discoveredLink);
+    }
+
+    private final Stage[] leading;
+    private final Stage[] fixed;
+    private final int sampleInterval;
+    private final int reorderInterval;
+    private final AtomicLong samples = new AtomicLong();
+    private volatile Stage[] order;
+
+    private UriFilterPipeline(List<Stage> leading, List<Stage> reordered, List<Stage> fixed, int sampleInterval, int reorderInterval) {
+        this.leading = leading.toArray(new Stage[0]);
+        this.order = reordered.toArray(new Stage[0]);
+        this.fixed = fixed.toArray(new Stage[0]);
+        this.sampleInterval = sampleInterval;
+        this.reorderInterval = reorderInterval;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public boolean shouldCrawl(URI sourceUri, URI discoveredLink) {
+        return getRejectionCause(sourceUri, discoveredLink) == null;
+    }
+
+    /**
+     * @return the cause of the first check failed by the link, null if it should be crawled
+     */
+    public RejectionCause getRejectionCause(URI sourceUri, URI discoveredLink) {
+        Stage rejectedBy = firstRejecting(leading, sourceUri, discoveredLink);
+        if (rejectedBy == null) {
+            Stage[] stages = this.order;
+            rejectedBy = sampleInterval == 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0 ?
+                    sample(stages, sourceUri, discoveredLink) :
+                    firstRejecting(stages, sourceUri, discoveredLink);
+        }
+
+        if (rejectedBy == null) rejectedBy = firstRejecting(fixed, sourceUri, discoveredLink);
+        if (rejectedBy == null) return null;
+        rejectedBy.rejections.increment();
+        return rejectedBy.cause;
+    }
+
+    /**
+     * Current order of the checks
+     */
+    public List<RejectionCause> getOrder() {
+        List<RejectionCause> causes = new ArrayList<>();
+        for (Stage stage : leading) causes.add(stage.cause);
+        for (Stage stage : order) causes.add(stage.cause);
+        for (Stage stage : fixed) causes.add(stage.cause);
+        return causes;
+    }
+
+    /**
+     * Links rejected by each check
+     */
+    public Map<RejectionCause, Long> getRejections() {
+        Map<RejectionCause, Long> rejections = new EnumMap<>(RejectionCause.class);
+        for (Stage stage : leading) rejections.merge(stage.cause, stage.rejections.sum(), Long::sum);
+        for (Stage stage : order) rejections.merge(stage.cause, stage.rejections.sum(), Long::sum);
+        for (Stage stage : fixed) rejections.merge(stage.cause, stage.rejections.sum(), Long::sum);
+        return rejections;
+    }
+
+    private static Stage firstRejecting(Stage[] stages, URI sourceUri, URI discoveredLink) {
+        for (Stage stage : stages) {
+            if (!stage.check.accepts(sourceUri, discoveredLink)) return stage;
+        }
+        return null;
+    }
+
+    //runs all the stages, so the rejection rate of each of them doesn't depend on the ones before
+    private Stage sample(Stage[] stages, URI sourceUri, URI discoveredLink) {
+        Stage first = null;
+        for (Stage stage : stages) {
+            long start = System.nanoTime();
+            boolean accepted = stage.check.accepts(sourceUri, discoveredLink);
+            stage.sampledNanos.add(System.nanoTime() - start);
+            if (!accepted) {
+                stage.sampledRejections.increment();
+                if (first == null) first = stage;
+            }
+        }
+        if (samples.incrementAndGet() % reorderInterval == 0) reorder();
+        return first;
+    }
+
+    private synchronized void reorder() {
+        Stage[] sorted = Arrays.copyOf(order, order.length);
+        //sampled together: the number of samples is the same for every stage
+        Arrays.sort(sorted, Comparator.comparingDouble(Stage::rank));
+        order = sorted;
+    }
+
+    private static class Stage {
+        private final RejectionCause cause;
+        private final Check check;
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder sampledNanos = new LongAdder();
+        private final LongAdder sampledRejections = new LongAdder();
+
+        Stage(RejectionCause cause, Check check) {
+            this.cause = cause;
+            this.check = check;
+        }
+
+        //expected cost of rejecting a link with this stage
+        double rank() {
+            long rejected = sampledRejections.sum();
+            long nanos = sampledNanos.sum();
+            return nanos / Math.max(rejected, MIN_REJECTIONS);
+        }
+    }
+
+    public static class Builder {
+        private final List<Stage> leading = new ArrayList<>();
+        private final List<Stage> reordered = new ArrayList<>();
+        private final List<Stage> fixed = new ArrayList<>();
+        private int sampleInterval = DEFAULT_SAMPLE_INTERVAL;
+        private int reorderInterval = DEFAULT_REORDER_INTERVAL;
+
+        private Builder() {
+        }
+
+        public Builder check(RejectionCause cause, Check check) {
+            reordered.add(new Stage(cause, check));
+            return this;
+        }
+
+        /**
+         * Run check before all the others, in the order they're added. The others only see the links it accepts (e.g. a check on the scheme)
+         */
+        public Builder first(RejectionCause cause, Check check) {
+            leading.add(new Stage(cause, check));
+            return this;
+        }
+
+        /**
+         * Run check after all the others, in the order they're added (e.g. checks doing I/O, only worth it for links we'd crawl)
+         */
+        public Builder last(RejectionCause cause, Check check) {
+            fixed.add(new Stage(cause, check));
+            return this;
+        }
+
+        /**
+         * @param sampleInterval  one link every sampleInterval is timed through all the checks
+         * @param reorderInterval samples between two reorders
+         */
+        Builder sampling(int sampleInterval, int reorderInterval) {
+            this.sampleInterval = sampleInterval;
+            this.reorderInterval = reorderInterval;
+            return this;
+        }
+
+        public UriFilterPipeline build() {
+            return new UriFilterPipeline(leading, reordered, fixed, sampleInterval, reorderInterval);
+        }
+    }
+}
@@ -26,8 +26,7 @@ public class WebsiteOriginUtils {
     }
 
     public static boolean areSubdomains(URI uri1, URI uri2, boolean bidirectional) {
-        return concatHostPort(uri2).endsWith("." + concatHostPort(uri1)) ||
-                bidirectional && concatHostPort(uri1).endsWith("." + concatHostPort(uri2));
+        return Origin.isSubdomain(uri1, uri2) || bidirectional && Origin.isSubdomain(uri2, uri1);
     }
 
 
@@ -36,19 +35,10 @@ public class WebsiteOriginUtils {
     }
 
     /**
-     * Non strict will match www.host to host and viceversa
+     * Non strict will match www.host to host and viceversa. See {@link Origin} to compare many uris to the same one.
      */
     public static boolean isHostMatching(URI a, URI b, boolean strictWww) {
-        String hostA = concatHostPort(a);
-        String hostB = concatHostPort(b);
-
-        if (!strictWww) {
-            hostA = hostA.replaceAll("^www\\.", "");
-            hostB = hostB.replaceAll("^www\\.", "");
-        }
-
-
-        return hostA.equals(hostB);
+        return Origin.isHostMatching(a, b, strictWww);
     }
 
     public static boolean isSameOrigin(URI base, URI compare, boolean strictWww) {
@@ -79,15 +69,6 @@ public class WebsiteOriginUtils {
         return host.toLowerCase() + portStr;
     }
 
-    private static String concatHostPort(URI uri) {
-        String portStr = "";
-        if (uri.getPort() != -1 && uri.getPort() != 80) {
-            portStr = "" + uri.getPort();
-        }
-        String host = extractHost(uri);
-        return host.toLowerCase() + portStr;
-    }
-
     private static String extractHost(URI uri) {
         //can be null in case of mailto: (for some reason I don't understand)
         return uri.getHost() != null ? uri.getHost() : "";
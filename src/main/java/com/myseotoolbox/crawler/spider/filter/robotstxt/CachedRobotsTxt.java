@@ -0,0 +1,50 @@
+package com.myseotoolbox.crawler.spider.filter.robotstxt;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Applies to every link the robots.txt of its own host: subdomains of the website are filtered with theirs,
+ * fetched through the {@link RobotsTxtCache} the first time one of their links is filtered.
+ * <p>
+ * Sitemaps and crawl delay are the ones of the website origin, fetched when this is built.
+ */
+public class CachedRobotsTxt implements RobotsTxt {
+
+    private final URI origin;
+    private final RobotsTxtCache cache;
+    private final RobotsTxt originRobotsTxt;
+
+    public CachedRobotsTxt(URI origin, RobotsTxtCache cache) {
+        this.origin = origin;
+        this.cache = cache;
+        this.originRobotsTxt = cache.get(origin);
+    }
+
+    @Override
+    public boolean shouldCrawl(URI sourceUri, URI discoveredLink) {
+        return robotsTxtOf(discoveredLink).shouldCrawl(sourceUri, discoveredLink);
+    }
+
+    @Override
+    public List<String> getSitemaps() {
+        return originRobotsTxt.getSitemaps();
+    }
+
+    @Override
+    public long getCrawlDelayMillis() {
+        return originRobotsTxt.getCrawlDelayMillis();
+    }
+
+    private RobotsTxt robotsTxtOf(URI link) {
+        //most links are on the origin: no lookup for them
+        if (link.getPort() == origin.getPort() && equalsIgnoreCase(link.getHost(), origin.getHost()) && equalsIgnoreCase(link.getScheme(), origin.getScheme())) {
+            return originRobotsTxt;
+        }
+        return cache.get(link);
+    }
+
+    private static boolean equalsIgnoreCase(String a, String b) {
+        return a == null ? b == null : a.equalsIgnoreCase(b);
+    }
+}
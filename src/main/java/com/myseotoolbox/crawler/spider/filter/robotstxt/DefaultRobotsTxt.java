@@ -1,5 +1,6 @@
 package com.myseotoolbox.crawler.spider.filter.robotstxt;
 
+import crawlercommons.robots.BaseRobotRules;
 import crawlercommons.robots.SimpleRobotRules;
 import crawlercommons.robots.SimpleRobotRulesParser;
 import lombok.extern.log4j.Log4j2;
@@ -30,4 +31,10 @@ public class DefaultRobotsTxt implements RobotsTxt {
     public List<String> getSitemaps() {
         return this.robotRules.getSitemaps();
     }
+
+    @Override
+    public long getCrawlDelayMillis() {
+        long crawlDelay = robotRules.getCrawlDelay();
+        return crawlDelay != BaseRobotRules.UNSET_CRAWL_DELAY ? Math.max(0, crawlDelay) : 0;
+    }
 }
@@ -25,4 +25,9 @@ public class EmptyRobotsTxt implements RobotsTxt {
     public boolean shouldCrawl(URI sourceUri, URI discoveredLink) {
         return true;
     }
+
+    @Override
+    public long getCrawlDelayMillis() {
+        return 0;
+    }
 }
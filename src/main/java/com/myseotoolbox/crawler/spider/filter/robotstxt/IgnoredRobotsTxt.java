@@ -8,7 +8,11 @@ public class IgnoredRobotsTxt implements RobotsTxt {
     private final RobotsTxt robotsTxt;
 
     public IgnoredRobotsTxt(String websiteOrigin, byte[] content) {
-        this.robotsTxt = new DefaultRobotsTxt(websiteOrigin, content);
+        this(new DefaultRobotsTxt(websiteOrigin, content));
+    }
+
+    public IgnoredRobotsTxt(RobotsTxt robotsTxt) {
+        this.robotsTxt = robotsTxt;
     }
 
     @Override
@@ -20,4 +24,10 @@ public class IgnoredRobotsTxt implements RobotsTxt {
     public boolean shouldCrawl(URI sourceUri, URI discoveredLink) {
         return true;
     }
+
+    @Override
+    public long getCrawlDelayMillis() {
+        //robots.txt rules, crawl delay included, are ignored
+        return 0;
+    }
 }
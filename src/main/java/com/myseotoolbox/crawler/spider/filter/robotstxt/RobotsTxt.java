@@ -6,4 +6,9 @@ import java.util.List;
 
 public interface RobotsTxt extends UriFilter {
     List<String> getSitemaps();
+
+    /**
+     * @return Crawl-delay for our bot, 0 if not set
+     */
+    long getCrawlDelayMillis();
 }
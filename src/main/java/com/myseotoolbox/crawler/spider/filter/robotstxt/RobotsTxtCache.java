@@ -0,0 +1,150 @@
+package com.myseotoolbox.crawler.spider.filter.robotstxt;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.myseotoolbox.crawler.httpclient.HTTPClient;
+import com.myseotoolbox.crawler.httpclient.HttpStatusException;
+import lombok.extern.log4j.Log4j2;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsed robots.txt by scheme, host and port, shared by all the crawl jobs of the process.
+ * <p>
+ * Each robots.txt is fetched on the first request for its host: concurrent requests for the same host wait for the same fetch.
+ * Entries expire ttl after being fetched and the least recently used are evicted past maxSize.
+ * A missing robots.txt (any 4xx but 429) allows everything, as per RFC 9309, and is cached as an {@link EmptyRobotsTxt} for the whole ttl.
+ * A robots.txt that can't be fetched is cached the same way but for a shorter failureTtl, so a network error,
+ * a server error or a 429 doesn't make every job ignore the robots.txt of the host for a whole ttl.
+ */
+@Log4j2
+@ThreadSafe
+public class RobotsTxtCache {
+
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+    //RFC 9309: robots.txt should not be cached for more than 24 hours
+    public static final Duration DEFAULT_TTL = Duration.ofHours(24);
+    public static final Duration DEFAULT_FAILURE_TTL = Duration.ofMinutes(5);
+
+    interface Fetcher {
+        /**
+         * @throws HttpStatusException if the server didn't answer with 200
+         */
+        byte[] fetch(URI robotsTxt) throws IOException;
+    }
+
+    private final Fetcher fetcher;
+    private final Ticker ticker;
+    private final long failureTtlNanos;
+    private final LoadingCache<String, Entry> cache;
+
+    public static RobotsTxtCache shared() {
+        return Shared.INSTANCE;
+    }
+
+    public RobotsTxtCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, DEFAULT_FAILURE_TTL);
+    }
+
+    /**
+     * @param failureTtl how long a robots.txt that couldn't be fetched is cached (as allowing everything), instead of ttl
+     */
+    public RobotsTxtCache(int maxSize, Duration ttl, Duration failureTtl) {
+        this(maxSize, ttl, failureTtl, httpFetcher(new HTTPClient()), Ticker.systemTicker());
+    }
+
+    RobotsTxtCache(int maxSize, Duration ttl, Fetcher fetcher, Ticker ticker) {
+        this(maxSize, ttl, DEFAULT_FAILURE_TTL, fetcher, ticker);
+    }
+
+    RobotsTxtCache(int maxSize, Duration ttl, Duration failureTtl, Fetcher fetcher, Ticker ticker) {
+        this.fetcher = fetcher;
+        this.ticker = ticker;
+        this.failureTtlNanos = Math.min(failureTtl.toNanos(), ttl.toNanos());
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl.toNanos(), TimeUnit.NANOSECONDS)
+                .ticker(ticker)
+                .build(CacheLoader.from(this::fetch));
+    }
+
+    /**
+     * @return robots.txt of the scheme, host and port of uri
+     */
+    public RobotsTxt get(URI uri) {
+        String origin = originOf(uri);
+        Entry entry = cache.getUnchecked(origin);
+        if (entry.isExpired(ticker.read())) {
+            //a failed fetch past its failureTtl. Removed only if nobody did it already, so concurrent requests still share the next fetch
+            cache.asMap().remove(origin, entry);
+            entry = cache.getUnchecked(origin);
+        }
+        return entry.robotsTxt;
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * @return scheme://host[:port] with the default port omitted, so the same origin always gets the same key
+     */
+    static String originOf(URI uri) {
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "http";
+        String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : "";
+        int port = uri.getPort();
+        boolean defaultPort = port == -1 || port == 80 && scheme.equals("http") || port == 443 && scheme.equals("https");
+        return scheme + "://" + host + (defaultPort ? "" : ":" + port);
+    }
+
+    private Entry fetch(String origin) {
+        try {
+            return new Entry(new DefaultRobotsTxt(origin, fetcher.fetch(URI.create(origin + "/robots.txt"))), Long.MAX_VALUE);
+        } catch (IOException e) {
+            if (isMissing(e)) {
+                log.debug("No robots.txt for {}. Error: {}", origin, e.toString());
+                return new Entry(new EmptyRobotsTxt(URI.create(origin)), Long.MAX_VALUE);
+            }
+            log.debug("Unable to fetch robots.txt for {}. Error: {}", origin, e.toString());
+            return new Entry(new EmptyRobotsTxt(URI.create(origin)), ticker.read() + failureTtlNanos);
+        }
+    }
+
+    private static boolean isMissing(IOException e) {
+        if (!(e instanceof HttpStatusException)) return false;
+        int status = ((HttpStatusException) e).getStatusCode();
+        return status >= 400 && status < 500 && status != 429;
+    }
+
+    private static class Entry {
+        private final RobotsTxt robotsTxt;
+        //ticker nanos, only for the failed fetches. The others (missing robots.txt included) expire with the cache ttl
+        private final long expiresAt;
+
+        Entry(RobotsTxt robotsTxt, long expiresAt) {
+            this.robotsTxt = robotsTxt;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+        }
+    }
+
+    //created on first use only
+    private static class Shared {
+        private static final RobotsTxtCache INSTANCE = new RobotsTxtCache(DEFAULT_MAX_SIZE, DEFAULT_TTL);
+    }
+
+    private static Fetcher httpFetcher(HTTPClient httpClient) {
+        return robotsTxt -> httpClient.get(robotsTxt).getBytes(StandardCharsets.UTF_8);
+    }
+}
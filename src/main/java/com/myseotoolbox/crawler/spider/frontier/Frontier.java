@@ -0,0 +1,32 @@
+package com.myseotoolbox.crawler.spider.frontier;
+
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
+
+import java.io.Closeable;
+
+/**
+ * FIFO of the urls waiting to be crawled.
+ * <p>
+ * Implementations are not required to be thread safe, callers are expected to synchronize access.
+ */
+public interface Frontier extends Closeable {
+
+    void add(CrawlUrl url);
+
+    /**
+     * @return the oldest url, null if empty
+     */
+    CrawlUrl poll();
+
+    long size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Release the resources. The frontier can't be used anymore.
+     */
+    @Override
+    void close();
+}
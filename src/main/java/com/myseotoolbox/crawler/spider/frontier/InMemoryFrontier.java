@@ -0,0 +1,31 @@
+package com.myseotoolbox.crawler.spider.frontier;
+
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+public class InMemoryFrontier implements Frontier {
+
+    private final Queue<CrawlUrl> urls = new ArrayDeque<>();
+
+    @Override
+    public void add(CrawlUrl url) {
+        urls.add(url);
+    }
+
+    @Override
+    public CrawlUrl poll() {
+        return urls.poll();
+    }
+
+    @Override
+    public long size() {
+        return urls.size();
+    }
+
+    @Override
+    public void close() {
+        urls.clear();
+    }
+}
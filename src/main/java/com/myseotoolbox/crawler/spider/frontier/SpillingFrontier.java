@@ -0,0 +1,170 @@
+package com.myseotoolbox.crawler.spider.frontier;
+
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+
+import static com.myseotoolbox.crawler.utils.TemporaryFiles.deleteOrDeleteOnExit;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Keeps up to maxInMemory urls on the heap. The overflow is appended to memory mapped segment files
+ * and read back in batches once the urls in memory have been crawled, so the heap used doesn't grow with the crawl.
+ * <p>
+ * Entries are length prefixed ASCII, copied straight from the bytes of the {@link CrawlUrl}. A segment file is deleted as soon as it has been read entirely,
+ * the ones left on {@link #close()}. Where the OS doesn't delete a mapped file (Windows) they're deleted on exit.
+ * <p>
+ * Not thread safe.
+ */
+@Log4j2
+public class SpillingFrontier implements Frontier {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private final Path directory;
+    private final int maxInMemory;
+    private final int segmentSize;
+    private final Queue<CrawlUrl> memory = new ArrayDeque<>();
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private long spilled = 0;
+
+    public SpillingFrontier(Path directory, int maxInMemory) {
+        this(directory, maxInMemory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    SpillingFrontier(Path directory, int maxInMemory, int segmentSize) {
+        if (maxInMemory < 1) throw new IllegalArgumentException("maxInMemory must be positive: " + maxInMemory);
+        this.directory = directory;
+        this.maxInMemory = maxInMemory;
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public void add(CrawlUrl url) {
+        //Once something is on disk, new urls go after it, or we'd lose the FIFO order
+        if (spilled == 0 && memory.size() < maxInMemory) {
+            memory.add(url);
+        } else {
+            spill(url);
+        }
+    }
+
+    @Override
+    public CrawlUrl poll() {
+        if (memory.isEmpty() && spilled > 0) refill();
+        return memory.poll();
+    }
+
+    @Override
+    public long size() {
+        return memory.size() + spilled;
+    }
+
+    /**
+     * @return urls currently on disk
+     */
+    public long getSpilled() {
+        return spilled;
+    }
+
+    @Override
+    public void close() {
+        memory.clear();
+        deleteSegments();
+        spilled = 0;
+    }
+
+    private void spill(CrawlUrl url) {
+        Segment last = segments.peekLast();
+        if (last == null || !last.hasRoomFor(url.length())) {
+            last = mapSegment(Math.max(segmentSize, Segment.entrySize(url.length())));
+            segments.add(last);
+            if (segments.size() > 1) log.debug("Frontier spilled to {} segments", segments.size());
+        }
+        last.write(url);
+        spilled++;
+    }
+
+    private void refill() {
+        while (memory.size() < maxInMemory && spilled > 0) {
+            Segment first = segments.peek();
+            if (!first.hasNext()) {
+                //fully read, we'll never write in it again as there's a following one
+                segments.poll().delete();
+                continue;
+            }
+            memory.add(first.next());
+            spilled--;
+        }
+        if (spilled == 0) deleteSegments();
+    }
+
+    private void deleteSegments() {
+        while (!segments.isEmpty()) segments.poll().delete();
+    }
+
+    private Segment mapSegment(int size) {
+        Path file = null;
+        try {
+            file = Files.createTempFile(directory, "frontier", ".seg");
+            try (FileChannel channel = FileChannel.open(file, READ, WRITE)) {
+                //The mapping stays valid after the channel is closed
+                return new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        } catch (IOException e) {
+            if (file != null) deleteOrDeleteOnExit(file);
+            throw new UncheckedIOException("Unable to map frontier segment in " + directory, e);
+        }
+    }
+
+    private static class Segment {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private int writePosition = 0;
+        private int readPosition = 0;
+
+        Segment(Path file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        static int entrySize(int length) {
+            return Integer.BYTES + length;
+        }
+
+        boolean hasRoomFor(int length) {
+            return buffer.capacity() - writePosition >= entrySize(length);
+        }
+
+        void write(CrawlUrl url) {
+            buffer.putInt(writePosition, url.length());
+            url.writeTo(buffer, writePosition + Integer.BYTES);
+            writePosition += entrySize(url.length());
+        }
+
+        boolean hasNext() {
+            return readPosition < writePosition;
+        }
+
+        CrawlUrl next() {
+            int length = buffer.getInt(readPosition);
+            CrawlUrl url = CrawlUrl.fromAscii(buffer, readPosition + Integer.BYTES, length);
+            readPosition += entrySize(length);
+            return url;
+        }
+
+        void delete() {
+            deleteOrDeleteOnExit(file);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.myseotoolbox.crawler.spider.model;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import javax.annotation.concurrent.Immutable;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * Url of the crawl in its ASCII form, compact enough to keep millions of them in the frontier: one byte per char, the offsets
+ * of the path, and the hash and the fingerprint computed once. The {@link URI} is created only when the url is handed over to
+ * the crawlers, with {@link #toURI()}.
+ * <p>
+ * hashCode and fingerprint are the ones of the url String, so visited url stores can be queried with either.
+ */
+@Immutable
+public final class CrawlUrl {
+
+    private static final HashFunction FINGERPRINT = Hashing.murmur3_128();
+
+    private final byte[] ascii;
+    //[pathStart, pathEnd), pathStart is -1 for opaque urls (e.g. mailto:)
+    private final int pathStart;
+    private final int pathEnd;
+    private final int hash;
+    private final long fingerprintKey;
+    private final long fingerprintCheck;
+
+    private CrawlUrl(byte[] ascii) {
+        this.ascii = ascii;
+
+        int h = 0;
+        Hasher fingerprint = FINGERPRINT.newHasher(ascii.length * 2);
+        for (byte b : ascii) {
+            h = 31 * h + b;
+            //as hashUnencodedChars(String) does for each char
+            fingerprint.putChar((char) b);
+        }
+        this.hash = h;
+        HashCode code = fingerprint.hash();
+        this.fingerprintKey = code.asLong();
+        this.fingerprintCheck = ByteBuffer.wrap(code.asBytes()).getLong(Long.BYTES);
+
+        int i = schemeEnd(ascii);
+        if (i + 1 < ascii.length && ascii[i] == '/' && ascii[i + 1] == '/') {
+            i += 2;
+            while (i < ascii.length && ascii[i] != '/' && ascii[i] != '?' && ascii[i] != '#') i++;
+        } else if (i > 0 && (i == ascii.length || ascii[i] != '/')) {
+            i = -1;
+        }
+        this.pathStart = i;
+        if (i >= 0) {
+            while (i < ascii.length && ascii[i] != '?' && ascii[i] != '#') i++;
+        }
+        this.pathEnd = i;
+    }
+
+    public static CrawlUrl of(URI uri) {
+        return fromAscii(uri.toASCIIString());
+    }
+
+    /**
+     * @throws IllegalArgumentException if url is not ASCII
+     */
+    public static CrawlUrl fromAscii(String url) {
+        byte[] ascii = new byte[url.length()];
+        for (int i = 0; i < ascii.length; i++) {
+            char c = url.charAt(i);
+            if (c >= 0x80) throw new IllegalArgumentException("Non ASCII char in url: '" + url + "'");
+            ascii[i] = (byte) c;
+        }
+        return new CrawlUrl(ascii);
+    }
+
+    /**
+     * Read back a url written with {@link #writeTo}
+     *
+     * @throws IllegalArgumentException if the bytes are not ASCII
+     */
+    public static CrawlUrl fromAscii(ByteBuffer buffer, int index, int length) {
+        byte[] ascii = new byte[length];
+        buffer.get(index, ascii);
+        for (byte b : ascii) {
+            if (b < 0) throw new IllegalArgumentException("Non ASCII byte in url: " + b);
+        }
+        return new CrawlUrl(ascii);
+    }
+
+    /**
+     * Write the {@link #length()} bytes of the url at index, without moving the position of the buffer
+     */
+    public void writeTo(ByteBuffer buffer, int index) {
+        buffer.put(index, ascii);
+    }
+
+    public int length() {
+        return ascii.length;
+    }
+
+    /**
+     * @return the raw path, as {@link URI#getRawPath()}
+     */
+    public String getRawPath() {
+        return pathStart < 0 ? null : new String(ascii, pathStart, pathEnd - pathStart, ISO_8859_1);
+    }
+
+    /**
+     * First 64 bits of the murmur3 128 bit fingerprint of the url
+     */
+    public long getFingerprintKey() {
+        return fingerprintKey;
+    }
+
+    /**
+     * Last 64 bits of the murmur3 128 bit fingerprint of the url
+     */
+    public long getFingerprintCheck() {
+        return fingerprintCheck;
+    }
+
+    public URI toURI() {
+        return URI.create(toString());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CrawlUrl other = (CrawlUrl) o;
+        return hash == other.hash && Arrays.equals(ascii, other.ascii);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return new String(ascii, ISO_8859_1);
+    }
+
+    //index after the ':' of the scheme, 0 if none
+    private static int schemeEnd(byte[] ascii) {
+        for (int i = 0; i < ascii.length; i++) {
+            byte b = ascii[i];
+            if (b == ':') return i + 1;
+            if (b == '/' || b == '?' || b == '#') return 0;
+        }
+        return 0;
+    }
+}
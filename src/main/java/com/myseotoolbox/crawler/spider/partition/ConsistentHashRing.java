@@ -0,0 +1,86 @@
+package com.myseotoolbox.crawler.spider.partition;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Assigns each url to a partition by hashing its path on a ring of virtual nodes.
+ * <p>
+ * Every partition owns {@link #VIRTUAL_NODES} points of the ring, so the urls are spread evenly and
+ * changing the number of partitions only moves the urls of the partitions added or removed.
+ * <p>
+ * Immutable, the same number of partitions always gives the same assignment on any node.
+ */
+public final class ConsistentHashRing {
+
+    static final int VIRTUAL_NODES = 128;
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final int partitions;
+    //sorted points of the ring and the partition owning each of them
+    private final long[] points;
+    private final int[] owners;
+
+    public ConsistentHashRing(int partitions) {
+        if (partitions < 1) throw new IllegalArgumentException("partitions should be at least 1. Was: " + partitions);
+        this.partitions = partitions;
+
+        long[][] nodes = new long[partitions * VIRTUAL_NODES][];
+        for (int partition = 0; partition < partitions; partition++) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                long point = HASH.hashString("partition-" + partition + "#" + i, StandardCharsets.UTF_8).asLong();
+                nodes[partition * VIRTUAL_NODES + i] = new long[]{point, partition};
+            }
+        }
+        Arrays.sort(nodes, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        this.points = new long[nodes.length];
+        this.owners = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            points[i] = nodes[i][0];
+            owners[i] = (int) nodes[i][1];
+        }
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * @return the partition owning the path of uri. Uris with the same ASCII form always get the same partition
+     */
+    public int partitionOf(URI uri) {
+        if (partitions == 1) return 0;
+        String path = uri.getRawPath();
+        if (path != null && !CharMatcher.ascii().matchesAllOf(path)) {
+            path = URI.create(uri.toASCIIString()).getRawPath();
+        }
+        return ownerOfPath(path);
+    }
+
+    /**
+     * @return the same partition as {@link #partitionOf(URI)} for the URI of url
+     */
+    public int partitionOf(CrawlUrl url) {
+        if (partitions == 1) return 0;
+        return ownerOfPath(url.getRawPath());
+    }
+
+    private int ownerOfPath(String path) {
+        if (path == null || path.isEmpty()) path = "/";
+        return ownerOf(HASH.hashString(path, StandardCharsets.UTF_8).asLong());
+    }
+
+    private int ownerOf(long hash) {
+        int i = Arrays.binarySearch(points, hash);
+        if (i < 0) i = -i - 1;
+        //past the last point: wraps around to the first
+        return owners[i == points.length ? 0 : i];
+    }
+}
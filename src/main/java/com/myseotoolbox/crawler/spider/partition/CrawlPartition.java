@@ -0,0 +1,133 @@
+package com.myseotoolbox.crawler.spider.partition;
+
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
+import com.myseotoolbox.crawler.spider.visited.FingerprintVisitedUrlStore;
+import com.myseotoolbox.crawler.spider.visited.VisitedUrlStore;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * One of the partitions a crawl is split into: it crawls the urls it owns on the {@link ConsistentHashRing}
+ * and hands the others over to their owners through the transport.
+ * <p>
+ * Each url is claimed only by its owner, so the visited urls of the whole crawl are consistent without being shared.
+ * The urls already sent are remembered (up to {@link #MAX_SENT_URLS}, then forgotten all at once), so a link found on every page is sent only once.
+ */
+@ThreadSafe
+public final class CrawlPartition {
+
+    static final int MAX_SENT_URLS = 1 << 18;
+
+    private final PartitionTransport transport;
+    private final int partition;
+    private final ConsistentHashRing ring;
+    //guarded by this
+    private VisitedUrlStore sent = FingerprintVisitedUrlStore.onHeap();
+
+    public CrawlPartition(PartitionTransport transport, int partition) {
+        if (partition < 0 || partition >= transport.getPartitions()) {
+            throw new IllegalArgumentException("Partition " + partition + " out of range [0, " + transport.getPartitions() + ")");
+        }
+        this.transport = transport;
+        this.partition = partition;
+        this.ring = new ConsistentHashRing(transport.getPartitions());
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    /**
+     * @return number of partitions the crawl is split into
+     */
+    public int getPartitions() {
+        return ring.getPartitions();
+    }
+
+    public boolean isOwned(CrawlUrl url) {
+        return ring.partitionOf(url) == partition;
+    }
+
+    /**
+     * @return the urls owned by this partition. The others are sent to their owners.
+     */
+    public List<CrawlUrl> route(List<CrawlUrl> urls) {
+        if (ring.getPartitions() == 1) return urls;
+        List<CrawlUrl> owned = new ArrayList<>(urls.size());
+        Map<Integer, List<String>> others = new HashMap<>();
+        for (CrawlUrl url : urls) {
+            int owner = ring.partitionOf(url);
+            if (owner == partition) owned.add(url);
+            else if (markSent(url)) others.computeIfAbsent(owner, p -> new ArrayList<>()).add(url.toString());
+        }
+        others.forEach((owner, sent) -> {
+            //released by the owner once it has claimed them
+            transport.acquire(1);
+            transport.send(owner, sent);
+        });
+        return owned;
+    }
+
+    /**
+     * @return false if url was already sent. Sending it again would be a no-op: its owner claims it only once
+     */
+    private boolean markSent(CrawlUrl url) {
+        synchronized (this) {
+            if (sent.size() >= MAX_SENT_URLS) sent = FingerprintVisitedUrlStore.onHeap();
+            return sent.add(url);
+        }
+    }
+
+    /**
+     * @param receiver claims the urls sent to this partition by the others, before returning
+     */
+    public void onReceived(Consumer<List<CrawlUrl>> receiver) {
+        transport.subscribe(partition, urls -> {
+            try {
+                List<CrawlUrl> received = new ArrayList<>(urls.size());
+                for (String url : urls) received.add(CrawlUrl.fromAscii(url));
+                receiver.accept(received);
+            } finally {
+                transport.release(1);
+            }
+        });
+    }
+
+    public boolean tryReserveCrawl(int maxCrawls) {
+        return transport.tryReserveCrawl(maxCrawls);
+    }
+
+    /**
+     * Must be invoked before the claimed tasks can complete
+     */
+    public void tasksClaimed(int tasks) {
+        if (tasks > 0) transport.acquire(tasks);
+    }
+
+    /**
+     * After the links discovered by the task have been routed
+     */
+    public void taskReleased() {
+        transport.release(1);
+    }
+
+    /**
+     * After the seeds of this partition have been claimed
+     */
+    public void started() {
+        transport.release(1);
+    }
+
+    /**
+     * Completed when the whole crawl, across all the partitions, is completed
+     */
+    public CompletableFuture<Void> completion() {
+        return transport.completion();
+    }
+}
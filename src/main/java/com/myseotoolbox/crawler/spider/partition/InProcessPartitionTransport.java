@@ -0,0 +1,90 @@
+package com.myseotoolbox.crawler.spider.partition;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Partitions of a crawl running in the same JVM (e.g. in tests, or to split a crawl across independent connection pools).
+ * The urls are delivered on the thread sending them.
+ */
+@ThreadSafe
+public class InProcessPartitionTransport implements PartitionTransport {
+
+    private final int partitions;
+    private final AtomicInteger reservedCrawls = new AtomicInteger();
+    private final AtomicInteger inProgress;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    //guarded by this
+    private final Map<Integer, Consumer<List<String>>> receivers = new HashMap<>();
+    private final Map<Integer, List<List<String>>> undelivered = new HashMap<>();
+
+    public InProcessPartitionTransport(int partitions) {
+        if (partitions < 1) throw new IllegalArgumentException("partitions should be at least 1. Was: " + partitions);
+        this.partitions = partitions;
+        this.inProgress = new AtomicInteger(partitions);
+    }
+
+    @Override
+    public int getPartitions() {
+        return partitions;
+    }
+
+    @Override
+    public void send(int partition, List<String> urls) {
+        Consumer<List<String>> receiver;
+        synchronized (this) {
+            receiver = receivers.get(partition);
+            if (receiver == null) {
+                undelivered.computeIfAbsent(partition, p -> new ArrayList<>()).add(urls);
+                return;
+            }
+        }
+        receiver.accept(urls);
+    }
+
+    @Override
+    public void subscribe(int partition, Consumer<List<String>> receiver) {
+        List<List<String>> pending;
+        synchronized (this) {
+            if (receivers.putIfAbsent(partition, receiver) != null) {
+                throw new IllegalStateException("Partition " + partition + " already subscribed");
+            }
+            pending = undelivered.remove(partition);
+        }
+        if (pending != null) pending.forEach(receiver);
+    }
+
+    @Override
+    public boolean tryReserveCrawl(int maxCrawls) {
+        while (true) {
+            int cur = reservedCrawls.get();
+            if (cur >= maxCrawls) return false;
+            if (reservedCrawls.compareAndSet(cur, cur + 1)) return true;
+        }
+    }
+
+    public int getReservedCrawls() {
+        return reservedCrawls.get();
+    }
+
+    @Override
+    public void acquire(int permits) {
+        inProgress.addAndGet(permits);
+    }
+
+    @Override
+    public void release(int permits) {
+        if (inProgress.addAndGet(-permits) == 0) completion.complete(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+}
@@ -0,0 +1,49 @@
+package com.myseotoolbox.crawler.spider.partition;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * How the partitions of a crawl hand the urls over to each other, and where the state shared by all of them is kept:
+ * the crawl slots (so maxCrawls counts the pages of every partition) and the work in progress (so the crawl ends only when all the partitions are done).
+ * <p>
+ * The work in progress starts at {@link #getPartitions()}: each partition releases one permit once started, so the crawl can't end before every partition has started.
+ * Implementations must be thread safe.
+ *
+ * @see InProcessPartitionTransport
+ */
+public interface PartitionTransport {
+
+    int getPartitions();
+
+    /**
+     * Hand urls over to their owner partition. Urls sent before the partition subscribes are delivered when it subscribes.
+     */
+    void send(int partition, List<String> urls);
+
+    /**
+     * @param receiver invoked with the urls sent to partition
+     */
+    void subscribe(int partition, Consumer<List<String>> receiver);
+
+    /**
+     * Claim one of the maxCrawls slots of the whole crawl
+     */
+    boolean tryReserveCrawl(int maxCrawls);
+
+    /**
+     * Work started by a partition: tasks claimed or urls sent and not received yet
+     */
+    void acquire(int permits);
+
+    /**
+     * Work completed by a partition. {@link #completion()} is completed when no permit is left.
+     */
+    void release(int permits);
+
+    /**
+     * Completed when no partition has anything left to crawl
+     */
+    CompletableFuture<Void> completion();
+}
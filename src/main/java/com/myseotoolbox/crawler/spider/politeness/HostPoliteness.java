@@ -0,0 +1,84 @@
+package com.myseotoolbox.crawler.spider.politeness;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Request rate towards a single host.
+ * <p>
+ * The interval between two requests never goes below the configured minimum (or the robots.txt Crawl-delay).
+ * It doubles every time the host struggles (errors, 429/503 or responses getting slower than usual)
+ * and goes back down by a quarter on every healthy response.
+ * A Retry-After header pauses the host altogether.
+ */
+@NotThreadSafe
+class HostPoliteness {
+
+    static final long MIN_BACKOFF_INTERVAL = 250;
+    static final long MAX_INTERVAL = 60_000;
+    //a response slower than this many times the usual latency of the host (and than MIN_SLOW_RESPONSE) counts as the host struggling
+    static final int SLOW_RESPONSE_FACTOR = 3;
+    static final long MIN_SLOW_RESPONSE = 1000;
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final long baseInterval;
+    private long interval;
+    private long nextRequestAt = 0;
+    private double averageLatency = -1;
+
+    /**
+     * @param baseInterval min millis between two requests
+     */
+    HostPoliteness(long baseInterval) {
+        this.baseInterval = Math.max(0, baseInterval);
+        this.interval = this.baseInterval;
+    }
+
+    /**
+     * @return millis to wait before the next request can be sent, 0 if it can be sent now
+     */
+    long delayAt(long now) {
+        return Math.max(0, nextRequestAt - now);
+    }
+
+    /**
+     * Book the next request at now
+     */
+    void reserve(long now) {
+        nextRequestAt = Math.max(now, nextRequestAt) + interval;
+    }
+
+    void onResponse(long now, int status, long latency, long retryAfter) {
+        if (retryAfter > 0) {
+            nextRequestAt = Math.max(nextRequestAt, now + Math.min(retryAfter, MAX_INTERVAL));
+        }
+
+        if (status == 429 || status >= 500 || isSlow(latency)) {
+            backOff();
+        } else {
+            interval = Math.max(baseInterval, interval - interval / 4);
+            if (interval < MIN_BACKOFF_INTERVAL) interval = baseInterval;
+        }
+
+        updateLatency(latency);
+    }
+
+    void onFailure() {
+        backOff();
+    }
+
+    long getInterval() {
+        return interval;
+    }
+
+    private void backOff() {
+        interval = Math.min(MAX_INTERVAL, Math.max(MIN_BACKOFF_INTERVAL, interval * 2));
+    }
+
+    private boolean isSlow(long latency) {
+        return averageLatency >= 0 && latency > MIN_SLOW_RESPONSE && latency > averageLatency * SLOW_RESPONSE_FACTOR;
+    }
+
+    private void updateLatency(long latency) {
+        averageLatency = averageLatency < 0 ? latency : averageLatency + LATENCY_SMOOTHING * (latency - averageLatency);
+    }
+}
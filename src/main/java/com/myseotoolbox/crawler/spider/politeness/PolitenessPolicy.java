@@ -0,0 +1,110 @@
+package com.myseotoolbox.crawler.spider.politeness;
+
+import com.myseotoolbox.crawler.httpclient.HttpResponse;
+import com.myseotoolbox.crawler.httpclient.HttpResponseListener;
+import lombok.extern.log4j.Log4j2;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the request rate of every host, learning from the responses reported by an
+ * {@link com.myseotoolbox.crawler.httpclient.ObservedHttpRequestFactory}.
+ * <p>
+ * Each host gets at least minInterval (or the robots.txt Crawl-delay, whatever is longer) between two requests.
+ * The interval grows when the host answers 429/5xx, fails or slows down and a Retry-After pauses it. See {@link HostPoliteness}.
+ */
+@Log4j2
+@ThreadSafe
+public class PolitenessPolicy implements HttpResponseListener {
+
+    private final long baseInterval;
+    private final Map<String, HostPoliteness> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param minInterval      min millis between two requests to the same host
+     * @param crawlDelayMillis robots.txt Crawl-delay of the crawled website, 0 if not set
+     */
+    public PolitenessPolicy(long minInterval, long crawlDelayMillis) {
+        this.baseInterval = Math.max(minInterval, crawlDelayMillis);
+        if (crawlDelayMillis > minInterval) log.info("Using robots.txt Crawl-delay of {}ms", crawlDelayMillis);
+    }
+
+    @Override
+    public void onResponse(URI uri, HttpResponse response, long latency) {
+        long retryAfter = parseRetryAfter(response.getRetryAfter(), System.currentTimeMillis());
+        if (retryAfter > 0) log.warn("{} asked to retry after {}ms", uri.getHost(), retryAfter);
+
+        HostPoliteness host = getHost(uri.getHost());
+        synchronized (host) {
+            host.onResponse(now(), response.getHttpStatus(), latency, retryAfter);
+        }
+    }
+
+    @Override
+    public void onFailure(URI uri, Throwable cause) {
+        HostPoliteness host = getHost(uri.getHost());
+        synchronized (host) {
+            host.onFailure();
+        }
+    }
+
+    /**
+     * Books a request to the host if it can be sent now.
+     *
+     * @return 0 if the request can be sent, otherwise the millis to wait before trying again
+     */
+    long tryReserve(String hostName) {
+        HostPoliteness host = getHost(hostName);
+        synchronized (host) {
+            long now = now();
+            long delay = host.delayAt(now);
+            if (delay == 0) host.reserve(now);
+            return delay;
+        }
+    }
+
+    /**
+     * @return millis currently waited between two requests to the host
+     */
+    public long getInterval(String hostName) {
+        HostPoliteness host = getHost(hostName);
+        synchronized (host) {
+            return host.getInterval();
+        }
+    }
+
+    private HostPoliteness getHost(String hostName) {
+        return hosts.computeIfAbsent(hostName != null ? hostName : "", h -> new HostPoliteness(baseInterval));
+    }
+
+    /**
+     * @return millis to wait, 0 if not set or invalid. Retry-After can be in seconds or an http date
+     */
+    static long parseRetryAfter(String retryAfter, long nowMillis) {
+        if (retryAfter == null || retryAfter.isBlank()) return 0;
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0, Duration.ofSeconds(Long.parseLong(value)).toMillis());
+        } catch (NumberFormatException | ArithmeticException e) {
+            //not in seconds
+        }
+        try {
+            return Math.max(0, ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - nowMillis);
+        } catch (DateTimeParseException e) {
+            log.debug("Invalid Retry-After: {}", value);
+            return 0;
+        }
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
@@ -0,0 +1,94 @@
+package com.myseotoolbox.crawler.spider.politeness;
+
+import com.myseotoolbox.crawler.spider.model.SnapshotTask;
+import lombok.extern.log4j.Log4j2;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Holds the tasks back until the {@link PolitenessPolicy} allows another request to their host, then hands them over to the crawlers.
+ * <p>
+ * No thread waits for the delay: the tasks are queued per host and released by a shared timer thread.
+ * When there is nothing to wait, tasks are handed over straight away on the calling thread.
+ */
+@Log4j2
+@ThreadSafe
+public class PolitenessScheduler implements Consumer<SnapshotTask> {
+
+    private static final ScheduledExecutorService timer = buildTimer();
+
+    private final Consumer<SnapshotTask> crawlers;
+    private final PolitenessPolicy policy;
+    private final Map<String, HostQueue> hosts = new ConcurrentHashMap<>();
+
+    public PolitenessScheduler(Consumer<SnapshotTask> crawlers, PolitenessPolicy policy) {
+        this.crawlers = crawlers;
+        this.policy = policy;
+    }
+
+    @Override
+    public void accept(SnapshotTask task) {
+        String hostName = task.getUri().getHost() != null ? task.getUri().getHost() : "";
+        HostQueue host = hosts.computeIfAbsent(hostName, HostQueue::new);
+        synchronized (host) {
+            host.tasks.add(task);
+        }
+        dispatch(host);
+    }
+
+    private void dispatch(HostQueue host) {
+        while (true) {
+            SnapshotTask task;
+            synchronized (host) {
+                if (host.tasks.isEmpty() || host.timerScheduled) return;
+                long delay = policy.tryReserve(host.name);
+                if (delay > 0) {
+                    host.timerScheduled = true;
+                    timer.schedule(() -> onTimer(host), delay, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                task = host.tasks.poll();
+            }
+            crawlers.accept(task);
+        }
+    }
+
+    private void onTimer(HostQueue host) {
+        synchronized (host) {
+            host.timerScheduled = false;
+        }
+        try {
+            dispatch(host);
+        } catch (RuntimeException e) {
+            log.error("Unable to dispatch the tasks of " + host.name, e);
+        }
+    }
+
+    private static ScheduledExecutorService buildTimer() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "politeness-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private static class HostQueue {
+        private final String name;
+        private final Queue<SnapshotTask> tasks = new ArrayDeque<>();
+        private boolean timerScheduled = false;
+
+        HostQueue(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -1,78 +1,176 @@
 package com.myseotoolbox.crawler.spider.sitemap;
 
+import com.myseotoolbox.crawler.httpclient.HTTPClient;
 import com.myseotoolbox.crawler.spider.UriFilter;
+import com.myseotoolbox.crawler.spider.filter.Origin;
 import com.myseotoolbox.crawlercommons.UriCreator;
-import crawlercommons.sitemaps.AbstractSiteMap;
-import crawlercommons.sitemaps.SiteMapIndex;
-import crawlercommons.sitemaps.SiteMapParser;
-import crawlercommons.sitemaps.UnknownFormatException;
 import io.vavr.control.Try;
 import lombok.extern.log4j.Log4j2;
+import org.xml.sax.SAXException;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-import static com.myseotoolbox.crawler.spider.filter.WebsiteOriginUtils.isHostMatching;
-
 
+/**
+ * Fetches the sitemaps, and the sitemaps linked by the sitemap indexes, up to concurrency at a time.
+ * The urls are streamed out while the sitemaps are parsed.
+ * <p>
+ * Every fetchUris has its own connection pool, sized to the concurrency, so the fetchers never wait for a connection.
+ */
 @Log4j2
 public class SiteMap {
 
-    private final URI origin;
+    public static final int DEFAULT_CONCURRENCY = 4;
+    //urls handed over together, so the consumer isn't invoked for each of them
+    static final int BATCH_SIZE = 1000;
+    private static final AtomicInteger threadId = new AtomicInteger();
+
+    private final Origin origin;
     private final UriFilter filter;
     private final List<URL> siteMaps;
-
-    private SiteMapParser siteMapParser = new SiteMapParser(false);
+    private final int concurrency;
 
     SiteMap(URI origin, String sitemapUrl) {
         this(origin, Collections.singletonList(sitemapUrl), (sourceUri, discoveredLink) -> true);
     }
 
     public SiteMap(URI origin, List<String> sitemaps, UriFilter uriFilter) {
-        this.origin = origin;
+        this(origin, sitemaps, uriFilter, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * @param concurrency max sitemaps fetched at the same time
+     */
+    public SiteMap(URI origin, List<String> sitemaps, UriFilter uriFilter, int concurrency) {
+        this.origin = Origin.of(origin);
         this.siteMaps = sitemaps.stream().map(this::mapToUrlOrLogWarning).filter(Objects::nonNull).collect(Collectors.toList());
         this.filter = uriFilter;
+        this.concurrency = concurrency;
     }
 
     public List<String> fetchUris() {
-        return this.siteMaps
-                .stream()
-                .flatMap(url -> fetch(url).stream())
-                .filter(this::isSameDomain)
-                .distinct()
-                .collect(Collectors.toList());
+        Set<String> uris = new LinkedHashSet<>();
+        fetchUris(batch -> {
+            synchronized (uris) {
+                uris.addAll(batch);
+            }
+        });
+        return new ArrayList<>(uris);
     }
 
     /**
-     * Recursively scan Sitemap Index (the type of sitemap that has links to other sitemaps) and collect urls
+     * Blocks until every sitemap has been read. Urls are not deduplicated.
+     *
+     * @param consumer invoked with the urls of the website, in batches, concurrently by the fetcher threads
      */
-    private List<String> fetch(URL url) {
+    public void fetchUris(Consumer<List<String>> consumer) {
+        if (siteMaps.isEmpty()) return;
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "sitemap-reader-" + threadId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (HTTPClient httpClient = new HTTPClient(concurrency)) {
+            new Fetch(executor, httpClient, consumer).run();
+        } catch (IOException e) {
+            log.warn("Error while closing the sitemap connections for {}. Error: {}", origin, e.toString());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-        if (!shouldFetch(url)) {
-            return Collections.emptyList();
+    /**
+     * State of a single fetchUris
+     */
+    private class Fetch {
+        private final ExecutorService executor;
+        private final HTTPClient httpClient;
+        private final Consumer<List<String>> consumer;
+        private final Set<String> sitemapsSeen = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final CompletableFuture<Void> completed = new CompletableFuture<>();
+
+        Fetch(ExecutorService executor, HTTPClient httpClient, Consumer<List<String>> consumer) {
+            this.executor = executor;
+            this.httpClient = httpClient;
+            this.consumer = consumer;
         }
 
-        try {
-            log.debug("Fetching sitemap on {}", url.toString());
-            AbstractSiteMap asm = siteMapParser.parseSiteMap(url);
-            if (asm instanceof SiteMapIndex) {
-                SiteMapIndex smi = (SiteMapIndex) asm;
-                return smi.getSitemaps().stream().flatMap(sm -> fetch(sm.getUrl()).stream()).distinct().collect(Collectors.toList());
-            } else {
-                crawlercommons.sitemaps.SiteMap sm = (crawlercommons.sitemaps.SiteMap) asm;
-                return sm.getSiteMapUrls().stream().map(siteMapURL -> siteMapURL.getUrl().toString()).distinct().collect(Collectors.toList());
-            }
-        } catch (UnknownFormatException | IOException e) {
-            log.warn("Error while fetching sitemap for {}. Error: {}", url, e.toString());
-            return Collections.emptyList();
+        void run() {
+            //held until all the roots are submitted, so the first one completing doesn't complete the fetch
+            pending.incrementAndGet();
+            siteMaps.forEach(this::submit);
+            release();
+            completed.join();
+        }
+
+        private void submit(URL url) {
+            if (!sitemapsSeen.add(url.toString()) || !shouldFetch(url)) return;
+            pending.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    fetch(url);
+                } finally {
+                    release();
+                }
+            });
         }
 
+        private void release() {
+            if (pending.decrementAndGet() == 0) completed.complete(null);
+        }
+
+        private void fetch(URL url) {
+            log.debug("Fetching sitemap on {}", url);
+            List<String> batch = new ArrayList<>();
+            try {
+                httpClient.get(url.toURI(), body -> {
+                    try {
+                        SitemapStreamParser.parse(body, new SitemapStreamParser.Listener() {
+                            @Override
+                            public void url(String loc) {
+                                if (!isSameDomain(loc)) return;
+                                batch.add(loc);
+                                if (batch.size() >= BATCH_SIZE) flush(batch);
+                            }
+
+                            @Override
+                            public void sitemap(String loc) {
+                                URL child = mapToUrlOrLogWarning(loc);
+                                if (child != null) submit(child);
+                            }
+                        });
+                    } catch (SAXException e) {
+                        throw new IOException(e);
+                    }
+                });
+            } catch (Exception e) {
+                log.warn("Error while fetching sitemap for {}. Error: {}", url, e.toString());
+            } finally {
+                flush(batch);
+            }
+        }
 
+        private void flush(List<String> batch) {
+            if (batch.isEmpty()) return;
+            consumer.accept(new ArrayList<>(batch));
+            batch.clear();
+        }
     }
 
     private boolean shouldFetch(URL url) {
@@ -85,11 +183,16 @@ public class SiteMap {
     }
 
     private boolean isSameDomain(String url) {
-        return isHostMatching(UriCreator.create(url), origin, false);
+        try {
+            return origin.isHostMatching(UriCreator.create(url), false);
+        } catch (IllegalArgumentException e) {
+            log.debug("Invalid url in sitemap: {}", url);
+            return false;
+        }
     }
 
     private boolean isSameDomain(URL url) {
-        return isSameDomain(url.toString());
+        return origin.isHostMatching(UriCreator.create(url.toString()), false);
     }
 
     private URL mapToUrlOrLogWarning(String s) {
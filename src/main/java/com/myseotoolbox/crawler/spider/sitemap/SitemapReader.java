@@ -4,19 +4,36 @@ import com.myseotoolbox.crawler.spider.UriFilter;
 import lombok.extern.log4j.Log4j2;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Log4j2
 public class SitemapReader {
+
+    private final int concurrency;
+
+    public SitemapReader() {
+        this(SiteMap.DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * @param concurrency max sitemaps fetched at the same time
+     */
+    public SitemapReader(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
     /*
      * There are sitemaps with millions of entries.
      * allowedPaths make sure we only fetch the sitemap indexes we need.
      * */
     public List<URI> getSeedsFromSitemaps(URI origin, List<String> sitemapsUrl, UriFilter filter) {
         log.info("Fetching {} sitemap for {} with filter: {}. Urls: {}", sitemapsUrl.size(), origin, filter, sitemapsUrl);
-        List<URI> sitemapSeeds = new SiteMap(origin, sitemapsUrl, filter)
+        List<URI> sitemapSeeds = new SiteMap(origin, sitemapsUrl, filter, concurrency)
                 .fetchUris()
                 .stream()
                 .map(this::toValidUri)
@@ -28,6 +45,25 @@ public class SitemapReader {
         return sitemapSeeds;
     }
 
+    /**
+     * Hands the seeds over to consumer while the sitemaps are parsed, without keeping them in memory. Blocks until every sitemap has been read.
+     *
+     * @param consumer invoked with batches of seeds, concurrently. The same seed can be in more than one batch.
+     */
+    public void readSeedsFromSitemaps(URI origin, List<String> sitemapsUrl, UriFilter filter, Consumer<List<URI>> consumer) {
+        log.info("Fetching {} sitemap for {} with filter: {}. Urls: {}", sitemapsUrl.size(), origin, filter, sitemapsUrl);
+        AtomicLong found = new AtomicLong();
+        new SiteMap(origin, sitemapsUrl, filter, concurrency).fetchUris(batch -> {
+            List<URI> seeds = new ArrayList<>(batch.size());
+            for (String url : batch) {
+                toValidUri(url).ifPresent(seeds::add);
+            }
+            found.addAndGet(seeds.size());
+            consumer.accept(seeds);
+        });
+        log.info("Found {} seeds from sitemap for {}", found.get(), origin);
+    }
+
     private Optional<URI> toValidUri(String s) {
         try {
             return Optional.of(URI.create(s));
@@ -0,0 +1,182 @@
+package com.myseotoolbox.crawler.spider.sitemap;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams the locations in a sitemap, a sitemap index, a text sitemap or an RSS/Atom feed while they are parsed, nothing else is kept in memory.
+ * <p>
+ * Gzipped sitemaps are recognised from their content. Only the first {@link #MAX_SIZE} bytes are parsed (the limit of the sitemaps protocol),
+ * the locations found before a malformed part of the document are still reported.
+ */
+final class SitemapStreamParser {
+
+    static final long MAX_SIZE = 50 * 1024 * 1024;
+
+    interface Listener {
+        /**
+         * loc of a page, in a sitemap (or link of an item, in a feed)
+         */
+        void url(String loc);
+
+        /**
+         * loc of a child sitemap, in a sitemap index
+         */
+        void sitemap(String loc);
+    }
+
+    private SitemapStreamParser() {
+    }
+
+    static void parse(InputStream in, Listener listener) throws IOException, SAXException {
+        InputStream content = new BufferedInputStream(new BoundedInputStream(decompress(new BufferedInputStream(in)), MAX_SIZE));
+        if (isXml(content)) {
+            parseXml(content, listener);
+        } else {
+            parseText(content, listener);
+        }
+    }
+
+    private static void parseXml(InputStream content, Listener listener) throws IOException, SAXException {
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            //sitemaps come from the crawled websites: no external entities nor DTDs
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory.newSAXParser().parse(content, new LocHandler(listener));
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void parseText(InputStream content, Listener listener) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String loc = line.replace("\ufeff", "").trim();
+            if (loc.startsWith("http://") || loc.startsWith("https://")) listener.url(loc);
+        }
+    }
+
+    private static InputStream decompress(BufferedInputStream in) throws IOException {
+        in.mark(2);
+        boolean gzip = in.read() == 0x1f && in.read() == 0x8b;
+        in.reset();
+        return gzip ? new GZIPInputStream(in) : in;
+    }
+
+    /**
+     * @return true if the first character, after the BOM and the white spaces, is '<'
+     */
+    private static boolean isXml(InputStream in) throws IOException {
+        in.mark(1024);
+        try {
+            for (int i = 0; i < 1024; i++) {
+                int b = in.read();
+                if (b == -1) return false;
+                if (b == '<') return true;
+                if (!Character.isWhitespace(b) && b != 0xef && b != 0xbb && b != 0xbf) return false;
+            }
+            return false;
+        } finally {
+            in.reset();
+        }
+    }
+
+    private static class LocHandler extends DefaultHandler {
+        private final Listener listener;
+        private final StringBuilder text = new StringBuilder();
+        private int depth = 0;
+        private String root = null;
+        //url, sitemap, rss item or atom entry we're in, and its depth
+        private String entry = null;
+        private int entryDepth = 0;
+        //in the loc of a url or sitemap, or the link of an rss item
+        private boolean inLoc = false;
+
+        LocHandler(Listener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            String name = nameOf(localName, qName);
+            depth++;
+            if (depth == 1) root = name;
+
+            if (entry == null && isEntry(name)) {
+                entry = name;
+                entryDepth = depth;
+            } else if (entry != null && depth == entryDepth + 1) {
+                //not the loc of the extensions (e.g. image:loc) nested deeper
+                if (entry.equals("entry")) {
+                    String href = attributes.getValue("href");
+                    if (name.equals("link") && isAlternate(attributes.getValue("rel")) && href != null && !href.trim().isEmpty()) {
+                        listener.url(href.trim());
+                    }
+                } else if (name.equals(entry.equals("item") ? "link" : "loc")) {
+                    inLoc = true;
+                    text.setLength(0);
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inLoc) text.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (inLoc) {
+                inLoc = false;
+                String loc = text.toString().trim();
+                if (!loc.isEmpty() && entry.equals("sitemap")) listener.sitemap(loc);
+                else if (!loc.isEmpty()) listener.url(loc);
+            } else if (depth == entryDepth) {
+                entry = null;
+            }
+            depth--;
+        }
+
+        private boolean isEntry(String name) {
+            switch (name) {
+                case "url":
+                case "sitemap":
+                    return true;
+                case "item":
+                    //rss 2.0 and rss 1.0 (rdf)
+                    return root.equals("rss") || root.equals("RDF");
+                case "entry":
+                    return root.equals("feed");
+                default:
+                    return false;
+            }
+        }
+
+        //the page of an atom entry, not e.g. its enclosures or the entry itself
+        private static boolean isAlternate(String rel) {
+            return rel == null || rel.equals("alternate");
+        }
+
+        private static String nameOf(String localName, String qName) {
+            return localName != null && !localName.isEmpty() ? localName : qName;
+        }
+    }
+}
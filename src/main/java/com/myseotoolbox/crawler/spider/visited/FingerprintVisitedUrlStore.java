@@ -0,0 +1,287 @@
+package com.myseotoolbox.crawler.spider.visited;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import static com.myseotoolbox.crawler.utils.TemporaryFiles.deleteOrDeleteOnExit;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Stores a 128 bit fingerprint of every url in an open addressing table (linear probing) instead of the url itself.
+ * Each entry costs 16 bytes (plus the load factor slack) regardless of the url length.
+ * <p>
+ * The first 64 bits of the fingerprint are the key of the table, the second 64 bits are compared to confirm the match.
+ * Urls sharing the key with a different url already in the table are kept in their exact form in a small overflow set,
+ * so we never mistake a new url for a visited one unless the whole 128 bits collide.
+ * <p>
+ * Not thread safe.
+ */
+public class FingerprintVisitedUrlStore implements VisitedUrlStore {
+
+    private static final HashFunction FINGERPRINT = Hashing.murmur3_128();
+    private static final int INITIAL_CAPACITY = 1 << 8;
+    //Heap buffers are backed by a long[]: 2^28 longs
+    private static final int MAX_HEAP_CAPACITY = 1 << 27;
+    //Direct and mapped buffers are addressed with an int number of bytes: 2^26 entries * 16 bytes = 1GB. Twice that is one byte over the limit
+    private static final int MAX_BUFFER_CAPACITY = 1 << 26;
+    private static final long EMPTY = 0L;
+    private static final long EMPTY_REPLACEMENT = 0x9E3779B97F4A7C15L;
+    //HashSet node and String headers of a colliding url, on top of its chars
+    private static final int COLLISION_OVERHEAD_BYTES = 64;
+
+    private final TableAllocator allocator;
+    private final int maxCapacity;
+    private final Set<String> collisions = new HashSet<>();
+    private LongBuffer table;
+    private int capacity;
+    private int tableSize = 0;
+
+    /**
+     * Allocates the tables of the given number of longs
+     */
+    interface TableAllocator extends IntFunction<LongBuffer> {
+        /**
+         * The table is not used anymore
+         */
+        default void release(LongBuffer table) {
+        }
+    }
+
+    FingerprintVisitedUrlStore(TableAllocator allocator) {
+        this(allocator, MAX_HEAP_CAPACITY);
+    }
+
+    FingerprintVisitedUrlStore(TableAllocator allocator, int maxCapacity) {
+        this.allocator = allocator;
+        this.maxCapacity = maxCapacity;
+        this.capacity = INITIAL_CAPACITY;
+        this.table = allocator.apply(capacity * 2);
+    }
+
+    public static FingerprintVisitedUrlStore onHeap() {
+        return new FingerprintVisitedUrlStore(LongBuffer::allocate);
+    }
+
+    public static FingerprintVisitedUrlStore offHeap() {
+        return new FingerprintVisitedUrlStore(longs -> ByteBuffer.allocateDirect(longs * Long.BYTES).asLongBuffer(), MAX_BUFFER_CAPACITY);
+    }
+
+    /**
+     * Table is mapped on a temporary file in the given directory, so the OS can page it out for very big crawls.
+     * The file is deleted when the table grows into a new one or the store is closed.
+     */
+    public static FingerprintVisitedUrlStore memoryMapped(Path directory) {
+        return new FingerprintVisitedUrlStore(new TemporaryFileTables(directory), MAX_BUFFER_CAPACITY);
+    }
+
+    @Override
+    public boolean add(String url) {
+        HashCode fingerprint = fingerprint(url);
+        return add(keyOf(fingerprint.asLong()), checkOf(fingerprint), url);
+    }
+
+    @Override
+    public boolean contains(String url) {
+        HashCode fingerprint = fingerprint(url);
+        return contains(keyOf(fingerprint.asLong()), checkOf(fingerprint), url);
+    }
+
+    @Override
+    public boolean remove(String url) {
+        HashCode fingerprint = fingerprint(url);
+        return remove(keyOf(fingerprint.asLong()), checkOf(fingerprint), url);
+    }
+
+    /**
+     * Uses the fingerprint precomputed by url, the same {@link #add(String)} would compute
+     */
+    @Override
+    public boolean add(CrawlUrl url) {
+        return add(keyOf(url.getFingerprintKey()), url.getFingerprintCheck(), url);
+    }
+
+    @Override
+    public boolean contains(CrawlUrl url) {
+        return contains(keyOf(url.getFingerprintKey()), url.getFingerprintCheck(), url);
+    }
+
+    @Override
+    public boolean remove(CrawlUrl url) {
+        return remove(keyOf(url.getFingerprintKey()), url.getFingerprintCheck(), url);
+    }
+
+    @Override
+    public int size() {
+        return tableSize + collisions.size();
+    }
+
+    /**
+     * Bytes of the table, wherever it is allocated, plus the colliding urls
+     */
+    @Override
+    public long memoryFootprint() {
+        long bytes = (long) capacity * 2 * Long.BYTES;
+        for (String url : collisions) bytes += COLLISION_OVERHEAD_BYTES + url.length();
+        return bytes;
+    }
+
+    @Override
+    public void close() {
+        allocator.release(table);
+    }
+
+    HashCode fingerprint(String url) {
+        return FINGERPRINT.hashUnencodedChars(url);
+    }
+
+    //url is a String or a CrawlUrl: turned into a String only when it collides
+    private boolean add(long key, long check, Object url) {
+        int slot = findSlot(key);
+        if (table.get(slot * 2) == key) {
+            if (table.get(slot * 2 + 1) == check) return false;
+            return collisions.add(url.toString());
+        }
+        if (!collisions.isEmpty() && collisions.contains(url.toString())) return false;
+
+        if (tableSize + 1 > capacity / 4 * 3) {
+            grow();
+            slot = findSlot(key);
+        }
+        table.put(slot * 2, key);
+        table.put(slot * 2 + 1, check);
+        tableSize++;
+        return true;
+    }
+
+    private boolean contains(long key, long check, Object url) {
+        int slot = findSlot(key);
+        if (table.get(slot * 2) == key && table.get(slot * 2 + 1) == check) return true;
+        return !collisions.isEmpty() && collisions.contains(url.toString());
+    }
+
+    private boolean remove(long key, long check, Object url) {
+        int slot = findSlot(key);
+        if (table.get(slot * 2) == key && table.get(slot * 2 + 1) == check) {
+            deleteSlot(slot);
+            tableSize--;
+            return true;
+        }
+        return !collisions.isEmpty() && collisions.remove(url.toString());
+    }
+
+    /**
+     * @return the slot holding the key, or the empty slot where the key should be inserted
+     */
+    private int findSlot(long key) {
+        int mask = capacity - 1;
+        int slot = (int) key & mask;
+        while (true) {
+            long cur = table.get(slot * 2);
+            if (cur == EMPTY || cur == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Backward shift deletion: move back the following entries of the cluster so lookups never stop on a hole
+     */
+    private void deleteSlot(int hole) {
+        int mask = capacity - 1;
+        int cur = hole;
+        while (true) {
+            cur = (cur + 1) & mask;
+            long key = table.get(cur * 2);
+            if (key == EMPTY) break;
+
+            int home = (int) key & mask;
+            boolean canStay = hole <= cur ? (hole < home && home <= cur) : (hole < home || home <= cur);
+            if (canStay) continue;
+
+            table.put(hole * 2, key);
+            table.put(hole * 2 + 1, table.get(cur * 2 + 1));
+            hole = cur;
+        }
+        table.put(hole * 2, EMPTY);
+        table.put(hole * 2 + 1, EMPTY);
+    }
+
+    private void grow() {
+        if (capacity >= maxCapacity) throw new IllegalStateException("Visited url store is full. Entries: " + size());
+
+        LongBuffer oldTable = table;
+        int oldCapacity = capacity;
+
+        int newCapacity = oldCapacity * 2;
+        //before changing anything: if the allocation fails, the store is left as it was
+        LongBuffer newTable = allocator.apply(newCapacity * 2);
+        table = newTable;
+        capacity = newCapacity;
+
+        for (int i = 0; i < oldCapacity; i++) {
+            long key = oldTable.get(i * 2);
+            if (key != EMPTY) {
+                int slot = findSlot(key);
+                table.put(slot * 2, key);
+                table.put(slot * 2 + 1, oldTable.get(i * 2 + 1));
+            }
+        }
+        allocator.release(oldTable);
+    }
+
+    private static long keyOf(long key) {
+        return key != EMPTY ? key : EMPTY_REPLACEMENT;
+    }
+
+    private static long checkOf(HashCode fingerprint) {
+        return ByteBuffer.wrap(fingerprint.asBytes()).getLong(Long.BYTES);
+    }
+
+    private static class TemporaryFileTables implements TableAllocator {
+        private final Path directory;
+        //LongBuffer equality is by content
+        private final Map<LongBuffer, Path> files = new IdentityHashMap<>();
+
+        TemporaryFileTables(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public LongBuffer apply(int longs) {
+            Path file = null;
+            try {
+                file = Files.createTempFile(directory, "visited-urls", ".bin");
+                try (FileChannel channel = FileChannel.open(file, READ, WRITE)) {
+                    //The mapping stays valid after the channel is closed
+                    LongBuffer table = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) longs * Long.BYTES).asLongBuffer();
+                    files.put(table, file);
+                    return table;
+                }
+            } catch (IOException e) {
+                if (file != null) deleteOrDeleteOnExit(file);
+                throw new UncheckedIOException("Unable to map visited url store in " + directory, e);
+            }
+        }
+
+        @Override
+        public void release(LongBuffer table) {
+            Path file = files.remove(table);
+            if (file != null) deleteOrDeleteOnExit(file);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.myseotoolbox.crawler.spider.visited;
+
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.function.Supplier;
+
+/**
+ * Thread safe store that spreads the urls over independent stores, each guarded by its own lock.
+ * Crawler threads only contend when they touch urls falling in the same stripe.
+ */
+@ThreadSafe
+public class StripedVisitedUrlStore implements VisitedUrlStore {
+
+    private final VisitedUrlStore[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes number of stripes, rounded up to a power of 2
+     */
+    public StripedVisitedUrlStore(int stripes, Supplier<VisitedUrlStore> storeFactory) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new VisitedUrlStore[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = storeFactory.get();
+        }
+    }
+
+    @Override
+    public boolean add(String url) {
+        VisitedUrlStore stripe = stripeFor(url.hashCode());
+        synchronized (stripe) {
+            return stripe.add(url);
+        }
+    }
+
+    @Override
+    public boolean contains(String url) {
+        VisitedUrlStore stripe = stripeFor(url.hashCode());
+        synchronized (stripe) {
+            return stripe.contains(url);
+        }
+    }
+
+    @Override
+    public boolean remove(String url) {
+        VisitedUrlStore stripe = stripeFor(url.hashCode());
+        synchronized (stripe) {
+            return stripe.remove(url);
+        }
+    }
+
+    @Override
+    public boolean add(CrawlUrl url) {
+        VisitedUrlStore stripe = stripeFor(url.hashCode());
+        synchronized (stripe) {
+            return stripe.add(url);
+        }
+    }
+
+    @Override
+    public boolean contains(CrawlUrl url) {
+        VisitedUrlStore stripe = stripeFor(url.hashCode());
+        synchronized (stripe) {
+            return stripe.contains(url);
+        }
+    }
+
+    @Override
+    public boolean remove(CrawlUrl url) {
+        VisitedUrlStore stripe = stripeFor(url.hashCode());
+        synchronized (stripe) {
+            return stripe.remove(url);
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (VisitedUrlStore stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public long memoryFootprint() {
+        long bytes = 0;
+        for (VisitedUrlStore stripe : stripes) {
+            synchronized (stripe) {
+                bytes += stripe.memoryFootprint();
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void close() {
+        for (VisitedUrlStore stripe : stripes) {
+            synchronized (stripe) {
+                stripe.close();
+            }
+        }
+    }
+
+    //CrawlUrl has the hashCode of its String, so both forms of a url end up in the same stripe
+    private VisitedUrlStore stripeFor(int h) {
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+}
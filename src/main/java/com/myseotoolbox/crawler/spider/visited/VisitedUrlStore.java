@@ -0,0 +1,56 @@
+package com.myseotoolbox.crawler.spider.visited;
+
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
+
+import java.io.Closeable;
+
+/**
+ * Set of urls (in their ASCII form) seen by a crawl.
+ * <p>
+ * Implementations are not required to be thread safe, callers are expected to synchronize access.
+ */
+public interface VisitedUrlStore extends Closeable {
+
+    /**
+     * @return true if the url was not already in the store
+     */
+    boolean add(String url);
+
+    boolean contains(String url);
+
+    /**
+     * @return true if the url was in the store
+     */
+    boolean remove(String url);
+
+    int size();
+
+    /**
+     * Same as {@link #add(String)} with the ASCII form of url. Implementations can use what {@link CrawlUrl} has precomputed
+     */
+    default boolean add(CrawlUrl url) {
+        return add(url.toString());
+    }
+
+    default boolean contains(CrawlUrl url) {
+        return contains(url.toString());
+    }
+
+    default boolean remove(CrawlUrl url) {
+        return remove(url.toString());
+    }
+
+    /**
+     * @return approximate bytes taken by the store, on or off heap. 0 if unknown
+     */
+    default long memoryFootprint() {
+        return 0;
+    }
+
+    /**
+     * Release the resources, e.g. the files backing the store. The store can't be used anymore.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -9,6 +9,10 @@ public class LinkResolver {
         return addTrailingSlashIfRoot(sourceUri).resolve(path);
     }
 
+    public static URI resolve(URI sourceUri, URI relative) {
+        return addTrailingSlashIfRoot(sourceUri).resolve(relative);
+    }
+
     private static URI addTrailingSlashIfRoot(URI sourceUri) {
         return sourceUri.getPath().isEmpty() ? sourceUri.resolve("/") : sourceUri;
     }
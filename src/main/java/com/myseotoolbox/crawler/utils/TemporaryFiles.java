@@ -0,0 +1,23 @@
+package com.myseotoolbox.crawler.utils;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@Log4j2
+public class TemporaryFiles {
+
+    /**
+     * Delete file now or, if the OS refuses (e.g. Windows while the file is still mapped), when the JVM exits
+     */
+    public static void deleteOrDeleteOnExit(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Unable to delete {}, it will be deleted on exit. {}", file, e.toString());
+            file.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.myseotoolbox.crawler.utils;
+
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns a raw link into the form we crawl, writing it once into a per-thread buffer.
+ * <p>
+ * Same result as removing the fragment ({@link RemoveUrlFragment}), trimming, decoding ({@link UrlDecoder}) and escaping again
+ * with Guava's urlFragmentEscaper, corner cases included: the fragment ends at the end of the line, %2F is decoded to '/'
+ * and, when the link is percent encoded, chars are decoded as their lowest byte and malformed UTF-8 is replaced by U+FFFD.
+ */
+public final class UrlNormalizer {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final boolean[] SAFE = new boolean[128];
+    //past this the buffers are not kept for the next link
+    private static final int MAX_RETAINED_LENGTH = 4096;
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) SAFE[c] = true;
+        for (char c = 'A'; c <= 'Z'; c++) SAFE[c] = true;
+        for (char c = '0'; c <= '9'; c++) SAFE[c] = true;
+        for (char c : "-._~!$'()*,;&=@:+/?".toCharArray()) SAFE[c] = true;
+    }
+
+    private UrlNormalizer() {
+    }
+
+    /**
+     * @return the normalized link, null if it's not correctly percent encoded or it's empty once decoded
+     */
+    @Nullable
+    public static String normalize(String link) {
+        Buffers buffers = BUFFERS.get();
+        char[] chars = buffers.chars(link.length());
+
+        int len = 0;
+        boolean encoded = false;
+        boolean inFragment = false;
+        for (int i = 0; i < link.length(); i++) {
+            char c = link.charAt(i);
+            if (inFragment) {
+                if (!isLineTerminator(c)) continue;
+                inFragment = false;
+            } else if (c == '#') {
+                inFragment = true;
+                continue;
+            }
+            if (c == '%') encoded = true;
+            chars[len++] = c;
+        }
+
+        int start = 0;
+        int end = len;
+        while (start < end && chars[start] <= ' ') start++;
+        while (end > start && chars[end - 1] <= ' ') end--;
+
+        StringBuilder out = buffers.out();
+        boolean valid = encoded ? decodeAndEscape(chars, start, end, buffers, out) : escape(chars, start, end, out);
+        return valid && !isBlank(out) ? out.toString() : null;
+    }
+
+    private static boolean decodeAndEscape(char[] chars, int start, int end, Buffers buffers, StringBuilder out) {
+        byte[] bytes = buffers.bytes(end - start);
+        int len = 0;
+        boolean ascii = true;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            byte b;
+            if (c == '%') {
+                if (i + 2 >= end) return false;
+                int u = Character.digit(chars[i + 1], 16);
+                int l = Character.digit(chars[i + 2], 16);
+                if (u == -1 || l == -1) return false;
+                b = (byte) ((u << 4) + l);
+                i += 2;
+            } else {
+                //as ByteArrayOutputStream.write(int) in UrlDecoder
+                b = (byte) c;
+            }
+            if (b < 0) ascii = false;
+            bytes[len++] = b;
+        }
+
+        if (!ascii && !isWellFormedUtf8(bytes, len)) {
+            String decoded = new String(bytes, 0, len, StandardCharsets.UTF_8);
+            return escape(decoded.toCharArray(), 0, decoded.length(), out);
+        }
+
+        for (int i = 0; i < len; i++) {
+            byte b = bytes[i];
+            if (b >= 0) appendAscii((char) b, out);
+            else appendEscaped(b, out);
+        }
+        return true;
+    }
+
+    private static boolean escape(char[] chars, int start, int end, StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c < 0x80) {
+                appendAscii(c, out);
+            } else if (Character.isHighSurrogate(c)) {
+                if (i + 1 >= end || !Character.isLowSurrogate(chars[i + 1])) return false;
+                appendUtf8(Character.toCodePoint(c, chars[++i]), out);
+            } else if (Character.isLowSurrogate(c)) {
+                return false;
+            } else {
+                appendUtf8(c, out);
+            }
+        }
+        return true;
+    }
+
+    private static void appendAscii(char c, StringBuilder out) {
+        if (SAFE[c]) out.append(c);
+        else appendEscaped((byte) c, out);
+    }
+
+    private static void appendUtf8(int codePoint, StringBuilder out) {
+        if (codePoint < 0x800) {
+            appendEscaped((byte) (0xC0 | codePoint >> 6), out);
+        } else if (codePoint < 0x10000) {
+            appendEscaped((byte) (0xE0 | codePoint >> 12), out);
+            appendEscaped((byte) (0x80 | codePoint >> 6 & 0x3F), out);
+        } else {
+            appendEscaped((byte) (0xF0 | codePoint >> 18), out);
+            appendEscaped((byte) (0x80 | codePoint >> 12 & 0x3F), out);
+            appendEscaped((byte) (0x80 | codePoint >> 6 & 0x3F), out);
+        }
+        appendEscaped((byte) (0x80 | codePoint & 0x3F), out);
+    }
+
+    private static void appendEscaped(byte b, StringBuilder out) {
+        out.append('%').append(HEX[b >> 4 & 0xF]).append(HEX[b & 0xF]);
+    }
+
+    //as URLDecoder would see it: nothing but '+' and what trim() removes
+    private static boolean isBlank(StringBuilder out) {
+        for (int i = 0; i < out.length(); i++) {
+            char c = out.charAt(i);
+            if (c == '+') continue;
+            if (c != '%' || out.charAt(i + 1) > '2' || out.charAt(i + 1) == '2' && out.charAt(i + 2) != '0') return false;
+            i += 2;
+        }
+        return true;
+    }
+
+    private static boolean isWellFormedUtf8(byte[] bytes, int len) {
+        int i = 0;
+        while (i < len) {
+            int b = bytes[i] & 0xFF;
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+            int continuation;
+            int min = 0x80;
+            int max = 0xBF;
+            if (b >= 0xC2 && b <= 0xDF) {
+                continuation = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuation = 2;
+                if (b == 0xE0) min = 0xA0;
+                if (b == 0xED) max = 0x9F;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuation = 3;
+                if (b == 0xF0) min = 0x90;
+                if (b == 0xF4) max = 0x8F;
+            } else {
+                return false;
+            }
+            if (i + continuation >= len) return false;
+            int second = bytes[i + 1] & 0xFF;
+            if (second < min || second > max) return false;
+            for (int j = 2; j <= continuation; j++) {
+                int next = bytes[i + j] & 0xFF;
+                if (next < 0x80 || next > 0xBF) return false;
+            }
+            i += continuation + 1;
+        }
+        return true;
+    }
+
+    //the chars '.' doesn't match in RemoveUrlFragment's regex
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static class Buffers {
+        private char[] chars = new char[256];
+        private byte[] bytes = new byte[256];
+        private StringBuilder out = new StringBuilder(256);
+
+        char[] chars(int len) {
+            if (chars.length < len || chars.length > MAX_RETAINED_LENGTH) chars = new char[Math.max(len, 256)];
+            return chars;
+        }
+
+        byte[] bytes(int len) {
+            if (bytes.length < len || bytes.length > MAX_RETAINED_LENGTH) bytes = new byte[Math.max(len, 256)];
+            return bytes;
+        }
+
+        StringBuilder out() {
+            if (out.capacity() > MAX_RETAINED_LENGTH) out = new StringBuilder(256);
+            out.setLength(0);
+            return out;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.myseotoolbox.crawler;
 
+import com.myseotoolbox.crawler.httpclient.AsyncHttpRequestFactory;
 import com.myseotoolbox.crawler.httpclient.HttpRequestFactory;
+import com.myseotoolbox.crawler.httpclient.InMemoryValidatorStore;
 import com.myseotoolbox.crawler.httpclient.NoSSLVerificationConnectionFactory;
 import com.myseotoolbox.crawler.httpclient.SnapshotException;
 import com.myseotoolbox.crawler.httpclient.WebPageReader;
+import com.myseotoolbox.crawler.metrics.CrawlMetrics;
 import com.myseotoolbox.crawler.model.CrawlResult;
 import com.myseotoolbox.crawler.pagelinks.PageLink;
 import com.myseotoolbox.crawler.model.PageSnapshot;
@@ -23,6 +26,7 @@ import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import static com.myseotoolbox.crawler.httpclient.HttpGetRequest.BOT_NAME;
 import static com.myseotoolbox.crawler.httpclient.HttpGetRequest.BOT_VERSION;
@@ -72,6 +76,32 @@ public class WebPageReaderTest {
         assertThat(snapshot.getTitle(), is(TEST_TITLE));
     }
 
+    @Test
+    public void shouldDecompressGzipEncodedPages() throws Exception {
+        givenAWebsite().havingRootPage()
+                .withTitle(TEST_TITLE)
+                .withGzipEncoding()
+                .run();
+        PageSnapshot snapshot = sut.snapshotPage(testUri(TEST_ROOT_PAGE_PATH)).getPageSnapshot();
+        assertThat(snapshot.getTitle(), is(TEST_TITLE));
+    }
+
+    @Test
+    public void compressedPagesShouldCountTheCompressedBytesAsDownloaded() throws Exception {
+        CrawlMetrics metrics = new CrawlMetrics();
+        sut = new WebPageReader(ALLOW_ALL_URI, httpRequestFactory, WebPageReader.DEFAULT_MAX_BODY_SIZE, 0, metrics, null);
+        givenAWebsite().havingRootPage()
+                .withTitle(TEST_TITLE)
+                .withLinksTo(IntStream.range(0, 100).mapToObj(i -> "/link" + i).toArray(String[]::new))
+                .withGzipEncoding()
+                .run();
+
+        sut.snapshotPage(testUri(TEST_ROOT_PAGE_PATH));
+
+        assertThat(metrics.snapshot().getBytesDownloaded(), greaterThan(0L));
+        assertThat(metrics.snapshot().getBytesDownloaded(), lessThan(metrics.snapshot().getBytesDecoded()));
+    }
+
     @Test
     public void shouldReadTags() throws Exception {
         givenAWebsite().havingRootPage()
@@ -369,6 +399,52 @@ public class WebPageReaderTest {
 
     }
 
+    @Test
+    public void shouldParseTheFirstPartOfPagesBiggerThanMaxBodySize() throws Exception {
+        sut = new WebPageReader(ALLOW_ALL_URI, httpRequestFactory, 1024, 0, new CrawlMetrics(), null);
+        String[] links = IntStream.range(0, 100).mapToObj(i -> "/link" + i).toArray(String[]::new);
+
+        givenAWebsite().havingRootPage()
+                .withTitle(TEST_TITLE)
+                .withLinksTo(links)
+                .run();
+
+        PageSnapshot snapshot = sut.snapshotPage(testUri(TEST_ROOT_PAGE_PATH)).getPageSnapshot();
+
+        assertThat(snapshot.getCrawlStatus(), startsWith(WebPageReader.TRUNCATED_CRAWL_STATUS));
+        assertThat(snapshot.getTitle(), is(TEST_TITLE));
+        assertThat(snapshot.getLinks(), hasSize(both(greaterThan(0)).and(lessThan(100))));
+    }
+
+    @Test
+    public void pagesCutByTheRequestShouldBeTruncatedEvenWithinMaxBodySize() throws Exception {
+        String[] links = IntStream.range(0, 100).mapToObj(i -> "/link" + i).toArray(String[]::new);
+        givenAWebsite().havingRootPage()
+                .withTitle(TEST_TITLE)
+                .withLinksTo(links)
+                .run();
+
+        try (AsyncHttpRequestFactory requestFactory = new AsyncHttpRequestFactory(null, 1024)) {
+            sut = new WebPageReader(ALLOW_ALL_URI, requestFactory, 20 * 1024 * 1024, 0, new CrawlMetrics(), null);
+
+            PageSnapshot snapshot = sut.snapshotPage(testUri(TEST_ROOT_PAGE_PATH)).getPageSnapshot();
+
+            assertThat(snapshot.getCrawlStatus(), startsWith(WebPageReader.TRUNCATED_CRAWL_STATUS));
+            assertThat(snapshot.getTitle(), is(TEST_TITLE));
+        }
+    }
+
+    @Test
+    public void pagesWithinMaxBodySizeShouldNotBeTruncated() throws Exception {
+        givenAWebsite().havingRootPage()
+                .withTitle(TEST_TITLE)
+                .run();
+
+        PageSnapshot snapshot = sut.snapshotPage(testUri(TEST_ROOT_PAGE_PATH)).getPageSnapshot();
+
+        assertNull(snapshot.getCrawlStatus());
+    }
+
     @Test
     public void redirectDestinationShouldBeAValidUri() throws Exception {
         givenAWebsite()
@@ -380,6 +456,55 @@ public class WebPageReaderTest {
         assertThat(getDestinationUri(pageSnapshot), is(testUri("/link%20withspaces").toString()));
     }
 
+    @Test
+    public void shouldReuseThePreviousSnapshotWhenThePageIsNotModified() throws Exception {
+        CrawlMetrics metrics = new CrawlMetrics();
+        sut = new WebPageReader(ALLOW_ALL_URI, httpRequestFactory, WebPageReader.DEFAULT_MAX_BODY_SIZE, 0, metrics, new InMemoryValidatorStore());
+        TestWebsite website = givenAWebsite().havingRootPage()
+                .withTitle(TEST_TITLE)
+                .withETag("\"v1\"")
+                .withLinksTo("/link1")
+                .run();
+
+        PageSnapshot first = sut.snapshotPage(testUri(TEST_ROOT_PAGE_PATH)).getPageSnapshot();
+        PageSnapshot recrawl = sut.snapshotPage(testUri(TEST_ROOT_PAGE_PATH)).getPageSnapshot();
+
+        assertThat(website.getRequestsReceived().get(1).getIfNoneMatch(), is("\"v1\""));
+        assertThat(metrics.snapshot().getPagesNotModified(), is(1L));
+        assertThat(recrawl.getTitle(), is(TEST_TITLE));
+        assertThat(recrawl.getLinks(), is(first.getLinks()));
+        assertThat(recrawl.getRedirectChainElements(), is(first.getRedirectChainElements()));
+    }
+
+    @Test
+    public void notModifiedPageShouldKeepTheRedirectChain() throws Exception {
+        sut = new WebPageReader(ALLOW_ALL_URI, httpRequestFactory, WebPageReader.DEFAULT_MAX_BODY_SIZE, 0, new CrawlMetrics(), new InMemoryValidatorStore());
+        givenAWebsite()
+                .havingPage("/old").redirectingTo(301, TEST_REDIRECT_URL).and()
+                .havingPage(TEST_REDIRECT_URL).withTitle(TEST_TITLE).withETag("\"v1\"")
+                .run();
+
+        PageSnapshot first = sut.snapshotPage(testUri("/old")).getPageSnapshot();
+        PageSnapshot recrawl = sut.snapshotPage(testUri("/old")).getPageSnapshot();
+
+        assertThat(recrawl.getUri(), is(testUri("/old").toString()));
+        assertThat(recrawl.getRedirectChainElements(), is(first.getRedirectChainElements()));
+        assertThat(recrawl.getTitle(), is(TEST_TITLE));
+    }
+
+    @Test
+    public void pagesWithoutValidatorsShouldBeRequestedInFull() throws Exception {
+        InMemoryValidatorStore store = new InMemoryValidatorStore();
+        sut = new WebPageReader(ALLOW_ALL_URI, httpRequestFactory, WebPageReader.DEFAULT_MAX_BODY_SIZE, 0, new CrawlMetrics(), store);
+        TestWebsite website = givenAWebsite().havingRootPage().withTitle(TEST_TITLE).run();
+
+        sut.snapshotPage(testUri(TEST_ROOT_PAGE_PATH));
+        sut.snapshotPage(testUri(TEST_ROOT_PAGE_PATH));
+
+        assertThat(store.size(), is(0));
+        assertNull(website.getRequestsReceived().get(1).getIfNoneMatch());
+    }
+
     private String getDestinationUri(PageSnapshot pageSnapshot) {
         List<RedirectChainElement> redirectChainElements = pageSnapshot.getRedirectChainElements();
         return redirectChainElements.get(redirectChainElements.size() - 1).getDestinationURI();
@@ -0,0 +1,122 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import com.myseotoolbox.crawler.testutils.testwebsite.TestWebsiteBuilder;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static java.net.HttpURLConnection.HTTP_MOVED_PERM;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+
+public class AsyncHttpGetRequestTest {
+
+    TestWebsiteBuilder testWebsiteBuilder = TestWebsiteBuilder.build();
+    private AsyncHttpRequestFactory requestFactory = new AsyncHttpRequestFactory();
+
+    @Before
+    public void setUp() throws Exception {
+        testWebsiteBuilder.run();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        requestFactory.close();
+        testWebsiteBuilder.tearDown();
+    }
+
+    @Test
+    public void getOn200() throws Exception {
+        givenAWebsite()
+                .havingPage("/hello").save();
+
+        HttpResponse response = requestFactory.buildGetFor(testUri("/hello")).executeAsync().get();
+
+        assertThat(response.getHttpStatus(), is(HttpURLConnection.HTTP_OK));
+        assertThat(response.getLocation(), is(testUri("/hello")));
+        assertThat(response.getContentType(), is("text/html"));
+        assertThat(response.getInputStream(), is(not(nullValue())));
+    }
+
+    @Test
+    public void usesGetOn301WithRelativeDstPath() throws Exception {
+        givenAWebsite()
+                .havingPage("/source").redirectingTo(301, "/relative_destination").save();
+
+        HttpResponse response = requestFactory.buildGetFor(testUri("/source")).executeAsync().get();
+
+        assertThat(response.getHttpStatus(), is(HTTP_MOVED_PERM));
+        assertThat(response.getLocation(), is(testUri("/relative_destination")));
+    }
+
+    @Test
+    public void unicodeRedirectGetUrlEncoded() throws Exception {
+        givenAWebsite()
+                .havingPage("/source").redirectingTo(301, HttpGetRequestTest.LOCATION_WITH_UNICODE_CHARACTERS).save();
+
+        HttpResponse response = requestFactory.buildGetFor(testUri("/source")).execute();
+
+        assertThat(response.getLocation(), is(testUri("/fam%C3%ADlia")));
+    }
+
+    @Test
+    public void bodyBiggerThanMaxBodySizeShouldBeCutAndMarkedAsTruncated() throws Exception {
+        givenAWebsite()
+                .havingPage("/big").withLinksTo(IntStream.range(0, 100).mapToObj(i -> "/link" + i).toArray(String[]::new)).save();
+
+        try (AsyncHttpRequestFactory sut = new AsyncHttpRequestFactory(null, 1024)) {
+            HttpResponse response = sut.buildGetFor(testUri("/big")).executeAsync().get();
+
+            assertThat(response.isBodyTruncated(), is(true));
+            assertThat(IOUtils.toByteArray(response.getInputStream()).length, is(1024));
+        }
+    }
+
+    @Test
+    public void bodyWithinMaxBodySizeShouldNotBeTruncated() throws Exception {
+        givenAWebsite()
+                .havingPage("/hello").save();
+
+        HttpResponse response = requestFactory.buildGetFor(testUri("/hello")).executeAsync().get();
+
+        assertThat(response.isBodyTruncated(), is(false));
+    }
+
+    @Test
+    public void responsesShouldBeHandledOnTheGivenExecutorThatIsLeftRunning() throws Exception {
+        givenAWebsite()
+                .havingPage("/hello").save();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicInteger handled = new AtomicInteger();
+
+        try (AsyncHttpRequestFactory sut = new AsyncHttpRequestFactory(command -> {
+            handled.incrementAndGet();
+            executor.execute(command);
+        })) {
+            assertThat(sut.buildGetFor(testUri("/hello")).executeAsync().get().getHttpStatus(), is(HttpURLConnection.HTTP_OK));
+        }
+
+        assertThat(handled.get(), greaterThan(0));
+        assertThat(executor.isShutdown(), is(false));
+        executor.shutdown();
+    }
+
+    private URI testUri(String url) {
+        return testWebsiteBuilder.buildTestUri(url);
+    }
+
+    private TestWebsiteBuilder givenAWebsite() {
+        return testWebsiteBuilder;
+    }
+}
@@ -0,0 +1,98 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+public class ContentEncodingTest {
+
+    private static final String PAGE = "<html><head><title>Compressed</title></head><body>Hello</body></html>";
+
+    @Test
+    public void shouldDecodeGzip() throws IOException {
+        assertThat(decodeToString(gzip(PAGE.getBytes(StandardCharsets.UTF_8)), "gzip"), is(PAGE));
+    }
+
+    @Test
+    public void codingShouldBeCaseInsensitive() throws IOException {
+        assertThat(decodeToString(gzip(PAGE.getBytes(StandardCharsets.UTF_8)), " GZIP"), is(PAGE));
+    }
+
+    @Test
+    public void shouldDecodeZlibWrappedDeflate() throws IOException {
+        assertThat(decodeToString(deflate(PAGE.getBytes(StandardCharsets.UTF_8), false), "deflate"), is(PAGE));
+    }
+
+    @Test
+    public void shouldDecodeRawDeflate() throws IOException {
+        assertThat(decodeToString(deflate(PAGE.getBytes(StandardCharsets.UTF_8), true), "deflate"), is(PAGE));
+    }
+
+    @Test
+    public void identityShouldBeLeftAsItIs() throws IOException {
+        assertThat(decodeToString(PAGE.getBytes(StandardCharsets.UTF_8), null), is(PAGE));
+        assertThat(decodeToString(PAGE.getBytes(StandardCharsets.UTF_8), "identity"), is(PAGE));
+    }
+
+    @Test
+    public void bodiesNeverReadShouldNotBeDecoded() throws IOException {
+        //304 with the Content-Encoding of the cached representation
+        ContentEncoding.decode(new ByteArrayInputStream(new byte[0]), "gzip").close();
+    }
+
+    @Test
+    public void unsupportedEncodingShouldFailWhenRead() {
+        try {
+            decodeToString(PAGE.getBytes(StandardCharsets.UTF_8), "compress");
+            fail("Expected exception");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("Unsupported content encoding: compress"));
+        }
+    }
+
+    @Test
+    public void compressionBombShouldBeTruncatedAtTheMaxBodySize() throws IOException {
+        byte[] bomb = gzip(new byte[64 * 1024 * 1024]);
+        LimitedInputStream sut = new LimitedInputStream(ContentEncoding.decode(new ByteArrayInputStream(bomb), "gzip"), 1024 * 1024, 0);
+
+        assertThat(IOUtils.toByteArray(sut).length, is(1024 * 1024));
+        assertThat(sut.isTruncated(), is(true));
+        assertThat(bomb.length, lessThan(1024 * 1024));
+    }
+
+    private static String decodeToString(byte[] body, String contentEncoding) throws IOException {
+        try (InputStream decoded = ContentEncoding.decode(new ByteArrayInputStream(body), contentEncoding)) {
+            return IOUtils.toString(decoded, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] content, boolean raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream deflate = new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+            deflate.write(content);
+        }
+        return out.toByteArray();
+    }
+}
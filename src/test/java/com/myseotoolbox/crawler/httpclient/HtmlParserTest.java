@@ -96,4 +96,51 @@ public class HtmlParserTest {
         assertThat(links, hasSize(1));
         assertThat(links.get(0).getAttributes().entrySet(), hasSize(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldIgnoreLinksInScriptsAndComments() throws IOException {
+        InputStream is = givenHtmlPage()
+                .withBodyElement("<script>var a = '<a href=\"/script\">';</script>").and()
+                .withBodyElement("<!-- <a href=\"/comment\"> -->").and()
+                .withBodyElement("<a href=\"/link\">link</a>").build();
+
+        PageSnapshot snapshot = sut.parse("http://somehost", Collections.emptyList(), is);
+
+        assertThat(snapshot.getLinks(), hasSize(1));
+        assertThat(snapshot.getLinks().get(0).getDestination(), is("/link"));
+    }
+
+    @Test
+    public void shouldDecodeCharacterReferencesInAttributes() throws IOException {
+        InputStream is = givenHtmlPage()
+                .withHeadElement("<META NAME=Description CONTENT='fish &amp; chips'>").and()
+                .withBodyElement("<a href=/search?a=1&amp;b=2>link</a>").build();
+
+        PageSnapshot snapshot = sut.parse("http://somehost", Collections.emptyList(), is);
+
+        assertThat(snapshot.getMetaDescriptions().get(0), is("fish & chips"));
+        assertThat(snapshot.getLinks().get(0).getDestination(), is("/search?a=1&b=2"));
+    }
+
+    @Test
+    public void unclosedHeadingShouldEndWithItsParent() throws IOException {
+        InputStream is = givenHtmlPage()
+                .withBodyElement("<div><h1>Unclosed</div><p>not in the heading</p>").build();
+
+        PageSnapshot snapshot = sut.parse("http://somehost", Collections.emptyList(), is);
+
+        assertThat(snapshot.getH1s(), hasSize(1));
+        assertThat(snapshot.getH1s().get(0), is("Unclosed"));
+    }
+
+    @Test
+    public void headingShouldCloseThePreviousOne() throws IOException {
+        InputStream is = givenHtmlPage()
+                .withBodyElement("<h1>first<h2>second</h2>").build();
+
+        PageSnapshot snapshot = sut.parse("http://somehost", Collections.emptyList(), is);
+
+        assertThat(snapshot.getH1s().get(0), is("first"));
+        assertThat(snapshot.getH2s().get(0), is("second"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class LimitedInputStreamTest {
+
+    @Test
+    public void shouldReadUpToMaxBytes() throws IOException {
+        LimitedInputStream sut = new LimitedInputStream(streamOf(100), 10, 0);
+
+        assertThat(IOUtils.toByteArray(sut).length, is(10));
+        assertThat(sut.getCount(), is(10L));
+        assertThat(sut.isTruncated(), is(true));
+        assertThat(sut.isTimedOut(), is(false));
+    }
+
+    @Test
+    public void streamOfExactlyMaxBytesIsNotTruncated() throws IOException {
+        LimitedInputStream sut = new LimitedInputStream(streamOf(10), 10, 0);
+
+        assertThat(IOUtils.toByteArray(sut).length, is(10));
+        assertThat(sut.isTruncated(), is(false));
+    }
+
+    @Test
+    public void shortStreamIsNotTruncated() throws IOException {
+        LimitedInputStream sut = new LimitedInputStream(streamOf(5), 10, 0);
+
+        assertThat(IOUtils.toByteArray(sut).length, is(5));
+        assertThat(sut.isTruncated(), is(false));
+    }
+
+    @Test
+    public void singleByteReadsShouldBeCounted() throws IOException {
+        LimitedInputStream sut = new LimitedInputStream(streamOf(100), 3, 0);
+
+        int read = 0;
+        while (sut.read() != -1) read++;
+
+        assertThat(read, is(3));
+        assertThat(sut.isTruncated(), is(true));
+    }
+
+    @Test
+    public void shouldStopReadingAfterTheDeadline() throws Exception {
+        LimitedInputStream sut = new LimitedInputStream(streamOf(100), 1000, 1);
+        Thread.sleep(10);
+
+        assertThat(sut.read(), is(-1));
+        assertThat(sut.isTruncated(), is(true));
+        assertThat(sut.isTimedOut(), is(true));
+    }
+
+    private InputStream streamOf(int size) {
+        return new ByteArrayInputStream(new byte[size]);
+    }
+}
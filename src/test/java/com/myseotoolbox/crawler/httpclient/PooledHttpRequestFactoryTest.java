@@ -0,0 +1,78 @@
+package com.myseotoolbox.crawler.httpclient;
+
+import com.myseotoolbox.crawler.testutils.testwebsite.TestWebsiteBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URI;
+
+import static java.net.HttpURLConnection.HTTP_MOVED_PERM;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class PooledHttpRequestFactoryTest {
+
+    TestWebsiteBuilder testWebsiteBuilder = TestWebsiteBuilder.build();
+    private PooledHttpRequestFactory sut = new PooledHttpRequestFactory(1);
+
+    @Before
+    public void setUp() throws Exception {
+        testWebsiteBuilder.run();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sut.close();
+        testWebsiteBuilder.tearDown();
+    }
+
+    @Test
+    public void usesGetOn301WithRelativeDstPath() throws Exception {
+        givenAWebsite()
+                .havingPage("/source").redirectingTo(301, "/relative_destination").save();
+
+        HttpResponse response = sut.buildGetFor(testUri("/source")).execute();
+
+        assertThat(response.getHttpStatus(), is(HTTP_MOVED_PERM));
+        assertThat(response.getLocation(), is(testUri("/relative_destination")));
+    }
+
+    @Test
+    public void getOn200() throws Exception {
+        givenAWebsite()
+                .havingPage("/hello").save();
+
+        HttpResponse response = sut.buildGetFor(testUri("/hello")).execute();
+
+        assertThat(response.getHttpStatus(), is(HttpURLConnection.HTTP_OK));
+        assertThat(response.getContentType(), is("text/html"));
+        response.getInputStream().close();
+    }
+
+    @Test
+    public void shouldReuseConnectionAcrossPages() throws Exception {
+        givenAWebsite()
+                .havingPage("/hello").and()
+                .havingPage("/source").redirectingTo(301, "/hello").save();
+
+        WebPageReader reader = new WebPageReader((sourceUri, discoveredLink) -> true, sut);
+
+        reader.snapshotPage(testUri("/hello"));
+        reader.snapshotPage(testUri("/source"));
+        reader.snapshotPage(testUri("/not-existing"));
+
+        assertThat(sut.getRequests(), is(4L));
+        assertThat(sut.getConnectionsOpened(), is(1L));
+        assertThat(sut.getReuseRatio(), is(0.75));
+    }
+
+    private URI testUri(String url) {
+        return testWebsiteBuilder.buildTestUri(url);
+    }
+
+    private TestWebsiteBuilder givenAWebsite() {
+        return testWebsiteBuilder;
+    }
+}
@@ -0,0 +1,80 @@
+package com.myseotoolbox.crawler.metrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+public class CrawlMetricsReporterTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final CrawlMetricsReporter sut = new CrawlMetricsReporter(scheduler);
+    private final BlockingQueue<String> exports = new LinkedBlockingQueue<>();
+    private final CrawlMetricsExporter exporter = new CrawlMetricsExporter() {
+        @Override
+        public void export(String crawlName, CrawlMetricsSnapshot snapshot) {
+            exports.add(crawlName + " running " + snapshot.getPagesCrawled());
+        }
+
+        @Override
+        public void crawlEnded(String crawlName, CrawlMetricsSnapshot snapshot) {
+            exports.add(crawlName + " ended " + snapshot.getPagesCrawled());
+        }
+    };
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void shouldExportPeriodically() throws InterruptedException {
+        CrawlMetrics metrics = new CrawlMetrics();
+        metrics.pageCrawled(0);
+
+        sut.start("host", metrics, exporter, Duration.ofMillis(10));
+
+        assertThat(exports.poll(5, TimeUnit.SECONDS), is("host running 1"));
+        metrics.pageCrawled(0);
+        assertThat(nextExportOtherThan("host running 1"), is("host running 2"));
+    }
+
+    @Test
+    public void shouldExportTheFinalMetricsWhenStopped() throws InterruptedException {
+        CrawlMetrics metrics = new CrawlMetrics();
+        CrawlMetricsReporter.Reporting reporting = sut.start("host", metrics, exporter, Duration.ofHours(1));
+
+        metrics.pageCrawled(0);
+        reporting.stop();
+
+        assertThat(exports.poll(5, TimeUnit.SECONDS), is("host ended 1"));
+    }
+
+    @Test
+    public void exceptionInTheExporterShouldNotStopTheReporting() throws InterruptedException {
+        BlockingQueue<Long> attempts = new LinkedBlockingQueue<>();
+        sut.start("host", new CrawlMetrics(), (crawlName, snapshot) -> {
+            attempts.add(System.nanoTime());
+            throw new IllegalStateException("Exporter failure");
+        }, Duration.ofMillis(10));
+
+        assertThat(attempts.poll(5, TimeUnit.SECONDS), notNullValue());
+        assertThat(attempts.poll(5, TimeUnit.SECONDS), notNullValue());
+    }
+
+    private String nextExportOtherThan(String export) throws InterruptedException {
+        while (true) {
+            String next = exports.poll(5, TimeUnit.SECONDS);
+            if (next == null || !next.equals(export)) return next;
+        }
+    }
+}
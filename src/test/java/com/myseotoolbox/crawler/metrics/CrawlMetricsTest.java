@@ -0,0 +1,56 @@
+package com.myseotoolbox.crawler.metrics;
+
+import com.myseotoolbox.crawler.spider.filter.RejectionCause;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.myseotoolbox.crawler.metrics.CrawlMetrics.Gauge.FRONTIER_SIZE;
+import static com.myseotoolbox.crawler.metrics.CrawlMetrics.Gauge.VISITED_URLS;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CrawlMetricsTest {
+
+    private final CrawlMetrics sut = new CrawlMetrics();
+
+    @Test
+    public void snapshotShouldHaveEveryRejectionCause() {
+        sut.linkRejected(RejectionCause.EXT);
+        sut.linkRejected(RejectionCause.EXT);
+        sut.linkRejected(RejectionCause.ROBOTS);
+
+        CrawlMetricsSnapshot snapshot = sut.snapshot();
+
+        assertThat(snapshot.getRejections().get(RejectionCause.EXT), is(2L));
+        assertThat(snapshot.getRejections().get(RejectionCause.HOST), is(0L));
+        assertThat(snapshot.getTotalRejections(), is(3L));
+    }
+
+    @Test
+    public void gaugesShouldBeReadWhenTakingTheSnapshot() {
+        AtomicLong frontierSize = new AtomicLong(10);
+        sut.gauge(FRONTIER_SIZE, frontierSize::get);
+
+        assertThat(sut.snapshot().getGauge(FRONTIER_SIZE), is(10L));
+        frontierSize.set(3);
+        assertThat(sut.snapshot().getGauge(FRONTIER_SIZE), is(3L));
+        assertThat(sut.snapshot().getGauge(VISITED_URLS), is(0L));
+    }
+
+    @Test
+    public void shouldRecordPagesAndRedirects() {
+        sut.pageCrawled(0);
+        sut.pageCrawled(2);
+        sut.pageRead(1000, 4000, 50);
+        sut.pageRead(500, 500, 150);
+
+        CrawlMetricsSnapshot snapshot = sut.snapshot();
+
+        assertThat(snapshot.getPagesCrawled(), is(2L));
+        assertThat(snapshot.getRedirectChainLength().getMax(), is(2L));
+        assertThat(snapshot.getBytesDownloaded(), is(1500L));
+        assertThat(snapshot.getBytesDecoded(), is(4500L));
+        assertThat(snapshot.getParseTimeMicros().getCount(), is(2L));
+    }
+}
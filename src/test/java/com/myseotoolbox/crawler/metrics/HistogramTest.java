@@ -0,0 +1,69 @@
+package com.myseotoolbox.crawler.metrics;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class HistogramTest {
+
+    private final Histogram sut = new Histogram();
+
+    @Test
+    public void emptyHistogramShouldBeAllZeros() {
+        HistogramSnapshot snapshot = sut.snapshot();
+
+        assertThat(snapshot.getCount(), is(0L));
+        assertThat(snapshot.getMean(), is(0.0));
+        assertThat(snapshot.getMax(), is(0L));
+        assertThat(snapshot.getP99(), is(0L));
+    }
+
+    @Test
+    public void smallValuesShouldBeExact() {
+        for (int i = 1; i <= 10; i++) sut.record(i);
+
+        HistogramSnapshot snapshot = sut.snapshot();
+
+        assertThat(snapshot.getCount(), is(10L));
+        assertThat(snapshot.getMean(), is(5.5));
+        assertThat(snapshot.getMax(), is(10L));
+        assertThat(snapshot.getP50(), is(5L));
+        assertThat(snapshot.getP90(), is(9L));
+    }
+
+    @Test
+    public void percentilesShouldBeWithinAnEighthOfTheValue() {
+        for (int i = 1; i <= 100_000; i++) sut.record(i);
+
+        HistogramSnapshot snapshot = sut.snapshot();
+
+        assertThat((double) snapshot.getP50(), closeTo(50_000, 50_000 / 8.0));
+        assertThat((double) snapshot.getP99(), closeTo(99_000, 99_000 / 8.0));
+        assertThat(snapshot.getMax(), is(100_000L));
+    }
+
+    @Test
+    public void percentilesShouldNotExceedTheMax() {
+        sut.record(1000);
+
+        assertThat(sut.snapshot().getP99(), is(1000L));
+    }
+
+    @Test
+    public void negativeValuesShouldBeRecordedAsZero() {
+        sut.record(-5);
+
+        assertThat(sut.snapshot().getMax(), is(0L));
+        assertThat(sut.snapshot().getCount(), is(1L));
+    }
+
+    @Test
+    public void everyValueShouldFallWithinItsBucket() {
+        for (long value : new long[]{0, 7, 8, 15, 16, 17, 1023, 1024, 123_456_789, Long.MAX_VALUE}) {
+            int bucket = Histogram.bucketOf(value);
+            assertThat(Histogram.upperBoundOf(bucket), greaterThanOrEqualTo(value));
+            if (bucket > 0) assertThat(Histogram.upperBoundOf(bucket - 1), lessThan(value));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.myseotoolbox.crawler.spider;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+
+public class CrawlSchedulerTest {
+
+    private CrawlScheduler sut;
+
+    @After
+    public void tearDown() {
+        if (sut != null) sut.close();
+    }
+
+    @Test
+    public void shouldNotRunMoreTasksThanTheConnectionBudget() throws InterruptedException {
+        sut = new CrawlScheduler(3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(60);
+
+        for (int i = 0; i < 3; i++) {
+            ExecutorService job = sut.register("host" + i, 10, 1);
+            for (int j = 0; j < 20; j++) {
+                job.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(2);
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(maxRunning.get(), lessThanOrEqualTo(3));
+    }
+
+    @Test
+    public void shouldNotRunMoreTasksOfAJobThanItsConnections() throws InterruptedException {
+        sut = new CrawlScheduler(8);
+        ExecutorService job = sut.register("host", 2, 1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(30);
+
+        for (int i = 0; i < 30; i++) {
+            job.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(2);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(maxRunning.get(), is(2));
+    }
+
+    @Test
+    public void jobsShouldShareTheWorkersByWeight() throws InterruptedException {
+        sut = new CrawlScheduler(1);
+        ExecutorService heavy = sut.register("heavy", 1, 3);
+        ExecutorService light = sut.register("light", 1, 1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch queued = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(80);
+
+        //keeps the only worker busy until both jobs have queued all their tasks
+        occupyTheWorker(heavy, queued);
+        for (int i = 0; i < 40; i++) {
+            heavy.execute(() -> {
+                order.add("heavy");
+                done.countDown();
+            });
+            light.execute(() -> {
+                order.add("light");
+                done.countDown();
+            });
+        }
+        queued.countDown();
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(Collections.frequency(order.subList(0, 40), "heavy"), is(30));
+    }
+
+    @Test
+    public void jobIdleForAWhileShouldNotTakeOverTheWorkers() throws InterruptedException {
+        sut = new CrawlScheduler(1);
+        ExecutorService busy = sut.register("busy", 1, 1);
+        ExecutorService idle = sut.register("idle", 1, 1);
+        CountDownLatch warmedUp = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) busy.execute(warmedUp::countDown);
+        assertThat(warmedUp.await(10, TimeUnit.SECONDS), is(true));
+        while (sut.getActiveTasks() > 0) sleep(1);
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch queued = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(20);
+        occupyTheWorker(busy, queued);
+        for (int i = 0; i < 10; i++) {
+            busy.execute(() -> {
+                order.add("busy");
+                done.countDown();
+            });
+            idle.execute(() -> {
+                order.add("idle");
+                done.countDown();
+            });
+        }
+        queued.countDown();
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(Collections.frequency(order.subList(0, 10), "idle"), is(5));
+    }
+
+    @Test
+    public void shutDownJobShouldTerminateOnceItsTasksAreCompleted() throws InterruptedException {
+        sut = new CrawlScheduler(2);
+        ExecutorService job = sut.register("host", 2, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        job.execute(() -> await(release));
+
+        job.shutdown();
+
+        assertThat(job.isShutdown(), is(true));
+        assertThat(job.isTerminated(), is(false));
+        assertThat(sut.getRegisteredJobs(), is(1));
+
+        release.countDown();
+        assertThat(job.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(sut.getRegisteredJobs(), is(0));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shutDownJobShouldRejectNewTasks() {
+        sut = new CrawlScheduler(1);
+        ExecutorService job = sut.register("host", 1, 1);
+        job.shutdown();
+        job.execute(() -> {
+        });
+    }
+
+    private static void occupyTheWorker(ExecutorService job, CountDownLatch until) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        job.execute(() -> {
+            started.countDown();
+            await(until);
+        });
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,18 +1,19 @@
 package com.myseotoolbox.crawler.spider;
 
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
 import org.junit.Test;
 
-import java.net.URI;
 import java.util.Arrays;
+import java.util.Collections;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertThat;
+import static org.junit.Assert.*;
 
 public class CrawlStatusTest {
 
-    public static final URI URI = java.net.URI.create("http://host/uri/");
-    public static final URI URI_WITH_FRAGMENT = java.net.URI.create("http://host/uri/#fragment");
+    public static final CrawlUrl URI = CrawlUrl.fromAscii("http://host/uri/");
+    public static final CrawlUrl URI_WITH_FRAGMENT = CrawlUrl.fromAscii("http://host/uri/#fragment");
     CrawlStatus sut = new CrawlStatus();
 
 
@@ -24,4 +25,31 @@ public class CrawlStatusTest {
         sut.markAsCrawled(URI);
         assertFalse(sut.isCrawlCompleted());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldClaimEachUriOnlyOnce() {
+        assertThat(sut.addToInProgress(Arrays.asList(URI, URI)), contains(URI));
+        assertThat(sut.addToInProgress(Collections.singletonList(URI)).size(), is(0));
+        assertThat(sut.getTotalEnqueued(), is(1));
+    }
+
+    @Test
+    public void shouldNotClaimMoreThanMaxCrawls() {
+        CrawlUrl other = CrawlUrl.fromAscii("http://host/other");
+        assertThat(sut.addToInProgress(Arrays.asList(URI, URI_WITH_FRAGMENT, other), 2), contains(URI, URI_WITH_FRAGMENT));
+        assertThat(sut.getTotalEnqueued(), is(2));
+        assertFalse(sut.isAlreadyVisited(other));
+    }
+
+    @Test
+    public void crawlIsCompletedWhenLastTaskIsReleased() {
+        sut.addToInProgress(Arrays.asList(URI, URI_WITH_FRAGMENT));
+
+        sut.markAsCrawled(URI);
+        assertFalse(sut.releaseTask());
+
+        sut.markAsCrawled(URI_WITH_FRAGMENT);
+        assertTrue(sut.releaseTask());
+        assertTrue(sut.isCrawlCompleted());
+    }
+}
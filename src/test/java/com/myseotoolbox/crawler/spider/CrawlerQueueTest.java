@@ -1,8 +1,13 @@
 package com.myseotoolbox.crawler.spider;
 
+import com.myseotoolbox.crawler.metrics.CrawlMetrics;
 import com.myseotoolbox.crawler.model.*;
 import com.myseotoolbox.crawler.pagelinks.PageLink;
+import com.myseotoolbox.crawler.spider.checkpoint.CheckpointWriter;
+import com.myseotoolbox.crawler.spider.checkpoint.CrawlCheckpoint;
+import com.myseotoolbox.crawler.spider.frontier.InMemoryFrontier;
 import com.myseotoolbox.crawler.spider.model.SnapshotTask;
+import com.myseotoolbox.crawler.spider.visited.FingerprintVisitedUrlStore;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -10,8 +15,13 @@ import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -21,6 +31,7 @@ import static com.myseotoolbox.crawler.testutils.PageSnapshotTestBuilder.aPageSn
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonMap;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -457,6 +468,115 @@ public class CrawlerQueueTest {
         verifyNoMoreInteractions(pool);
     }
 
+    @Test
+    public void shouldNotHandOverMoreThanMaxPendingTasks() {
+        List<SnapshotTask> handedOver = new ArrayList<>();
+        doAnswer(invocation -> handedOver.add(invocation.getArgument(0))).when(pool).accept(any());
+
+        sut = initSut().withUris("http://host1/1", "http://host1/2", "http://host1/3").withMaxPendingTasks(2).build();
+        sut.start();
+
+        assertThat(handedOver.size(), is(2));
+
+        complete(handedOver.get(0));
+        assertThat(handedOver.size(), is(3));
+        assertThat(handedOver.get(2).getUri(), is(URI.create("http://host1/3")));
+
+        complete(handedOver.get(1));
+        complete(handedOver.get(2));
+        verify(dispatch).crawlEnded();
+    }
+
+    @Test
+    public void shouldResumeFromCheckpointWithoutCrawlingAgainCrawledPages() throws IOException {
+        Path file = Files.createTempFile("crawl", ".checkpoint");
+        try (CheckpointWriter writer = CheckpointWriter.create(file, URI.create("http://host1"), Duration.ZERO)) {
+            writer.claimed("http://host1");
+            writer.claimed("http://host1/crawled");
+            writer.claimed("http://host1/in-progress");
+            writer.crawled("http://host1");
+            writer.crawled("http://host1/crawled");
+        }
+        whenCrawling("http://host1/in-progress").discover("http://host1", "http://host1/crawled", "http://host1/new");
+
+        CrawlCheckpoint checkpoint = CrawlCheckpoint.read(file);
+        sut.checkpointTo(CheckpointWriter.resume(checkpoint, Duration.ZERO), checkpoint);
+        sut.start();
+
+        verify(pool).accept(taskForUri("http://host1/in-progress"));
+        verify(pool).accept(taskForUri("http://host1/new"));
+        verify(pool).shutDown();
+        verifyNoMoreInteractions(pool);
+        assertThat(CrawlCheckpoint.read(file).getInProgress().size(), is(0));
+        Files.delete(file);
+    }
+
+    @Test
+    public void resumingACompletedCrawlShouldEndIt() throws IOException {
+        Path file = Files.createTempFile("crawl", ".checkpoint");
+        try (CheckpointWriter writer = CheckpointWriter.create(file, URI.create("http://host1"), Duration.ZERO)) {
+            writer.claimed("http://host1");
+            writer.crawled("http://host1");
+        }
+        //nothing to crawl: the default stubbing would be unused
+        reset(pool);
+
+        CrawlCheckpoint checkpoint = CrawlCheckpoint.read(file);
+        sut.checkpointTo(CheckpointWriter.resume(checkpoint, Duration.ZERO), checkpoint);
+        sut.start();
+
+        verify(pool, never()).accept(any());
+        verify(dispatch).crawlEnded();
+        Files.delete(file);
+    }
+
+    @Test
+    public void seedsAddedBeforeStartShouldBeCrawledOnceAfterTheSeeds() {
+        sut = initSut().withUris("http://host1").build();
+
+        sut.addSeeds(Arrays.asList(URI.create("http://host1/from-sitemap"), URI.create("http://host1"), URI.create("http://host1/from-sitemap#fragment")));
+        verify(pool, never()).accept(any());
+        sut.start();
+
+        InOrder inOrder = inOrder(pool);
+        inOrder.verify(pool).accept(taskForUri("http://host1"));
+        inOrder.verify(pool).accept(taskForUri("http://host1/from-sitemap"));
+        verify(pool, times(2)).accept(any());
+    }
+
+    @Test
+    public void crawlKeptOpenShouldNotEndBeforeTheBootstrapCompletes() {
+        CompletableFuture<Void> bootstrap = new CompletableFuture<>();
+        sut.keepOpenUntil(bootstrap);
+        sut.start();
+
+        verify(pool).accept(taskForUri("http://host1"));
+        verify(dispatch, never()).crawlEnded();
+
+        sut.addSeeds(uris("http://host1/from-sitemap"));
+        verify(pool).accept(taskForUri("http://host1/from-sitemap"));
+        verify(dispatch, never()).crawlEnded();
+
+        bootstrap.complete(null);
+        verify(pool).shutDown();
+        verify(dispatch).crawlEnded();
+    }
+
+    @Test
+    public void bootstrapCompletedBeforeStartShouldNotEndTheCrawl() {
+        CompletableFuture<Void> bootstrap = new CompletableFuture<>();
+        sut.keepOpenUntil(bootstrap);
+        sut.addSeeds(uris("http://host1/from-sitemap"));
+        bootstrap.complete(null);
+        verify(dispatch, never()).crawlEnded();
+
+        sut.start();
+
+        verify(pool).accept(taskForUri("http://host1"));
+        verify(pool).accept(taskForUri("http://host1/from-sitemap"));
+        verify(dispatch).crawlEnded();
+    }
+
     @Test
     public void shouldNotCrawlDuplicateSeeds() {
         sut = initSut().withUris("http://host1/", "http://host1/").build();
@@ -509,6 +629,10 @@ public class CrawlerQueueTest {
         return Stream.of(s).map(URI::create).collect(Collectors.toList());
     }
 
+    private void complete(SnapshotTask task) {
+        task.getTaskRequester().accept(CrawlResult.forSnapshot(aPageSnapshotWithStandardValuesForUri(task.getUri().toString())));
+    }
+
     private CrawlerQueueTestMockBuilder whenCrawling(String baseUri) {
         return new CrawlerQueueTestMockBuilder(baseUri);
     }
@@ -599,6 +723,7 @@ public class CrawlerQueueTest {
         private String[] uris = new String[]{"http://host1"};
         private int maxCrawls = MAX_CRAWLS;
         private UriFilter filter = NO_URI_FILTER;
+        private int maxPendingTasks = Integer.MAX_VALUE;
 
         public CrawlerQueueBuilder withUris(String... uris) {
             this.uris = uris;
@@ -611,7 +736,12 @@ public class CrawlerQueueTest {
         }
 
         public CrawlerQueue build() {
-            return new CrawlerQueue(QUEUE_NAME, uris(uris), pool, filter, maxCrawls, dispatch);
+            return new CrawlerQueue(QUEUE_NAME, uris(uris), pool, pool, filter, maxCrawls, dispatch, FingerprintVisitedUrlStore::onHeap, new InMemoryFrontier(), maxPendingTasks, new CrawlMetrics());
+        }
+
+        public CrawlerQueueBuilder withMaxPendingTasks(int maxPendingTasks) {
+            this.maxPendingTasks = maxPendingTasks;
+            return this;
         }
 
         public CrawlerQueueBuilder withMaxCrawls(int maxCrawls) {
@@ -23,6 +23,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import java.net.URI;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.Consumer;
 
@@ -76,6 +78,58 @@ public class CrawlersPoolTest {
         assertThat(testAppender.getMessages(), Matchers.hasItem(LogEventMatcherBuilder.logEvent().withLevel(Level.ERROR).withMessageContaining("Exception while crawling").build()));
     }
 
+    @Test
+    public void shouldKeepTrackOfCompletedTasks() {
+        acceptTaskFor(SUCCESS_TEST_LINK);
+        acceptTaskFor(FAILURE_TEST_LINK);
+
+        assertThat(sut.getCompletedTasks(), Matchers.is(2L));
+        assertThat(sut.getActiveTasks(), Matchers.is(0));
+        assertThat(sut.getQueuedTasks(), Matchers.is(0));
+    }
+
+    @Test
+    public void asyncShouldSubmitSnapshotWhenSuccessful() {
+        when(reader.snapshotPageAsync(SUCCESS_TEST_LINK)).thenReturn(CompletableFuture.completedFuture(TEST_SNAPSHOT_RESULT));
+        sut = new CrawlersPool(reader, executor, 1);
+
+        acceptTaskFor(SUCCESS_TEST_LINK);
+        acceptTaskFor(SUCCESS_TEST_LINK);
+
+        verify(listener, times(2)).accept(TEST_SNAPSHOT_RESULT);
+    }
+
+    @Test
+    public void asyncShouldSubmitPartialValueWhenExceptionOccur() {
+        when(reader.snapshotPageAsync(FAILURE_TEST_LINK)).thenReturn(CompletableFuture.failedFuture(new CompletionException(new SnapshotException(new RuntimeException("This one's not good"), FAILURE_TEST_SNAPSHOT))));
+        sut = new CrawlersPool(reader, executor, 1);
+
+        acceptTaskFor(FAILURE_TEST_LINK);
+
+        verify(listener).accept(argThat(argument -> argument.getPageSnapshot() == FAILURE_TEST_SNAPSHOT));
+    }
+
+    @Test
+    public void asyncTasksBeyondMaxAsyncRequestsShouldWaitInThePoolNotOnTheExecutor() {
+        CompletableFuture<CrawlResult> firstResponse = new CompletableFuture<>();
+        when(reader.snapshotPageAsync(SUCCESS_TEST_LINK)).thenReturn(firstResponse, CompletableFuture.completedFuture(TEST_SNAPSHOT_RESULT));
+        ThreadPoolExecutor executor = spy(this.executor);
+        sut = new CrawlersPool(reader, executor, 1);
+
+        acceptTaskFor(SUCCESS_TEST_LINK);
+        acceptTaskFor(SUCCESS_TEST_LINK);
+
+        verify(executor, times(1)).submit(any(Runnable.class));
+        assertThat(sut.getQueuedTasks(), Matchers.is(1));
+        assertThat(sut.getActiveTasks(), Matchers.is(1));
+
+        firstResponse.complete(TEST_SNAPSHOT_RESULT);
+
+        verify(executor, times(2)).submit(any(Runnable.class));
+        verify(listener, times(2)).accept(TEST_SNAPSHOT_RESULT);
+        assertThat(sut.getQueuedTasks(), Matchers.is(0));
+        assertThat(sut.getActiveTasks(), Matchers.is(0));
+    }
 
     private void acceptTaskFor(URI uri) {
         sut.accept(new SnapshotTask(uri, listener));
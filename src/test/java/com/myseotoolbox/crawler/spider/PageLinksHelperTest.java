@@ -35,4 +35,14 @@ public class PageLinksHelperTest {
         assertThat(filtered, hasSize(1));
         assertThat(filtered.get(0).toString(), is("/dst0"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldResolveRelativeLinks() {
+        URI source = URI.create("http://host/path/page");
+
+        assertThat(PageLinksHelper.toValidUri(source, "other page").get().toString(), is("http://host/path/other%20page"));
+        assertThat(PageLinksHelper.toValidUri(URI.create("http://host"), "relative").get().toString(), is("http://host/relative"));
+        assertThat(PageLinksHelper.toValidUri(source, "https://another/").get().toString(), is("https://another/"));
+        assertThat(PageLinksHelper.toValidUri(source, "#top").isPresent(), is(false));
+    }
+}
@@ -1,6 +1,9 @@
 package com.myseotoolbox.crawler.spider;
 
 import com.myseotoolbox.crawler.model.CrawlResult;
+import com.myseotoolbox.crawler.spider.partition.CrawlPartition;
+import com.myseotoolbox.crawler.spider.partition.InProcessPartitionTransport;
+import com.myseotoolbox.crawler.spider.partition.PartitionTransport;
 import com.myseotoolbox.crawler.testutils.TestWebsite;
 import com.myseotoolbox.crawler.testutils.testwebsite.ReceivedRequest;
 import com.myseotoolbox.crawler.testutils.testwebsite.TestWebsiteBuilder;
@@ -15,7 +18,9 @@ import org.mockito.junit.MockitoJUnitRunner;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.myseotoolbox.crawler.spider.filter.WebsiteOriginUtils.extractOrigin;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -94,6 +99,21 @@ public class SpiderIntegrationTest {
         verify(dispatch).pageCrawled(uri("/link2"));
     }
 
+    @Test
+    public void asyncBuiltJobShouldCrawlTheSitemapUrlsBeforeEnding() {
+        givenAWebsite()
+                .withSitemapOn("/").havingUrls("/link1", "/link2").build()
+                .save();
+
+        CrawlJob job = getCrawlJobBuilder(testSeeds("/")).buildAsync().join();
+        job.start();
+
+        verify(dispatch, timeout(5000)).crawlEnded();
+        verify(dispatch).pageCrawled(uri("/"));
+        verify(dispatch).pageCrawled(uri("/link1"));
+        verify(dispatch).pageCrawled(uri("/link2"));
+    }
+
     @Test
     public void sitemapUrlsWithFragmentShouldBeNormalized() {
         givenAWebsite()
@@ -284,6 +304,70 @@ public class SpiderIntegrationTest {
         verify(dispatch, atMost(2)).pageCrawled(any());
     }
 
+    @Test
+    public void partitionedCrawlShouldCrawlEveryPageOnceAcrossThePartitions() {
+        givenAWebsite()
+                .havingPage("/").withLinksTo("/a", "/b", "/c", "/d").and()
+                .havingPage("/a").withLinksTo("/b", "/e", "/f").and()
+                .havingPage("/e").withLinksTo("/", "/g")
+                .save();
+
+        PartitionTransport transport = new InProcessPartitionTransport(2);
+        CrawlJob first = getCrawlJobBuilder(testSeeds("/")).withPartition(new CrawlPartition(transport, 0)).build();
+        CrawlJob second = getCrawlJobBuilder(testSeeds("/")).withPartition(new CrawlPartition(transport, 1)).build();
+        first.start();
+        second.start();
+
+        for (String page : Arrays.asList("/", "/a", "/b", "/c", "/d", "/e", "/f", "/g")) {
+            verify(dispatch).pageCrawled(uri(page));
+        }
+        verify(dispatch, times(8)).pageCrawled(any());
+        verify(dispatch, times(2)).crawlEnded();
+    }
+
+    @Test
+    public void partitionsStartedFromDifferentThreadsShouldNotWaitForEachOther() throws InterruptedException {
+        givenAWebsite()
+                .havingPage("/").withLinksTo("/a", "/c").and()
+                .havingPage("/b").withLinksTo("/d", "/e")
+                .save();
+
+        //"/" and "/b" are owned by different partitions, so each one sends a seed to the other while claiming its own (already when reading the sitemaps in build())
+        PartitionTransport transport = new InProcessPartitionTransport(2);
+        CountDownLatch ready = new CountDownLatch(2);
+        List<Thread> threads = Stream.of(0, 1).map(partition -> new Thread(() -> {
+            ready.countDown();
+            try {
+                ready.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            getCrawlJobBuilder(testSeeds("/", "/b")).withPartition(new CrawlPartition(transport, partition)).build().start();
+        })).collect(Collectors.toList());
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) thread.join(10_000);
+
+        assertThat(threads.stream().noneMatch(Thread::isAlive), is(true));
+        for (String page : Arrays.asList("/", "/a", "/b", "/c", "/d", "/e")) {
+            verify(dispatch).pageCrawled(uri(page));
+        }
+        verify(dispatch, times(2)).crawlEnded();
+    }
+
+    @Test
+    public void partitionedCrawlShouldLimitTheCrawlsOfAllThePartitions() {
+        TestWebsite testWebsite = givenAWebsite().havingRootPage().withLinksTo("/1", "/2", "/3", "/4", "/5", "/6").save();
+
+        PartitionTransport transport = new InProcessPartitionTransport(2);
+        CrawlJob first = getCrawlJobBuilder(testSeeds("/")).withCrawlLimit(3).withPartition(new CrawlPartition(transport, 0)).build();
+        CrawlJob second = getCrawlJobBuilder(testSeeds("/")).withCrawlLimit(3).withPartition(new CrawlPartition(transport, 1)).build();
+        first.start();
+        second.start();
+
+        assertThat(getReceivedRequests(testWebsite).stream().filter(path -> !path.equals("/robots.txt")).count(), is(3L));
+        verify(dispatch, times(2)).crawlEnded();
+    }
+
     @Test
     public void shouldLimitCrawls() {
         TestWebsite testWebsite = givenAWebsite().havingRootPage().withLinksTo("/1", "/2", "/3", "4").save();
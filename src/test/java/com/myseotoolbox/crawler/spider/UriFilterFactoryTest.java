@@ -1,5 +1,7 @@
 package com.myseotoolbox.crawler.spider;
 
+import com.myseotoolbox.crawler.metrics.CrawlMetrics;
+import com.myseotoolbox.crawler.spider.filter.RejectionCause;
 import com.myseotoolbox.crawler.spider.filter.robotstxt.EmptyRobotsTxt;
 import com.myseotoolbox.crawler.spider.filter.robotstxt.RobotsTxt;
 import org.junit.Test;
@@ -7,9 +9,12 @@ import org.junit.Test;
 import java.net.URI;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static com.myseotoolbox.crawler.spider.configuration.AllowedPathFromSeeds.extractAllowedPathFromSeeds;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 public class UriFilterFactoryTest {
@@ -20,6 +25,11 @@ public class UriFilterFactoryTest {
             return null;
         }
 
+        @Override
+        public long getCrawlDelayMillis() {
+            return 0;
+        }
+
         @Override
         public boolean shouldCrawl(URI sourceUri, URI discoveredLink) {
             return false;
@@ -56,6 +66,39 @@ public class UriFilterFactoryTest {
         assertFalse(build.shouldCrawl(allowed, origin.resolve("/allowed")));
     }
 
+    @Test
+    public void shouldNotCrawlMailtoLinksFoundOutsideTheAllowedPaths() {
+        URI origin = URI.create("http://testhost/");
+        UriFilter sut = sutFor(origin, extractAllowedPathFromSeeds(Collections.singletonList(origin.resolve("/allowed/"))), new EmptyRobotsTxt(null));
+
+        //enough links for some of them to be sampled through all the checks
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(sut.shouldCrawl(origin.resolve("/outside"), URI.create("mailto:info" + i + "@testhost")));
+        }
+    }
+
+    @Test
+    public void shouldCountTheRejectedLinksByCause() {
+        URI origin = URI.create("http://testhost/");
+        URI allowed = origin.resolve("/allowed/");
+        CrawlMetrics metrics = new CrawlMetrics();
+        UriFilter sut = new DefaultUriFilter(origin, extractAllowedPathFromSeeds(Collections.singletonList(allowed)), new EmptyRobotsTxt(null), metrics);
+
+        sut.shouldCrawl(allowed, origin.resolve("/allowed/page"));
+        sut.shouldCrawl(allowed, URI.create("mailto:info@testhost"));
+        sut.shouldCrawl(allowed, origin.resolve("/allowed/image.jpg"));
+        sut.shouldCrawl(allowed, URI.create("http://another-host/allowed/"));
+        sut.shouldCrawl(origin.resolve("/outside"), origin.resolve("/outside/page"));
+        sut.shouldCrawl(allowed, origin.resolve("/allowed/style.css"));
+
+        Map<RejectionCause, Long> rejections = metrics.snapshot().getRejections();
+        assertThat(rejections.get(RejectionCause.SCH), is(1L));
+        assertThat(rejections.get(RejectionCause.EXT), is(2L));
+        assertThat(rejections.get(RejectionCause.HOST), is(1L));
+        assertThat(rejections.get(RejectionCause.PATH), is(1L));
+        assertThat(rejections.get(RejectionCause.ROBOTS), is(0L));
+    }
+
     private UriFilter sutFor(URI origin, List<String> extractAllowedPathFromSeeds, RobotsTxt emptyRobotsTxt) {
         return new DefaultUriFilter(origin,extractAllowedPathFromSeeds, emptyRobotsTxt);
     }
@@ -0,0 +1,101 @@
+package com.myseotoolbox.crawler.spider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assume.assumeTrue;
+
+public class VirtualThreadCrawlerExecutorTest {
+
+    private static final int CONCURRENCY = 3;
+    private VirtualThreadCrawlerExecutor sut;
+
+    @Before
+    public void setUp() {
+        assumeTrue("Virtual threads not supported by this runtime", VirtualThreadCrawlerExecutor.isSupported());
+        sut = new VirtualThreadCrawlerExecutor("crawler-host-", CONCURRENCY);
+    }
+
+    @After
+    public void tearDown() {
+        if (sut != null) sut.shutdown();
+    }
+
+    @Test
+    public void shouldNotRunMoreTasksThanConcurrency() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(50);
+
+        for (int i = 0; i < 50; i++) {
+            sut.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(2);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(maxRunning.get(), lessThanOrEqualTo(CONCURRENCY));
+    }
+
+    @Test
+    public void threadsShouldBeNamedAfterTheCrawl() throws InterruptedException {
+        StringBuilder name = new StringBuilder();
+        CountDownLatch done = new CountDownLatch(1);
+
+        sut.execute(() -> {
+            name.append(Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        done.await(10, TimeUnit.SECONDS);
+        assertThat(name.toString(), startsWith("crawler-host-"));
+    }
+
+    @Test
+    public void shouldTerminateWhenTasksCompleteAfterShutdown() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        sut.execute(() -> await(release));
+
+        sut.shutdown();
+        assertThat(sut.isTerminated(), is(false));
+
+        release.countDown();
+        assertThat(sut.awaitTermination(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shouldRejectTasksAfterShutdown() {
+        sut.shutdown();
+        sut.execute(() -> {
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.myseotoolbox.crawler.spider.checkpoint;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CrawlCheckpointTest {
+
+    private static final URI ORIGIN = URI.create("http://host/");
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+    private Path file;
+
+    @Before
+    public void setUp() {
+        file = folder.getRoot().toPath().resolve("crawl.checkpoint");
+    }
+
+    @Test
+    public void shouldReadTheOrigin() {
+        CheckpointWriter.create(file, ORIGIN, Duration.ZERO).close();
+
+        assertThat(CrawlCheckpoint.read(file).getOrigin(), is(ORIGIN));
+    }
+
+    @Test
+    public void shouldTellCrawledFromInProgress() {
+        try (CheckpointWriter writer = CheckpointWriter.create(file, ORIGIN, Duration.ZERO)) {
+            writer.claimed("http://host/");
+            writer.claimed("http://host/a");
+            writer.claimed("http://host/b");
+            writer.crawled("http://host/");
+            writer.claimed("http://host/c");
+            writer.crawled("http://host/b");
+        }
+
+        CrawlCheckpoint checkpoint = CrawlCheckpoint.read(file);
+
+        assertThat(checkpoint.getInProgress(), contains("http://host/a", "http://host/c"));
+        assertThat(checkpoint.getCrawled(), is(2L));
+        assertThat(crawled(checkpoint), contains("http://host/", "http://host/b"));
+    }
+
+    @Test
+    public void shouldIgnoreARecordCutByACrash() throws IOException {
+        try (CheckpointWriter writer = CheckpointWriter.create(file, ORIGIN, Duration.ZERO)) {
+            writer.claimed("http://host/");
+            writer.crawled("http://host/");
+            writer.claimed("http://host/partially-written");
+        }
+        truncate(file, Files.size(file) - 3);
+
+        CrawlCheckpoint checkpoint = CrawlCheckpoint.read(file);
+
+        assertThat(checkpoint.getInProgress(), is(empty()));
+        assertThat(checkpoint.getCrawled(), is(1L));
+    }
+
+    @Test
+    public void resumingShouldAppendAfterTheLastCompleteRecord() throws IOException {
+        try (CheckpointWriter writer = CheckpointWriter.create(file, ORIGIN, Duration.ZERO)) {
+            writer.claimed("http://host/");
+            writer.claimed("http://host/partially-written");
+        }
+        truncate(file, Files.size(file) - 3);
+
+        try (CheckpointWriter writer = CheckpointWriter.resume(CrawlCheckpoint.read(file), Duration.ZERO)) {
+            writer.crawled("http://host/");
+            writer.claimed("http://host/after-resume");
+        }
+
+        CrawlCheckpoint checkpoint = CrawlCheckpoint.read(file);
+        assertThat(checkpoint.getInProgress(), contains("http://host/after-resume"));
+        assertThat(crawled(checkpoint), contains("http://host/"));
+    }
+
+    @Test
+    public void shouldPreserveNonAsciiUrls() {
+        try (CheckpointWriter writer = CheckpointWriter.create(file, ORIGIN, Duration.ZERO)) {
+            writer.claimed("http://host/citt\u00e0");
+            writer.claimed("http://host/next");
+        }
+
+        assertThat(CrawlCheckpoint.read(file).getInProgress(), contains("http://host/citt\u00e0", "http://host/next"));
+    }
+
+    @Test
+    public void shouldKeepTheRecordsBufferedUntilTheInterval() throws IOException {
+        CheckpointWriter writer = CheckpointWriter.create(file, ORIGIN, Duration.ofHours(1));
+        long headerSize = Files.size(file);
+
+        writer.claimed("http://host/");
+        assertThat(Files.size(file), is(headerSize));
+
+        writer.close();
+        assertThat(CrawlCheckpoint.read(file).getInProgress(), contains("http://host/"));
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void shouldRejectFilesThatAreNotCheckpoints() throws IOException {
+        Files.write(file, "not a checkpoint".getBytes());
+        CrawlCheckpoint.read(file);
+    }
+
+    private List<String> crawled(CrawlCheckpoint checkpoint) {
+        List<String> crawled = new ArrayList<>();
+        checkpoint.forEachCrawled(crawled::add);
+        return crawled;
+    }
+
+    private void truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, WRITE)) {
+            channel.truncate(size);
+        }
+    }
+}
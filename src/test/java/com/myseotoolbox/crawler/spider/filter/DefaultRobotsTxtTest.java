@@ -41,6 +41,20 @@ public class DefaultRobotsTxtTest {
         assertFalse(sut.shouldCrawl(null, testUri("/order")));
     }
 
+    @Test
+    public void shouldReadCrawlDelay() {
+        DefaultRobotsTxt sut = new DefaultRobotsTxt("http://host", "User-agent: *\nCrawl-delay: 5\nDisallow: /order".getBytes());
+
+        assertEquals(5000, sut.getCrawlDelayMillis());
+    }
+
+    @Test
+    public void crawlDelayShouldBeZeroIfNotSet() {
+        DefaultRobotsTxt sut = new DefaultRobotsTxt("http://host", "User-agent: *\nDisallow: /order".getBytes());
+
+        assertEquals(0, sut.getCrawlDelayMillis());
+    }
+
     @Test
     public void shouldAllow() throws IOException {
 
@@ -0,0 +1,52 @@
+package com.myseotoolbox.crawler.spider.filter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExtensionMatcherTest {
+
+    private final ExtensionMatcher sut = new ExtensionMatcher(Arrays.asList("js", "jpg", "jpeg", "tif", "tiff", "rm", "ram"));
+
+    @Test
+    public void shouldMatchExtensionsIgnoringCase() {
+        assertTrue(sut.matches("http://host/script.js"));
+        assertTrue(sut.matches("http://host/IMG.JPG"));
+        assertTrue(sut.matches("http://host/img.JpEg"));
+        assertTrue(sut.matches("http://host/scan.tif"));
+        assertTrue(sut.matches("http://host/scan.tiff"));
+    }
+
+    @Test
+    public void shouldMatchOnlyWholeExtensions() {
+        assertFalse(sut.matches("http://host/page.json"));
+        assertFalse(sut.matches("http://host/page.ajs"));
+        assertFalse(sut.matches("http://host/pagejs"));
+        assertFalse(sut.matches("http://host/scan.tifff"));
+        assertFalse(sut.matches("http://host/media.arm"));
+        assertFalse(sut.matches("js"));
+        assertFalse(sut.matches(""));
+    }
+
+    @Test
+    public void shouldMatchTheEndOfTheWholeString() {
+        assertTrue(sut.matches("http://host/page?download=file.js"));
+        assertFalse(sut.matches("http://host/script.js?v=2"));
+    }
+
+    @Test
+    public void shouldMatchAsTheRegexItReplaced() {
+        Pattern regex = Pattern.compile(".*\\.(?:js|jpe?g|tiff?|rm|ram)$");
+        String[] samples = {"a.js", "a.JS", "a.jpg", "a.jpeg", "a.jpeeg", "a.tif", "a.tiff", "a.rm", "a.ram", "a.rram", "a.am",
+                "a..js", "a.js.", "a/.js", "a.js/", "..js", "x.rm.js", "x.js.html", "x.m", "x.", "."};
+
+        for (String sample : samples) {
+            assertEquals(sample, regex.matcher(sample.toLowerCase()).matches(), sut.matches(sample));
+        }
+    }
+}
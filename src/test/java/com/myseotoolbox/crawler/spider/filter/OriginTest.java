@@ -0,0 +1,63 @@
+package com.myseotoolbox.crawler.spider.filter;
+
+import org.junit.Test;
+
+import static java.net.URI.create;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OriginTest {
+
+    private final Origin host = Origin.of(create("http://Host/path"));
+
+    @Test
+    public void shouldNormalizeHostAndPort() {
+        assertThat(host.getHost(), is("host"));
+        assertThat(host.getPort(), is(-1));
+        assertThat(Origin.of(create("http://host:80")), is(host));
+        assertThat(Origin.of(create("http://host:8080")).toString(), is("host:8080"));
+    }
+
+    @Test
+    public void hostMatchingShouldIgnoreCaseSchemeAndPath() {
+        assertTrue(host.isHostMatching(create("https://HOST/another/path"), true));
+        assertTrue(host.isHostMatching(create("http://host:80"), true));
+        assertFalse(host.isHostMatching(create("http://host2"), true));
+        assertFalse(host.isHostMatching(create("http://hos"), true));
+    }
+
+    @Test
+    public void hostMatchingShouldCompareThePorts() {
+        assertFalse(host.isHostMatching(create("http://host:8080"), true));
+        assertFalse(Origin.of(create("http://host:1")).isHostMatching(create("http://host1"), true));
+        assertTrue(Origin.of(create("http://host:8080")).isHostMatching(create("http://host:8080/path"), true));
+    }
+
+    @Test
+    public void nonStrictShouldIgnoreWww() {
+        assertFalse(host.isHostMatching(create("http://www.host"), true));
+        assertTrue(host.isHostMatching(create("http://WWW.host"), false));
+        assertTrue(Origin.of(create("http://www.host")).isHostMatching(create("http://host"), false));
+        assertTrue(Origin.of(create("http://www.host")).isHostMatching(create("http://www.host"), false));
+        assertFalse(host.isHostMatching(create("http://wwwhost"), false));
+    }
+
+    @Test
+    public void shouldRecogniseSubdomains() {
+        assertTrue(host.isSubdomain(create("http://sub.HOST")));
+        assertTrue(host.isSubdomain(create("http://a.b.host")));
+        assertFalse(host.isSubdomain(create("http://anotherhost")));
+        assertFalse(host.isSubdomain(create("http://host")));
+        assertFalse(host.isSubdomain(create("http://sub.host:8080")));
+        assertFalse(Origin.of(create("http://sub.host")).isSubdomain(create("http://host")));
+        assertTrue(Origin.of(create("http://sub.host")).areSubdomains(create("http://host")));
+    }
+
+    @Test
+    public void uriWithoutHostShouldNotMatch() {
+        assertFalse(host.isHostMatching(create("mailto:someone@host"), false));
+        assertFalse(host.areSubdomains(create("mailto:someone@host")));
+    }
+}
@@ -41,6 +41,12 @@ public class PathFilterTest {
         assertFalse(sut.shouldCrawl(SOURCE_URI, SOURCE_URI.resolve("/basepath2"))); //this is the tricky one ^^
     }
 
+    @Test
+    public void shouldNotCrawlLinksWithoutPath() {
+        PathFilter sut = new PathFilter(Collections.singletonList("/base/"));
+        assertFalse(sut.shouldCrawl(SOURCE_URI.resolve("/outside"), URI.create("mailto:info@testhost")));
+    }
+
     @Test
     public void isNotTolerantToMissingLeadingSlash() {
         String path = URI.create("http://domain/base").getPath();
@@ -0,0 +1,56 @@
+package com.myseotoolbox.crawler.spider.filter;
+
+import com.myseotoolbox.crawler.spider.PathMatcher;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PathPrefixMatcherTest {
+
+    private static final List<String> ALLOWED_PATHS = Arrays.asList("/", "/base/", "/base/sub/", "/base/index.html", "/a//b/", "/path/subpath/", "/x/*/y/", "/other");
+    private static final List<String> PATHS = Arrays.asList("", "/", "/base", "/base/", "/base/something", "/basepath", "/base2/path",
+            "/base/sub", "/base/subpath", "/base/sub/page", "/a/b", "/a//b/c", "//a/b/c", "/a/bc", "/path", "/path/subpath",
+            "/path/subpath2/something", "/x/1/y/z", "/x/1/2/y", "/other", "/otherpage", "/o", "relative/base/", "base");
+
+    @Test
+    public void shouldMatchWithinAnyOfTheAllowedPaths() {
+        PathPrefixMatcher sut = new PathPrefixMatcher(Arrays.asList("/base1/", "/base2/"));
+
+        assertTrue(sut.matches("/base1"));
+        assertTrue(sut.matches("/base1/page"));
+        assertTrue(sut.matches("/base2/sub/page"));
+        assertFalse(sut.matches("/base3/page"));
+        assertFalse(sut.matches("/base12/page"));
+        assertFalse(sut.matches("/"));
+    }
+
+    @Test
+    public void rootShouldMatchEveryAbsolutePath() {
+        PathPrefixMatcher sut = new PathPrefixMatcher(Collections.singletonList("/"));
+
+        assertTrue(sut.matches(""));
+        assertTrue(sut.matches("/anything/at/all"));
+        assertFalse(sut.matches("relative"));
+    }
+
+    @Test
+    public void shouldNotMatchMissingPath() {
+        assertFalse(new PathPrefixMatcher(Collections.singletonList("/")).matches(null));
+    }
+
+    @Test
+    public void shouldMatchAsPathMatcher() {
+        for (String allowedPath : ALLOWED_PATHS) {
+            PathPrefixMatcher sut = new PathPrefixMatcher(Collections.singletonList(allowedPath));
+            for (String path : PATHS) {
+                assertEquals(allowedPath + " " + path, PathMatcher.isSubPath(allowedPath, path), sut.matches(path));
+            }
+        }
+    }
+}
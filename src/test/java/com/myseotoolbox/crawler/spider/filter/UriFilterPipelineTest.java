@@ -0,0 +1,134 @@
+package com.myseotoolbox.crawler.spider.filter;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+public class UriFilterPipelineTest {
+
+    private static final URI SOURCE_URI = URI.create("http://host/");
+    private static final URI LINK = URI.create("http://host/page");
+
+    private final List<RejectionCause> evaluated = new ArrayList<>();
+
+    @Test
+    public void shouldStopAtTheFirstRejectingCheck() {
+        UriFilterPipeline sut = UriFilterPipeline.builder()
+                .check(RejectionCause.SCH, check(RejectionCause.SCH, true))
+                .check(RejectionCause.EXT, check(RejectionCause.EXT, false))
+                .check(RejectionCause.HOST, check(RejectionCause.HOST, false))
+                .last(RejectionCause.ROBOTS, check(RejectionCause.ROBOTS, false))
+                .sampling(Integer.MAX_VALUE, 1)
+                .build();
+
+        assertThat(sut.getRejectionCause(SOURCE_URI, LINK), is(RejectionCause.EXT));
+        assertThat(sut.shouldCrawl(SOURCE_URI, LINK), is(false));
+        assertThat(evaluated, contains(RejectionCause.SCH, RejectionCause.EXT, RejectionCause.SCH, RejectionCause.EXT));
+    }
+
+    @Test
+    public void shouldAcceptLinksPassingAllTheChecks() {
+        UriFilterPipeline sut = UriFilterPipeline.builder()
+                .check(RejectionCause.SCH, check(RejectionCause.SCH, true))
+                .last(RejectionCause.ROBOTS, check(RejectionCause.ROBOTS, true))
+                .build();
+
+        assertThat(sut.getRejectionCause(SOURCE_URI, LINK), nullValue());
+        assertThat(sut.shouldCrawl(SOURCE_URI, LINK), is(true));
+    }
+
+    @Test
+    public void shouldStartInTheDeclaredOrder() {
+        UriFilterPipeline sut = UriFilterPipeline.builder()
+                .check(RejectionCause.PATH, (s, l) -> true)
+                .check(RejectionCause.SCH, (s, l) -> true)
+                .last(RejectionCause.ROBOTS, (s, l) -> true)
+                .build();
+
+        assertThat(sut.getOrder(), contains(RejectionCause.PATH, RejectionCause.SCH, RejectionCause.ROBOTS));
+    }
+
+    @Test
+    public void cheapSelectiveCheckShouldBeMovedFirst() {
+        UriFilterPipeline sut = UriFilterPipeline.builder()
+                .check(RejectionCause.PATH, (s, l) -> slowlyAccept())
+                .check(RejectionCause.EXT, (s, l) -> !l.getPath().endsWith(".pdf"))
+                .last(RejectionCause.ROBOTS, (s, l) -> true)
+                .sampling(1, 10)
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            sut.getRejectionCause(SOURCE_URI, SOURCE_URI.resolve("/file" + i + (i % 2 == 0 ? ".pdf" : ".html")));
+        }
+
+        assertThat(sut.getOrder(), contains(RejectionCause.EXT, RejectionCause.PATH, RejectionCause.ROBOTS));
+    }
+
+    @Test
+    public void lastChecksShouldOnlyRunForLinksAcceptedByTheOthers() {
+        UriFilterPipeline sut = UriFilterPipeline.builder()
+                .check(RejectionCause.EXT, (s, l) -> !l.getPath().endsWith(".pdf"))
+                .last(RejectionCause.ROBOTS, check(RejectionCause.ROBOTS, false))
+                .sampling(1, 1)
+                .build();
+
+        assertThat(sut.getRejectionCause(SOURCE_URI, SOURCE_URI.resolve("/file.pdf")), is(RejectionCause.EXT));
+        assertThat(evaluated.isEmpty(), is(true));
+        assertThat(sut.getRejectionCause(SOURCE_URI, SOURCE_URI.resolve("/file.html")), is(RejectionCause.ROBOTS));
+        assertThat(sut.getOrder(), contains(RejectionCause.EXT, RejectionCause.ROBOTS));
+    }
+
+    @Test
+    public void firstChecksShouldGuardTheOthersEvenWhenSampling() {
+        UriFilterPipeline sut = UriFilterPipeline.builder()
+                .first(RejectionCause.SCH, (s, l) -> "http".equals(l.getScheme()))
+                .check(RejectionCause.PATH, (s, l) -> l.getPath().startsWith("/"))
+                .sampling(1, 1)
+                .build();
+
+        assertThat(sut.getRejectionCause(SOURCE_URI, URI.create("mailto:info@host")), is(RejectionCause.SCH));
+        assertThat(sut.getOrder(), contains(RejectionCause.SCH, RejectionCause.PATH));
+    }
+
+    @Test
+    public void shouldCountTheLinksRejectedByEachCheck() {
+        UriFilterPipeline sut = UriFilterPipeline.builder()
+                .check(RejectionCause.SCH, (s, l) -> "http".equals(l.getScheme()))
+                .check(RejectionCause.EXT, (s, l) -> !l.getPath().endsWith(".pdf"))
+                .last(RejectionCause.ROBOTS, (s, l) -> !l.getPath().startsWith("/private"))
+                .build();
+
+        sut.shouldCrawl(SOURCE_URI, URI.create("ftp://host/file"));
+        sut.shouldCrawl(SOURCE_URI, URI.create("http://host/file.pdf"));
+        sut.shouldCrawl(SOURCE_URI, URI.create("http://host/other.pdf"));
+        sut.shouldCrawl(SOURCE_URI, URI.create("http://host/private/page"));
+        sut.shouldCrawl(SOURCE_URI, URI.create("http://host/page"));
+
+        assertThat(sut.getRejections().get(RejectionCause.SCH), is(1L));
+        assertThat(sut.getRejections().get(RejectionCause.EXT), is(2L));
+        assertThat(sut.getRejections().get(RejectionCause.ROBOTS), is(1L));
+    }
+
+    private UriFilterPipeline.Check check(RejectionCause cause, boolean accepts) {
+        return (sourceUri, discoveredLink) -> {
+            evaluated.add(cause);
+            return accepts;
+        };
+    }
+
+    private static boolean slowlyAccept() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+}
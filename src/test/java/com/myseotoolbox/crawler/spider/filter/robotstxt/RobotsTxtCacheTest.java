@@ -0,0 +1,204 @@
+package com.myseotoolbox.crawler.spider.filter.robotstxt;
+
+import com.google.common.base.Ticker;
+import com.myseotoolbox.crawler.httpclient.HttpStatusException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class RobotsTxtCacheTest {
+
+    private static final byte[] DISALLOW_PRIVATE = "User-agent: *\nDisallow: /private\n".getBytes(StandardCharsets.UTF_8);
+
+    private final List<URI> fetched = new CopyOnWriteArrayList<>();
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+    private final RobotsTxtCache sut = new RobotsTxtCache(2, Duration.ofHours(1), robotsTxt -> {
+        fetched.add(robotsTxt);
+        return DISALLOW_PRIVATE;
+    }, ticker);
+
+    @Test
+    public void shouldFetchOncePerOrigin() {
+        RobotsTxt first = sut.get(URI.create("https://host/page1"));
+        RobotsTxt second = sut.get(URI.create("https://host/other/page2"));
+
+        assertThat(second, sameInstance(first));
+        assertThat(fetched, contains(URI.create("https://host/robots.txt")));
+    }
+
+    @Test
+    public void originShouldIncludeSchemeHostAndPort() {
+        assertThat(RobotsTxtCache.originOf(URI.create("https://HOST:443/page")), is("https://host"));
+        assertThat(RobotsTxtCache.originOf(URI.create("http://host:80/page")), is("http://host"));
+        assertThat(RobotsTxtCache.originOf(URI.create("http://host:8080/page")), is("http://host:8080"));
+        assertThat(RobotsTxtCache.originOf(URI.create("http://sub.host/page")), is("http://sub.host"));
+
+        sut.get(URI.create("http://host/"));
+        sut.get(URI.create("https://host/"));
+
+        assertThat(fetched, hasSize(2));
+    }
+
+    @Test
+    public void shouldFetchAgainOnceExpired() {
+        sut.get(URI.create("https://host/"));
+        nanos.addAndGet(Duration.ofMinutes(61).toNanos());
+        sut.get(URI.create("https://host/"));
+
+        assertThat(fetched, hasSize(2));
+    }
+
+    @Test
+    public void shouldEvictPastMaxSize() {
+        sut.get(URI.create("https://host1/"));
+        sut.get(URI.create("https://host2/"));
+        sut.get(URI.create("https://host3/"));
+
+        assertThat(sut.size(), is(2L));
+    }
+
+    @Test
+    public void unreachableRobotsTxtShouldAllowEverything() {
+        RobotsTxtCache sut = new RobotsTxtCache(10, Duration.ofHours(1), robotsTxt -> {
+            throw new IOException("Non 200 status code: 404");
+        }, ticker);
+
+        RobotsTxt robotsTxt = sut.get(URI.create("https://host/"));
+
+        assertThat(robotsTxt, instanceOf(EmptyRobotsTxt.class));
+        assertThat(robotsTxt.getSitemaps(), contains("https://host/sitemap.xml"));
+    }
+
+    @Test
+    public void failedFetchShouldBeRetriedAfterTheFailureTtl() {
+        RobotsTxtCache sut = new RobotsTxtCache(10, Duration.ofHours(24), Duration.ofMinutes(5), robotsTxt -> {
+            fetched.add(robotsTxt);
+            if (fetched.size() == 1) throw new IOException("Read timed out");
+            return DISALLOW_PRIVATE;
+        }, ticker);
+        URI origin = URI.create("https://host/");
+
+        assertThat(sut.get(origin), instanceOf(EmptyRobotsTxt.class));
+        nanos.addAndGet(Duration.ofMinutes(4).toNanos());
+        assertThat(sut.get(origin), instanceOf(EmptyRobotsTxt.class));
+        assertThat(fetched, hasSize(1));
+
+        nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+        RobotsTxt robotsTxt = sut.get(origin);
+
+        assertThat(robotsTxt.shouldCrawl(origin, URI.create("https://host/private")), is(false));
+        assertThat(fetched, hasSize(2));
+        nanos.addAndGet(Duration.ofHours(1).toNanos());
+        assertThat(sut.get(origin), sameInstance(robotsTxt));
+    }
+
+    @Test
+    public void missingRobotsTxtShouldAllowEverythingForTheWholeTtl() {
+        RobotsTxtCache sut = new RobotsTxtCache(10, Duration.ofHours(24), Duration.ofMinutes(5), robotsTxt -> {
+            fetched.add(robotsTxt);
+            throw new HttpStatusException(404);
+        }, ticker);
+        URI origin = URI.create("https://host/");
+
+        RobotsTxt robotsTxt = sut.get(origin);
+        nanos.addAndGet(Duration.ofHours(23).toNanos());
+
+        assertThat(sut.get(origin), sameInstance(robotsTxt));
+        assertThat(robotsTxt.shouldCrawl(origin, URI.create("https://host/private")), is(true));
+        assertThat(robotsTxt.getSitemaps(), contains("https://host/sitemap.xml"));
+        assertThat(fetched, hasSize(1));
+    }
+
+    @Test
+    public void rateLimitedRobotsTxtShouldBeRetriedAfterTheFailureTtl() {
+        RobotsTxtCache sut = new RobotsTxtCache(10, Duration.ofHours(24), Duration.ofMinutes(5), robotsTxt -> {
+            fetched.add(robotsTxt);
+            throw new HttpStatusException(fetched.size() == 1 ? 429 : 503);
+        }, ticker);
+        URI origin = URI.create("https://host/");
+
+        sut.get(origin);
+        nanos.addAndGet(Duration.ofMinutes(5).toNanos());
+        sut.get(origin);
+        nanos.addAndGet(Duration.ofMinutes(5).toNanos());
+        sut.get(origin);
+
+        assertThat(fetched, hasSize(3));
+    }
+
+    @Test
+    public void concurrentRequestsShouldShareTheSameFetch() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RobotsTxtCache sut = new RobotsTxtCache(10, Duration.ofHours(1), robotsTxt -> {
+            fetched.add(robotsTxt);
+            fetching.countDown();
+            await(release);
+            return DISALLOW_PRIVATE;
+        }, ticker);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<RobotsTxt> first = executor.submit(() -> sut.get(URI.create("https://host/a")));
+            await(fetching);
+            Future<RobotsTxt> second = executor.submit(() -> sut.get(URI.create("https://host/b")));
+            Future<RobotsTxt> third = executor.submit(() -> sut.get(URI.create("https://host/c")));
+            release.countDown();
+
+            assertThat(second.get(5, TimeUnit.SECONDS), sameInstance(first.get(5, TimeUnit.SECONDS)));
+            assertThat(third.get(5, TimeUnit.SECONDS), sameInstance(first.get()));
+            assertThat(fetched, hasSize(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cachedRobotsTxtShouldApplyTheRulesOfEachSubdomain() {
+        RobotsTxtCache sut = new RobotsTxtCache(10, Duration.ofHours(1), robotsTxt -> {
+            fetched.add(robotsTxt);
+            if (robotsTxt.getHost().startsWith("blog.")) return DISALLOW_PRIVATE;
+            return new byte[0];
+        }, ticker);
+        URI origin = URI.create("https://host/");
+
+        CachedRobotsTxt robotsTxt = new CachedRobotsTxt(origin, sut);
+
+        assertThat(robotsTxt.shouldCrawl(origin, URI.create("https://host/private")), is(true));
+        assertThat(fetched, contains(URI.create("https://host/robots.txt")));
+        assertThat(robotsTxt.shouldCrawl(origin, URI.create("https://blog.host/private")), is(false));
+        assertThat(robotsTxt.shouldCrawl(origin, URI.create("https://blog.host/public")), is(true));
+        assertThat(fetched, contains(URI.create("https://host/robots.txt"), URI.create("https://blog.host/robots.txt")));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.myseotoolbox.crawler.spider.frontier;
+
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class SpillingFrontierTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private SpillingFrontier sut;
+
+    @After
+    public void tearDown() {
+        if (sut != null) sut.close();
+    }
+
+    @Test
+    public void shouldKeepUrlsInMemoryUpToTheLimit() throws IOException {
+        sut = new SpillingFrontier(folder.newFolder().toPath(), 3);
+
+        addAll("http://host/1", "http://host/2", "http://host/3");
+
+        assertThat(sut.size(), is(3L));
+        assertThat(sut.getSpilled(), is(0L));
+    }
+
+    @Test
+    public void shouldSpillTheOverflowAndKeepFifoOrder() throws IOException {
+        sut = new SpillingFrontier(folder.newFolder().toPath(), 2);
+
+        addAll("http://host/1", "http://host/2", "http://host/3", "http://host/4", "http://host/5");
+
+        assertThat(sut.size(), is(5L));
+        assertThat(sut.getSpilled(), is(3L));
+        assertPolled("http://host/1", "http://host/2", "http://host/3", "http://host/4", "http://host/5");
+        assertTrue(sut.isEmpty());
+    }
+
+    @Test
+    public void shouldSpanMultipleSegments() throws IOException {
+        sut = new SpillingFrontier(folder.newFolder().toPath(), 10, 64);
+
+        for (int i = 0; i < 1000; i++) sut.add(url("http://host/page-" + i));
+
+        assertThat(sut.getSpilled(), is(990L));
+        for (int i = 0; i < 1000; i++) assertThat(sut.poll(), is(url("http://host/page-" + i)));
+        assertThat(sut.poll(), nullValue());
+    }
+
+    @Test
+    public void shouldAcceptEntriesBiggerThanTheSegment() throws IOException {
+        sut = new SpillingFrontier(folder.newFolder().toPath(), 1, 16);
+        String longUrl = "http://host/" + "a".repeat(100);
+
+        addAll("http://host/1", longUrl, "http://host/2");
+
+        assertPolled("http://host/1", longUrl, "http://host/2");
+    }
+
+    @Test
+    public void shouldKeepFifoOrderWhenAddingWhileDraining() throws IOException {
+        sut = new SpillingFrontier(folder.newFolder().toPath(), 2, 64);
+
+        addAll("http://host/1", "http://host/2", "http://host/3");
+        assertPolled("http://host/1");
+        addAll("http://host/4");
+        assertPolled("http://host/2", "http://host/3");
+        addAll("http://host/5", "http://host/6");
+
+        assertPolled("http://host/4", "http://host/5", "http://host/6");
+        assertThat(sut.poll(), nullValue());
+    }
+
+    @Test
+    public void shouldPreserveNonAsciiUrlsInTheirAsciiForm() throws IOException {
+        sut = new SpillingFrontier(folder.newFolder().toPath(), 1);
+
+        sut.add(url("http://host/1"));
+        sut.add(CrawlUrl.of(URI.create("http://host/citt\u00e0")));
+
+        assertPolled("http://host/1", "http://host/citt%C3%A0");
+    }
+
+    @Test
+    public void segmentsShouldBeDeletedOnceRead() throws IOException {
+        File directory = folder.newFolder();
+        sut = new SpillingFrontier(directory.toPath(), 1, 64);
+
+        for (int i = 0; i < 100; i++) sut.add(url("http://host/page-" + i));
+        int segments = directory.listFiles().length;
+        assertThat(segments, greaterThan(1));
+
+        for (int i = 0; i < 50; i++) sut.poll();
+        assertThat(directory.listFiles().length, lessThan(segments));
+        assertThat(directory.listFiles().length, greaterThan(0));
+
+        while (sut.poll() != null) ;
+        assertThat(directory.listFiles().length, is(0));
+    }
+
+    @Test
+    public void closeShouldDeleteTheSegmentsLeft() throws IOException {
+        File directory = folder.newFolder();
+        sut = new SpillingFrontier(directory.toPath(), 1, 64);
+
+        for (int i = 0; i < 100; i++) sut.add(url("http://host/page-" + i));
+        sut.close();
+
+        assertThat(directory.listFiles().length, is(0));
+    }
+
+    private void addAll(String... urls) {
+        for (String url : urls) sut.add(url(url));
+    }
+
+    private void assertPolled(String... urls) {
+        for (String url : urls) assertThat(sut.poll(), is(url(url)));
+    }
+
+    private static CrawlUrl url(String url) {
+        return CrawlUrl.fromAscii(url);
+    }
+}
@@ -0,0 +1,75 @@
+package com.myseotoolbox.crawler.spider.model;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+public class CrawlUrlTest {
+
+    private static final List<String> URLS = List.of(
+            "http://host",
+            "http://host/",
+            "https://host:8080/path/to/page?q=1#frag",
+            "http://user@host/a%2Fb;p?q",
+            "http://host?q=/not/the/path",
+            "http://host#/not/the/path",
+            "http:/path/only",
+            "mailto:someone@host",
+            "/relative/path?q",
+            "");
+
+    @Test
+    public void rawPathShouldBeTheOneOfTheUri() {
+        for (String url : URLS) {
+            assertThat(url, CrawlUrl.fromAscii(url).getRawPath(), is(URI.create(url).getRawPath()));
+        }
+    }
+
+    @Test
+    public void hashCodeShouldBeTheOneOfTheString() {
+        for (String url : URLS) {
+            assertThat(CrawlUrl.fromAscii(url).hashCode(), is(url.hashCode()));
+        }
+    }
+
+    @Test
+    public void shouldBeCreatedFromTheAsciiFormOfTheUri() {
+        CrawlUrl url = CrawlUrl.of(URI.create("http://host/citt\u00e0"));
+
+        assertThat(url.toString(), is("http://host/citt%C3%A0"));
+        assertThat(url.toURI(), is(URI.create("http://host/citt%C3%A0")));
+        assertThat(url, is(CrawlUrl.fromAscii("http://host/citt%C3%A0")));
+    }
+
+    @Test
+    public void shouldBeReadBackFromTheBuffer() {
+        CrawlUrl url = CrawlUrl.fromAscii("http://host/page?q=1");
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+
+        url.writeTo(buffer, 10);
+
+        assertThat(CrawlUrl.fromAscii(buffer, 10, url.length()), is(url));
+        assertThat(buffer.position(), is(0));
+    }
+
+    @Test
+    public void opaqueUrlShouldHaveNoPath() {
+        assertThat(CrawlUrl.fromAscii("mailto:someone@host").getRawPath(), nullValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptNonAscii() {
+        CrawlUrl.fromAscii("http://host/citt\u00e0");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotReadNonAscii() {
+        CrawlUrl.fromAscii(ByteBuffer.wrap(new byte[]{'h', (byte) 0xC3, (byte) 0xA0}), 0, 3);
+    }
+}
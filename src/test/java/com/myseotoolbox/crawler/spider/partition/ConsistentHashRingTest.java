@@ -0,0 +1,93 @@
+package com.myseotoolbox.crawler.spider.partition;
+
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
+import org.junit.Test;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+
+public class ConsistentHashRingTest {
+
+    private static final int URLS = 20_000;
+
+    @Test
+    public void samePathShouldAlwaysBeInTheSamePartition() {
+        ConsistentHashRing ring = new ConsistentHashRing(4);
+        ConsistentHashRing sameRingOnAnotherNode = new ConsistentHashRing(4);
+
+        for (int i = 0; i < 100; i++) {
+            URI uri = uri("/page/" + i);
+            assertThat(ring.partitionOf(uri), is(sameRingOnAnotherNode.partitionOf(uri)));
+            assertThat(ring.partitionOf(uri), is(ring.partitionOf(uri("/page/" + i + "?sort=asc"))));
+        }
+    }
+
+    @Test
+    public void nonAsciiPathShouldBeInTheSamePartitionOfItsEncodedForm() throws URISyntaxException {
+        ConsistentHashRing ring = new ConsistentHashRing(16);
+
+        for (int i = 0; i < 100; i++) {
+            URI unicode = new URI("http", "host", "/fam\u00edlia/" + i, null);
+            assertThat(ring.partitionOf(unicode), is(ring.partitionOf(uri("/fam%C3%ADlia/" + i))));
+        }
+    }
+
+    @Test
+    public void crawlUrlShouldBeInThePartitionOfItsUri() throws URISyntaxException {
+        ConsistentHashRing ring = new ConsistentHashRing(16);
+
+        for (int i = 0; i < 100; i++) {
+            URI uri = new URI("http", "host", "/fam\u00edlia/" + i, "q=" + i, null);
+            assertThat(ring.partitionOf(CrawlUrl.of(uri)), is(ring.partitionOf(uri)));
+        }
+        assertThat(ring.partitionOf(CrawlUrl.fromAscii("http://host")), is(ring.partitionOf(uri("/"))));
+    }
+
+    @Test
+    public void urlsShouldBeSpreadEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(4);
+        int[] owned = new int[4];
+
+        for (int i = 0; i < URLS; i++) {
+            owned[ring.partitionOf(uri("/category/" + (i % 50) + "/product-" + i))]++;
+        }
+
+        for (int count : owned) {
+            assertThat(count, greaterThan(URLS / 4 * 2 / 3));
+            assertThat(count, lessThan(URLS / 4 * 4 / 3));
+        }
+    }
+
+    @Test
+    public void addingAPartitionShouldOnlyMoveUrlsToIt() {
+        ConsistentHashRing four = new ConsistentHashRing(4);
+        ConsistentHashRing five = new ConsistentHashRing(5);
+        int moved = 0;
+
+        for (int i = 0; i < URLS; i++) {
+            URI uri = uri("/product-" + i);
+            if (four.partitionOf(uri) != five.partitionOf(uri)) {
+                assertThat(five.partitionOf(uri), is(4));
+                moved++;
+            }
+        }
+
+        assertThat(moved, lessThan(URLS / 5 * 4 / 3));
+    }
+
+    @Test
+    public void singlePartitionShouldOwnEverything() {
+        ConsistentHashRing ring = new ConsistentHashRing(1);
+        assertThat(ring.partitionOf(uri("/anything")), is(0));
+        assertThat(ring.partitionOf(URI.create("http://host")), is(0));
+    }
+
+    private static URI uri(String path) {
+        return URI.create("http://host" + path);
+    }
+}
@@ -0,0 +1,94 @@
+package com.myseotoolbox.crawler.spider.partition;
+
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.core.Is.is;
+
+public class CrawlPartitionTest {
+
+    private final InProcessPartitionTransport transport = new InProcessPartitionTransport(2);
+    private final CrawlPartition first = new CrawlPartition(transport, 0);
+    private final CrawlPartition second = new CrawlPartition(transport, 1);
+
+    @Test
+    public void urlsShouldBeHandedOverToTheirOwner() {
+        List<CrawlUrl> urls = IntStream.range(0, 100).mapToObj(i -> CrawlUrl.fromAscii("http://host/page-" + i)).collect(Collectors.toList());
+        List<CrawlUrl> received = new ArrayList<>();
+        second.onReceived(received::addAll);
+
+        List<CrawlUrl> owned = first.route(urls);
+
+        assertThat(owned.stream().allMatch(first::isOwned), is(true));
+        assertThat(received.stream().allMatch(second::isOwned), is(true));
+        List<CrawlUrl> all = new ArrayList<>(owned);
+        all.addAll(received);
+        assertThat(all, containsInAnyOrder(urls.toArray()));
+    }
+
+    @Test
+    public void urlsSentBeforeTheOwnerSubscribesShouldBeDeliveredWhenItDoes() {
+        CrawlUrl ownedBySecond = IntStream.range(0, 100).mapToObj(i -> CrawlUrl.fromAscii("http://host/page-" + i)).filter(second::isOwned).findFirst().get();
+        List<CrawlUrl> received = new ArrayList<>();
+
+        first.route(List.of(ownedBySecond));
+        second.onReceived(received::addAll);
+
+        assertThat(received, containsInAnyOrder(ownedBySecond));
+    }
+
+    @Test
+    public void urlsAlreadySentShouldNotBeSentAgain() {
+        List<CrawlUrl> urls = IntStream.range(0, 100).mapToObj(i -> CrawlUrl.fromAscii("http://host/page-" + i)).collect(Collectors.toList());
+        List<CrawlUrl> received = new ArrayList<>();
+        second.onReceived(received::addAll);
+
+        first.route(urls);
+        int sent = received.size();
+        List<CrawlUrl> ownedAgain = first.route(urls);
+
+        assertThat(sent > 0, is(true));
+        assertThat(received.size(), is(sent));
+        assertThat(ownedAgain.size(), is(urls.size() - sent));
+    }
+
+    @Test
+    public void crawlSlotsShouldBeSharedByThePartitions() {
+        assertThat(first.tryReserveCrawl(2), is(true));
+        assertThat(second.tryReserveCrawl(2), is(true));
+        assertThat(first.tryReserveCrawl(2), is(false));
+        assertThat(second.tryReserveCrawl(2), is(false));
+    }
+
+    @Test
+    public void crawlShouldCompleteOnlyWhenEveryPartitionIsDone() {
+        second.onReceived(urls -> second.tasksClaimed(urls.size()));
+        first.tasksClaimed(1);
+        first.started();
+
+        //first crawled its task and discovered a link owned by second, which hasn't started yet
+        CrawlUrl ownedBySecond = IntStream.range(0, 100).mapToObj(i -> CrawlUrl.fromAscii("http://host/page-" + i)).filter(second::isOwned).findFirst().get();
+        first.route(List.of(ownedBySecond));
+        first.taskReleased();
+        assertThat(first.completion().isDone(), is(false));
+
+        second.started();
+        assertThat(first.completion().isDone(), is(false));
+
+        second.taskReleased();
+        assertThat(first.completion().isDone(), is(true));
+        assertThat(second.completion().isDone(), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void partitionShouldBeWithinTheTransportPartitions() {
+        new CrawlPartition(transport, 2);
+    }
+}
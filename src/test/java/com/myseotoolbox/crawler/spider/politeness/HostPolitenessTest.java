@@ -0,0 +1,91 @@
+package com.myseotoolbox.crawler.spider.politeness;
+
+import org.junit.Test;
+
+import static com.myseotoolbox.crawler.spider.politeness.HostPoliteness.MAX_INTERVAL;
+import static com.myseotoolbox.crawler.spider.politeness.HostPoliteness.MIN_BACKOFF_INTERVAL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class HostPolitenessTest {
+
+    @Test
+    public void shouldSpaceRequestsByTheInterval() {
+        HostPoliteness sut = new HostPoliteness(1000);
+
+        assertThat(sut.delayAt(0), is(0L));
+        sut.reserve(0);
+        assertThat(sut.delayAt(400), is(600L));
+        assertThat(sut.delayAt(1000), is(0L));
+    }
+
+    @Test
+    public void noIntervalMeansNoDelay() {
+        HostPoliteness sut = new HostPoliteness(0);
+
+        sut.reserve(0);
+        sut.reserve(0);
+
+        assertThat(sut.delayAt(0), is(0L));
+    }
+
+    @Test
+    public void shouldBackOffOnTooManyRequests() {
+        HostPoliteness sut = new HostPoliteness(0);
+
+        sut.onResponse(0, 429, 10, 0);
+        assertThat(sut.getInterval(), is(MIN_BACKOFF_INTERVAL));
+
+        sut.onResponse(0, 503, 10, 0);
+        assertThat(sut.getInterval(), is(MIN_BACKOFF_INTERVAL * 2));
+    }
+
+    @Test
+    public void shouldBackOffOnFailures() {
+        HostPoliteness sut = new HostPoliteness(1000);
+
+        sut.onFailure();
+
+        assertThat(sut.getInterval(), is(2000L));
+    }
+
+    @Test
+    public void backOffShouldBeCapped() {
+        HostPoliteness sut = new HostPoliteness(0);
+
+        for (int i = 0; i < 20; i++) sut.onFailure();
+
+        assertThat(sut.getInterval(), is(MAX_INTERVAL));
+    }
+
+    @Test
+    public void shouldRecoverOnHealthyResponses() {
+        HostPoliteness sut = new HostPoliteness(100);
+        sut.onFailure();
+        sut.onFailure();
+
+        for (int i = 0; i < 20; i++) sut.onResponse(0, 200, 10, 0);
+
+        assertThat(sut.getInterval(), is(100L));
+    }
+
+    @Test
+    public void shouldBackOffWhenResponsesGetSlower() {
+        HostPoliteness sut = new HostPoliteness(0);
+        for (int i = 0; i < 5; i++) sut.onResponse(0, 200, 500, 0);
+        assertThat(sut.getInterval(), is(0L));
+
+        sut.onResponse(0, 200, 5000, 0);
+
+        assertThat(sut.getInterval(), is(MIN_BACKOFF_INTERVAL));
+    }
+
+    @Test
+    public void retryAfterShouldPauseTheHost() {
+        HostPoliteness sut = new HostPoliteness(0);
+
+        sut.onResponse(1000, 429, 10, 30000);
+
+        assertThat(sut.delayAt(1000), is(30000L));
+    }
+}
@@ -0,0 +1,101 @@
+package com.myseotoolbox.crawler.spider.politeness;
+
+import com.myseotoolbox.crawler.httpclient.HttpResponse;
+import com.myseotoolbox.crawler.spider.model.SnapshotTask;
+import org.junit.Test;
+
+import java.net.URI;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class PolitenessSchedulerTest {
+
+    private final List<Long> dispatchTimes = new CopyOnWriteArrayList<>();
+    private final List<URI> dispatched = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void withoutIntervalTasksAreDispatchedStraightAway() {
+        PolitenessScheduler sut = new PolitenessScheduler(this::record, new PolitenessPolicy(0, 0));
+
+        sut.accept(task("http://host/1"));
+        sut.accept(task("http://host/2"));
+
+        assertThat(dispatched, hasSize(2));
+    }
+
+    @Test
+    public void shouldSpaceRequestsToTheSameHost() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(3);
+        PolitenessScheduler sut = new PolitenessScheduler(task -> {
+            record(task);
+            latch.countDown();
+        }, new PolitenessPolicy(100, 0));
+
+        sut.accept(task("http://host/1"));
+        sut.accept(task("http://host/2"));
+        sut.accept(task("http://host/3"));
+
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(dispatched.get(0), is(URI.create("http://host/1")));
+        assertThat(dispatched.get(2), is(URI.create("http://host/3")));
+        assertThat(dispatchTimes.get(1) - dispatchTimes.get(0), greaterThanOrEqualTo(90L));
+        assertThat(dispatchTimes.get(2) - dispatchTimes.get(1), greaterThanOrEqualTo(90L));
+    }
+
+    @Test
+    public void hostsShouldNotWaitForEachOther() {
+        PolitenessScheduler sut = new PolitenessScheduler(this::record, new PolitenessPolicy(10000, 0));
+
+        sut.accept(task("http://host1/"));
+        sut.accept(task("http://host2/"));
+
+        assertThat(dispatched, hasSize(2));
+    }
+
+    @Test
+    public void crawlDelayShouldWinOverShorterInterval() {
+        PolitenessPolicy policy = new PolitenessPolicy(100, 2000);
+
+        assertThat(policy.getInterval("host"), is(2000L));
+    }
+
+    @Test
+    public void shouldHoldTasksWhenHostAsksToRetryLater() {
+        PolitenessPolicy policy = new PolitenessPolicy(0, 0);
+        PolitenessScheduler sut = new PolitenessScheduler(this::record, policy);
+
+        policy.onResponse(URI.create("http://host/1"), new HttpResponse(429, URI.create("http://host/1"), null, null, "120"), 10);
+        sut.accept(task("http://host/2"));
+
+        assertThat(dispatched, hasSize(0));
+    }
+
+    @Test
+    public void shouldParseRetryAfter() {
+        long now = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        String inTwoMinutes = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.of(2020, 1, 1, 0, 2, 0, 0, ZoneOffset.UTC));
+
+        assertThat(PolitenessPolicy.parseRetryAfter("120", now), is(120000L));
+        assertThat(PolitenessPolicy.parseRetryAfter(inTwoMinutes, now), is(120000L));
+        assertThat(PolitenessPolicy.parseRetryAfter("invalid", now), is(0L));
+        assertThat(PolitenessPolicy.parseRetryAfter(null, now), is(0L));
+    }
+
+    private void record(SnapshotTask task) {
+        dispatchTimes.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+        dispatched.add(task.getUri());
+    }
+
+    private SnapshotTask task(String uri) {
+        return new SnapshotTask(URI.create(uri), result -> {
+        });
+    }
+}
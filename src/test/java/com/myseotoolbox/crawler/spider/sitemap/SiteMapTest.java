@@ -304,6 +304,25 @@ public class SiteMapTest {
         assertThat(uris, hasItems(testUri("/correct/correct-domain-url").toString()));
     }
 
+    @Test
+    public void slowChildSitemapsShouldAllBeFetchedConcurrently() {
+        givenAWebsite()
+                .withSlowSitemaps(1000)
+                .withSitemapIndexOn("/")
+                .havingChildSitemaps("/a/", "/b/", "/c/", "/d/", "/e/").and()
+                .withSitemapOn("/a/").havingUrls("/a/1").and()
+                .withSitemapOn("/b/").havingUrls("/b/1").and()
+                .withSitemapOn("/c/").havingUrls("/c/1").and()
+                .withSitemapOn("/d/").havingUrls("/d/1").and()
+                .withSitemapOn("/e/").havingUrls("/e/1").build();
+
+        SiteMap sut = new SiteMap(origin, uris("/sitemap.xml"), allowingPath("/"), 5);
+        List<String> uris = sut.fetchUris();
+
+        assertThat(testWebsite.getMaxConcurrentSitemapRequests(), is(5));
+        assertThat(uris, containsInAnyOrder(uri("/a/1"), uri("/b/1"), uri("/c/1"), uri("/d/1"), uri("/e/1")));
+    }
+
     private String uri(String s) {
         return testUri(s).toString();
     }
@@ -0,0 +1,148 @@
+package com.myseotoolbox.crawler.spider.sitemap;
+
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class SitemapStreamParserTest {
+
+    private final List<String> urls = new ArrayList<>();
+    private final List<String> sitemaps = new ArrayList<>();
+    private final SitemapStreamParser.Listener listener = new SitemapStreamParser.Listener() {
+        @Override
+        public void url(String loc) {
+            urls.add(loc);
+        }
+
+        @Override
+        public void sitemap(String loc) {
+            sitemaps.add(loc);
+        }
+    };
+
+    @Test
+    public void shouldStreamTheUrlsOfASitemap() throws Exception {
+        parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">" +
+                "<url><loc>http://host/1</loc><lastmod>2020-01-01</lastmod></url>\n" +
+                "<url><loc>\n  http://host/2?a=1&amp;b=2\n</loc></url>" +
+                "</urlset>");
+
+        assertThat(urls, contains("http://host/1", "http://host/2?a=1&b=2"));
+        assertThat(sitemaps, empty());
+    }
+
+    @Test
+    public void shouldStreamTheSitemapsOfASitemapIndex() throws Exception {
+        parse("<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">" +
+                "<sitemap><loc>http://host/it/sitemap.xml</loc></sitemap>" +
+                "<sitemap><loc>http://host/uk/sitemap.xml</loc></sitemap>" +
+                "</sitemapindex>");
+
+        assertThat(sitemaps, contains("http://host/it/sitemap.xml", "http://host/uk/sitemap.xml"));
+        assertThat(urls, empty());
+    }
+
+    @Test
+    public void shouldIgnoreTheLocOfOtherElements() throws Exception {
+        parse("<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\" xmlns:image=\"http://www.google.com/schemas/sitemap-image/1.1\">" +
+                "<url><loc>http://host/1</loc><image:image><image:loc>http://host/1.jpg</image:loc></image:image></url>" +
+                "</urlset>");
+
+        assertThat(urls, contains("http://host/1"));
+    }
+
+    @Test
+    public void shouldStreamTheLinksOfAnRssFeed() throws Exception {
+        parse("<?xml version=\"1.0\"?><rss version=\"2.0\"><channel>" +
+                "<title>Blog</title><link>http://host/</link>" +
+                "<item><title>First</title><link>http://host/first</link></item>" +
+                "<item><link> http://host/second </link><enclosure url=\"http://host/second.mp3\"/></item>" +
+                "</channel></rss>");
+
+        assertThat(urls, contains("http://host/first", "http://host/second"));
+        assertThat(sitemaps, empty());
+    }
+
+    @Test
+    public void shouldStreamTheLinksOfAnRdfFeed() throws Exception {
+        parse("<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" xmlns=\"http://purl.org/rss/1.0/\">" +
+                "<channel><link>http://host/</link></channel>" +
+                "<item><link>http://host/first</link></item>" +
+                "</rdf:RDF>");
+
+        assertThat(urls, contains("http://host/first"));
+    }
+
+    @Test
+    public void shouldStreamTheLinksOfAnAtomFeed() throws Exception {
+        parse("<feed xmlns=\"http://www.w3.org/2005/Atom\"><link href=\"http://host/\"/>" +
+                "<entry><title>First</title><link href=\"http://host/first\"/></entry>" +
+                "<entry><link rel=\"self\" href=\"http://host/feed/second\"/><link rel=\"alternate\" href=\"http://host/second\"/></entry>" +
+                "</feed>");
+
+        assertThat(urls, contains("http://host/first", "http://host/second"));
+        assertThat(sitemaps, empty());
+    }
+
+    @Test
+    public void shouldParseTextSitemaps() throws Exception {
+        parse("\ufeffhttp://host/1\n\n  https://host/2  \nnot a url\n");
+
+        assertThat(urls, contains("http://host/1", "https://host/2"));
+    }
+
+    @Test
+    public void shouldParseGzippedSitemaps() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write("<urlset><url><loc>http://host/1</loc></url></urlset>".getBytes(StandardCharsets.UTF_8));
+        }
+
+        SitemapStreamParser.parse(new ByteArrayInputStream(out.toByteArray()), listener);
+
+        assertThat(urls, contains("http://host/1"));
+    }
+
+    @Test
+    public void urlsBeforeAMalformedPartShouldBeReported() throws IOException {
+        try {
+            parse("<urlset><url><loc>http://host/1</loc></url><url><loc>http://host/2</url></urlset>");
+            fail("Expected exception");
+        } catch (SAXException e) {
+            assertThat(urls, contains("http://host/1"));
+        }
+    }
+
+    @Test
+    public void externalEntitiesShouldNotBeResolved() throws IOException {
+        try {
+            parse("<?xml version=\"1.0\"?><!DOCTYPE urlset [<!ENTITY xxe SYSTEM \"file:///etc/hostname\">]>" +
+                    "<urlset><url><loc>http://host/&xxe;</loc></url></urlset>");
+        } catch (SAXException e) {
+            //rejecting the document is fine too
+        }
+
+        for (String url : urls) {
+            assertThat(url, is("http://host/"));
+        }
+    }
+
+    private void parse(String content) throws IOException, SAXException {
+        SitemapStreamParser.parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), listener);
+    }
+}
@@ -0,0 +1,202 @@
+package com.myseotoolbox.crawler.spider.visited;
+
+import com.google.common.hash.HashCode;
+import com.google.common.primitives.Bytes;
+import com.myseotoolbox.crawler.spider.model.CrawlUrl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class FingerprintVisitedUrlStoreTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private FingerprintVisitedUrlStore sut = FingerprintVisitedUrlStore.onHeap();
+
+    @Test
+    public void shouldRememberAddedUrls() {
+        assertTrue(sut.add("http://host/a"));
+        assertTrue(sut.contains("http://host/a"));
+        assertFalse(sut.contains("http://host/b"));
+        assertThat(sut.size(), is(1));
+    }
+
+    @Test
+    public void addingTwiceShouldReturnFalse() {
+        assertTrue(sut.add("http://host/a"));
+        assertFalse(sut.add("http://host/a"));
+        assertThat(sut.size(), is(1));
+    }
+
+    @Test
+    public void crawlUrlShouldBeTheSameEntryAsItsString() {
+        IntStream.range(0, 1000).forEach(i -> sut.add("http://host/" + i));
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(sut.contains(CrawlUrl.fromAscii("http://host/" + i)));
+            assertFalse(sut.add(CrawlUrl.fromAscii("http://host/" + i)));
+        }
+        assertTrue(sut.add(CrawlUrl.fromAscii("http://host/other")));
+        assertTrue(sut.remove("http://host/other"));
+        assertThat(sut.size(), is(1000));
+    }
+
+    @Test
+    public void memoryFootprintShouldGrowWithTheTable() {
+        long initial = sut.memoryFootprint();
+
+        IntStream.range(0, 10_000).forEach(i -> sut.add("http://host/" + i));
+
+        assertTrue(sut.memoryFootprint() > initial);
+        assertTrue(sut.memoryFootprint() >= 10_000 * 16);
+    }
+
+    @Test
+    public void shouldRemoveUrls() {
+        sut.add("http://host/a");
+        sut.add("http://host/b");
+
+        assertTrue(sut.remove("http://host/a"));
+        assertFalse(sut.remove("http://host/a"));
+
+        assertFalse(sut.contains("http://host/a"));
+        assertTrue(sut.contains("http://host/b"));
+        assertThat(sut.size(), is(1));
+    }
+
+    @Test
+    public void shouldGrowBeyondInitialCapacity() {
+        IntStream.range(0, 100000).forEach(i -> sut.add("http://host/" + i));
+
+        assertThat(sut.size(), is(100000));
+        IntStream.range(0, 100000).forEach(i -> assertTrue(sut.contains("http://host/" + i)));
+        assertFalse(sut.contains("http://host/100000"));
+    }
+
+    @Test
+    public void removingShouldNotBreakLookupOfOtherEntries() {
+        IntStream.range(0, 10000).forEach(i -> sut.add("http://host/" + i));
+        IntStream.range(0, 10000).filter(i -> i % 2 == 0).forEach(i -> sut.remove("http://host/" + i));
+
+        assertThat(sut.size(), is(5000));
+        IntStream.range(0, 10000).forEach(i -> assertThat(sut.contains("http://host/" + i), is(i % 2 != 0)));
+    }
+
+    @Test
+    public void shouldKeepExactUrlsWhenKeyCollides() {
+        sut = new CollidingKeyStore();
+
+        assertTrue(sut.add("http://host/a"));
+        assertTrue(sut.add("http://host/b"));
+        assertTrue(sut.add("http://host/c"));
+        assertFalse(sut.add("http://host/b"));
+
+        assertThat(sut.size(), is(3));
+        assertTrue(sut.contains("http://host/a"));
+        assertTrue(sut.contains("http://host/b"));
+        assertTrue(sut.contains("http://host/c"));
+        assertFalse(sut.contains("http://host/d"));
+    }
+
+    @Test
+    public void removingCollidingUrlsShouldNotAffectTheOthers() {
+        sut = new CollidingKeyStore();
+        sut.add("http://host/a");
+        sut.add("http://host/b");
+
+        assertTrue(sut.remove("http://host/a"));
+        assertFalse(sut.contains("http://host/a"));
+        assertTrue(sut.contains("http://host/b"));
+        assertFalse(sut.add("http://host/b"));
+
+        assertTrue(sut.add("http://host/a"));
+        assertThat(sut.size(), is(2));
+    }
+
+    @Test
+    public void shouldFailWhenFullAndKeepTheUrlsAlreadyAdded() {
+        sut = new FingerprintVisitedUrlStore(LongBuffer::allocate, 1 << 8);
+        int added = 0;
+        try {
+            while (added < 1000) sut.add("http://host/" + added++);
+            fail("Store should be full");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+
+        IntStream.range(0, added - 1).forEach(i -> assertTrue(sut.contains("http://host/" + i)));
+        assertThat(sut.size(), is(added - 1));
+    }
+
+    @Test
+    public void failingToGrowShouldLeaveTheStoreUsable() {
+        sut = new FingerprintVisitedUrlStore(longs -> {
+            if (longs > 1 << 9) throw new OutOfMemoryError("Direct buffer memory");
+            return LongBuffer.allocate(longs);
+        });
+        int added = 0;
+        try {
+            while (added < 1000) sut.add("http://host/" + added++);
+            fail("Store should not grow");
+        } catch (OutOfMemoryError e) {
+            //expected
+        }
+
+        IntStream.range(0, added - 1).forEach(i -> assertTrue(sut.contains("http://host/" + i)));
+        assertFalse(sut.contains("http://host/" + (added - 1)));
+        assertTrue(sut.remove("http://host/0"));
+    }
+
+    @Test
+    public void offHeapStoreShouldBehaveTheSame() {
+        verifyBasicOperations(FingerprintVisitedUrlStore.offHeap());
+    }
+
+    @Test
+    public void memoryMappedStoreShouldBehaveTheSame() {
+        verifyBasicOperations(FingerprintVisitedUrlStore.memoryMapped(folder.getRoot().toPath()));
+    }
+
+    @Test
+    public void memoryMappedStoreShouldKeepOnlyTheFileOfTheCurrentTableUntilClosed() {
+        VisitedUrlStore store = FingerprintVisitedUrlStore.memoryMapped(folder.getRoot().toPath());
+
+        IntStream.range(0, 5000).forEach(i -> store.add("http://host/" + i));
+        assertThat(folder.getRoot().listFiles().length, is(1));
+
+        store.close();
+        assertThat(folder.getRoot().listFiles().length, is(0));
+    }
+
+    private void verifyBasicOperations(VisitedUrlStore store) {
+        IntStream.range(0, 5000).forEach(i -> assertTrue(store.add("http://host/" + i)));
+        assertFalse(store.add("http://host/0"));
+        assertTrue(store.remove("http://host/0"));
+
+        assertThat(store.size(), is(4999));
+        assertFalse(store.contains("http://host/0"));
+        IntStream.range(1, 5000).forEach(i -> assertTrue(store.contains("http://host/" + i)));
+    }
+
+    /**
+     * Every url gets the same table key, only the second half of the fingerprint differs
+     */
+    private static class CollidingKeyStore extends FingerprintVisitedUrlStore {
+        CollidingKeyStore() {
+            super(LongBuffer::allocate);
+        }
+
+        @Override
+        HashCode fingerprint(String url) {
+            byte[] check = super.fingerprint(url).asBytes();
+            return HashCode.fromBytes(Bytes.concat(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}, Arrays.copyOfRange(check, 8, 16)));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.myseotoolbox.crawler.spider.visited;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class StripedVisitedUrlStoreTest {
+
+    private StripedVisitedUrlStore sut = new StripedVisitedUrlStore(8, FingerprintVisitedUrlStore::onHeap);
+
+    @Test
+    public void shouldBehaveAsASingleStore() {
+        assertTrue(sut.add("http://host/a"));
+        assertFalse(sut.add("http://host/a"));
+        assertTrue(sut.add("http://host/b"));
+        assertTrue(sut.remove("http://host/a"));
+
+        assertFalse(sut.contains("http://host/a"));
+        assertTrue(sut.contains("http://host/b"));
+        assertThat(sut.size(), is(1));
+    }
+
+    @Test
+    public void concurrentAddsShouldSucceedOnlyOncePerUrl() throws InterruptedException {
+        AtomicInteger added = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        IntStream.range(0, 8).forEach(t -> executor.submit(() -> IntStream.range(0, 10000).forEach(i -> {
+            if (sut.add("http://host/" + i)) added.incrementAndGet();
+        })));
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertThat(added.get(), is(10000));
+        assertThat(sut.size(), is(10000));
+    }
+}
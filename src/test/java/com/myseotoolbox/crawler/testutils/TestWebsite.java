@@ -6,4 +6,9 @@ import java.util.List;
 
 public interface TestWebsite {
     List<ReceivedRequest> getRequestsReceived();
+
+    /**
+     * @return the most sitemap requests served at the same time
+     */
+    int getMaxConcurrentSitemapRequests();
 }
@@ -23,6 +23,8 @@ class Page {
     private String mimeType = "text/html";
     private List<Link> links = new ArrayList<>();
     private boolean charsetFieldPresent;
+    private String etag;
+    private boolean gzipped;
 
 
     public Page(String pagePath) {
@@ -9,15 +9,17 @@ public class ReceivedRequest {
 
     private final String userAgent;
     private final String url;
+    private final String ifNoneMatch;
 
-    ReceivedRequest(String userAgent, String url) {
+    ReceivedRequest(String userAgent, String url, String ifNoneMatch) {
         this.userAgent = userAgent;
         this.url = url;
+        this.ifNoneMatch = ifNoneMatch;
     }
 
 
     public static ReceivedRequest from(Request request) {
-        return new ReceivedRequest(request.getHeader("User-Agent"), request.getRequestURI());
+        return new ReceivedRequest(request.getHeader("User-Agent"), request.getRequestURI(), request.getHeader("If-None-Match"));
     }
 
     public String getUrl() {
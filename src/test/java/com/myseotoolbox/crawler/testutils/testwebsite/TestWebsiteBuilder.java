@@ -28,6 +28,7 @@ public class TestWebsiteBuilder {
 
     InputStream robotsTxtStream;
     boolean robotsTxtRedirect = false;
+    long sitemapDelayMillis = 0;
     private Map<String, TestSiteMap> sitemaps = new HashMap<>();
 
     private TestWebsiteBuilder(Server server) {
@@ -74,6 +75,22 @@ public class TestWebsiteBuilder {
         return this;
     }
 
+    /**
+     * Requests with a matching If-None-Match get 304 Not Modified
+     */
+    public TestWebsiteBuilder withETag(String etag) {
+        this.curPage.setEtag(etag);
+        return this;
+    }
+
+    /**
+     * The page is sent gzip encoded to the requests accepting it
+     */
+    public TestWebsiteBuilder withGzipEncoding() {
+        this.curPage.setGzipped(true);
+        return this;
+    }
+
     public TestWebsiteBuilder withLinksTo(String... links) {
         this.curPage.addLinks(Arrays.asList(links), "");
         return this;
@@ -168,6 +185,14 @@ public class TestWebsiteBuilder {
         return this;
     }
 
+    /**
+     * Every sitemap is served after delayMillis
+     */
+    public TestWebsiteBuilder withSlowSitemaps(long delayMillis) {
+        this.sitemapDelayMillis = delayMillis;
+        return this;
+    }
+
     public TestSiteMapBuilder withSitemapOn(String location) {
         return new TestSiteMapBuilder(this, location, false);
     }
@@ -15,14 +15,19 @@ import java.io.OutputStream;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 import static com.myseotoolbox.crawler.utils.IsRedirect.isRedirect;
 
 @Log4j2
 class TestWebsiteRequestHandler extends AbstractHandler implements TestWebsite {
     private TestWebsiteBuilder testWebsiteBuilder;
-    private List<ReceivedRequest> requestsReceived = new ArrayList<>();
+    private List<ReceivedRequest> requestsReceived = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger sitemapRequestsInFlight = new AtomicInteger();
+    private final AtomicInteger maxConcurrentSitemapRequests = new AtomicInteger();
 
     public TestWebsiteRequestHandler(TestWebsiteBuilder testWebsiteBuilder) {
         this.testWebsiteBuilder = testWebsiteBuilder;
@@ -55,7 +60,7 @@ class TestWebsiteRequestHandler extends AbstractHandler implements TestWebsite {
             String decoded = decode(path);
             Page page = testWebsiteBuilder.getPage(decoded);
             if (page != null) {
-                servePage(page, httpServletResponse);
+                servePage(page, request, httpServletResponse);
                 request.setHandled(true);
             }
         }
@@ -69,6 +74,18 @@ class TestWebsiteRequestHandler extends AbstractHandler implements TestWebsite {
     }
 
     private void serveSitemap(Request request, HttpServletResponse response, String path) {
+        maxConcurrentSitemapRequests.accumulateAndGet(sitemapRequestsInFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(testWebsiteBuilder.sitemapDelayMillis);
+            serveSitemapNow(request, response, path);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sitemapRequestsInFlight.decrementAndGet();
+        }
+    }
+
+    private void serveSitemapNow(Request request, HttpServletResponse response, String path) {
 
         response.setStatus(HttpServletResponse.SC_OK);
         response.setHeader("content-type", "application/xml");
@@ -151,11 +168,14 @@ class TestWebsiteRequestHandler extends AbstractHandler implements TestWebsite {
         request.setHandled(true);
     }
 
-    private void servePage(Page page, HttpServletResponse response) {
+    private void servePage(Page page, Request request, HttpServletResponse response) {
         int status = page.getStatus();
 
-        if (status == 200) {
-            serveStandard(page, response);
+        if (status == 200 && page.getEtag() != null && page.getEtag().equals(request.getHeader("If-None-Match"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader("etag", page.getEtag());
+        } else if (status == 200) {
+            serveStandard(page, request, response);
         } else if (isRedirect(status)) {
             serveAsRedirect(page, response);
         } else {
@@ -171,11 +191,14 @@ class TestWebsiteRequestHandler extends AbstractHandler implements TestWebsite {
         response.setHeader("location", page.getRedirectUri());
     }
 
-    private void serveStandard(Page page, HttpServletResponse response) {
+    private void serveStandard(Page page, Request request, HttpServletResponse response) {
         response.setStatus(HttpServletResponse.SC_OK);
         response.setHeader("content-type", page.getMimeType());
+        if (page.getEtag() != null) response.setHeader("etag", page.getEtag());
+        boolean gzip = page.isGzipped() && String.valueOf(request.getHeader("Accept-Encoding")).contains("gzip");
+        if (gzip) response.setHeader("content-encoding", "gzip");
 
-        try (OutputStream outputStream = response.getOutputStream()) {
+        try (OutputStream outputStream = gzip ? new GZIPOutputStream(response.getOutputStream()) : response.getOutputStream()) {
             IOUtils.write(renderPage(page), outputStream, "UTF-8");
         } catch (IOException e) {
             e.printStackTrace();
@@ -218,4 +241,9 @@ class TestWebsiteRequestHandler extends AbstractHandler implements TestWebsite {
     public List<ReceivedRequest> getRequestsReceived() {
         return requestsReceived;
     }
+
+    @Override
+    public int getMaxConcurrentSitemapRequests() {
+        return maxConcurrentSitemapRequests.get();
+    }
 }
@@ -0,0 +1,60 @@
+package com.myseotoolbox.crawler.utils;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+public class UrlNormalizerTest {
+
+    @Test
+    public void shouldLeaveValidLinksAlone() {
+        assertThat(UrlNormalizer.normalize("http://host/path?a=1&b=2"), is("http://host/path?a=1&b=2"));
+        assertThat(UrlNormalizer.normalize("/link+link"), is("/link+link"));
+    }
+
+    @Test
+    public void shouldEscapeUnicodeAndSpaces() {
+        assertThat(UrlNormalizer.normalize("http://host/linkWithUnicode\u200B  \u200B"), is("http://host/linkWithUnicode%E2%80%8B%20%20%E2%80%8B"));
+        assertThat(UrlNormalizer.normalize("/fam\u00EDlia/\uD83D\uDE00"), is("/fam%C3%ADlia/%F0%9F%98%80"));
+    }
+
+    @Test
+    public void shouldNormalizeEncodedLinks() {
+        assertThat(UrlNormalizer.normalize("http://host/link%20with%20spaces"), is("http://host/link%20with%20spaces"));
+        assertThat(UrlNormalizer.normalize("/fam%c3%adlia"), is("/fam%C3%ADlia"));
+        assertThat(UrlNormalizer.normalize("/a%2Fb%41"), is("/a/bA"));
+        assertThat(UrlNormalizer.normalize("/100%25"), is("/100%25"));
+    }
+
+    @Test
+    public void shouldReplaceMalformedUtf8() {
+        assertThat(UrlNormalizer.normalize("/caf%E9"), is("/caf%EF%BF%BD"));
+        //raw chars are read as their lowest byte when the link is encoded
+        assertThat(UrlNormalizer.normalize("/caf\u00E9%20"), is("/caf%EF%BF%BD%20"));
+    }
+
+    @Test
+    public void shouldRejectWrongEncoding() {
+        assertThat(UrlNormalizer.normalize("http://host?%%20"), nullValue());
+        assertThat(UrlNormalizer.normalize("http://host/%2"), nullValue());
+        assertThat(UrlNormalizer.normalize("http://host/%zz"), nullValue());
+        assertThat(UrlNormalizer.normalize("http://host/\uD83D"), nullValue());
+    }
+
+    @Test
+    public void shouldRemoveFragmentAndTrim() {
+        assertThat(UrlNormalizer.normalize("  /page#section  "), is("/page"));
+        assertThat(UrlNormalizer.normalize("/page#%zz"), is("/page"));
+        assertThat(UrlNormalizer.normalize("/page#section\n/other"), is("/page%0A/other"));
+    }
+
+    @Test
+    public void emptyLinksShouldBeRejected() {
+        assertThat(UrlNormalizer.normalize(""), nullValue());
+        assertThat(UrlNormalizer.normalize("#top"), nullValue());
+        assertThat(UrlNormalizer.normalize(" %20 "), nullValue());
+        assertThat(UrlNormalizer.normalize("+%09+"), nullValue());
+    }
+}